@@ -7,6 +7,7 @@ import java.util.List;
 
 public class DocumentBuilder {
     private List<Item> heading = new ArrayList<>();
+    private List<AccountSection> accounts = new ArrayList<>();
     private AccountSection account;
     private List<DocumentSection> sections = new ArrayList<>();
     private DocumentSection currentSection;
@@ -21,7 +22,7 @@ public class DocumentBuilder {
 
     public DocumentBuilder withAccount(String key, String value) {
         if (this.account == null) {
-            this.account = new AccountSection();
+            withAccountSection();
         }
         Item item = new Item();
         item.setKey(key);
@@ -30,6 +31,13 @@ public class DocumentBuilder {
         return this;
     }
 
+    // начинаем новый раздел СекцияРасчСчет, следующие withAccount попадают в него
+    public DocumentBuilder withAccountSection() {
+        this.account = new AccountSection();
+        this.accounts.add(account);
+        return this;
+    }
+
     public DocumentSectionBuilder withDocumentSection(String sectionName) {
         endCurrentSection(); // завершаем текущий раздел, если есть
         currentSection = new DocumentSection();
@@ -41,7 +49,7 @@ public class DocumentBuilder {
     public Document build() {
         Document document = new Document();
         document.setHeading(heading);
-        document.setAccount(account);
+        document.setAccounts(accounts);
         document.setSections(sections);
         return document;
     }
@@ -0,0 +1,57 @@
+package com.github.nikolayill.builder;
+
+import com.github.nikolayill.validation.FieldFormat;
+import com.github.nikolayill.validation.FieldRule;
+import com.github.nikolayill.validation.ValidationProfile;
+
+import java.util.*;
+
+public class ValidationProfileBuilder {
+    private final Map<String, Map<String, FieldRule>> sections = new LinkedHashMap<>();
+
+    public SectionRulesBuilder withSection(String sectionName) {
+        return new SectionRulesBuilderImpl(sections.computeIfAbsent(sectionName, name -> new LinkedHashMap<>()));
+    }
+
+    public ValidationProfile build() {
+        Map<String, Collection<FieldRule>> rules = new LinkedHashMap<>();
+        sections.forEach((name, fields) -> rules.put(name, fields.values()));
+        return ValidationProfile.compile(rules);
+    }
+
+    // Вложенный интерфейс для правил секции
+    public interface SectionRulesBuilder {
+        SectionRulesBuilder withRequired(String... keys);
+        SectionRulesBuilder withFormat(String key, FieldFormat format);
+        ValidationProfileBuilder endSection();
+    }
+
+    private class SectionRulesBuilderImpl implements SectionRulesBuilder {
+        private final Map<String, FieldRule> fields;
+
+        private SectionRulesBuilderImpl(Map<String, FieldRule> fields) {
+            this.fields = fields;
+        }
+
+        @Override
+        public SectionRulesBuilder withRequired(String... keys) {
+            for (String key : keys) {
+                FieldRule existing = fields.get(key);
+                fields.put(key, new FieldRule(key, true, existing == null ? null : existing.getFormat()));
+            }
+            return this;
+        }
+
+        @Override
+        public SectionRulesBuilder withFormat(String key, FieldFormat format) {
+            FieldRule existing = fields.get(key);
+            fields.put(key, new FieldRule(key, existing != null && existing.isRequired(), format));
+            return this;
+        }
+
+        @Override
+        public ValidationProfileBuilder endSection() {
+            return ValidationProfileBuilder.this;
+        }
+    }
+}
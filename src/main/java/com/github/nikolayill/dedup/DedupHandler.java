@@ -0,0 +1,131 @@
+package com.github.nikolayill.dedup;
+
+import com.github.nikolayill.parser.stream.DocumentHandler;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Passes parser events on to another handler, leaving out document sections whose fingerprint
+ * is already in a {@link SeenSet}. Each section is fingerprinted while it is parsed and held
+ * back until its end decides whether it is new. New fingerprints are only recorded by
+ * {@link #commit()}, so a failed import can be retried.
+ * <p>
+ * With a section projection the fingerprint covers the projected keys only.
+ */
+public class DedupHandler implements DocumentHandler {
+    private final DocumentHandler delegate;
+    private final SeenSet seen;
+    private final Fingerprinter fingerprinter = new Fingerprinter();
+    private final List<SectionFingerprint> newFingerprints = new ArrayList<>();
+    private final List<String> keys = new ArrayList<>();
+    private final List<String> values = new ArrayList<>();
+    private int[] indexes = new int[16];
+    private String sectionName;
+    private long skipped;
+
+    public DedupHandler(DocumentHandler delegate, SeenSet seen) {
+        this.delegate = delegate;
+        this.seen = seen;
+    }
+
+    @Override
+    public void startDocument() {
+        delegate.startDocument();
+    }
+
+    @Override
+    public void headingItem(String key, String value) {
+        delegate.headingItem(key, value);
+    }
+
+    @Override
+    public void startAccount() {
+        delegate.startAccount();
+    }
+
+    @Override
+    public void accountItem(String key, String value) {
+        delegate.accountItem(key, value);
+    }
+
+    @Override
+    public void endAccount() {
+        delegate.endAccount();
+    }
+
+    @Override
+    public void startSection(String name) {
+        sectionName = name;
+        keys.clear();
+        values.clear();
+        fingerprinter.start(name);
+    }
+
+    @Override
+    public void sectionItem(String key, String value) {
+        sectionItem(-1, key, value);
+    }
+
+    @Override
+    public void sectionItem(int index, String key, String value) {
+        if (keys.size() == indexes.length) {
+            indexes = Arrays.copyOf(indexes, indexes.length * 2);
+        }
+        indexes[keys.size()] = index;
+        keys.add(key);
+        values.add(value);
+        fingerprinter.item(key, value);
+    }
+
+    @Override
+    public void endSection() {
+        SectionFingerprint fingerprint = fingerprinter.finish();
+        if (seen.contains(fingerprint)) {
+            skipped++;
+            return;
+        }
+        newFingerprints.add(fingerprint);
+        delegate.startSection(sectionName);
+        for (int i = 0; i < keys.size(); i++) {
+            if (indexes[i] < 0) {
+                delegate.sectionItem(keys.get(i), values.get(i));
+            } else {
+                delegate.sectionItem(indexes[i], keys.get(i), values.get(i));
+            }
+        }
+        delegate.endSection();
+    }
+
+    @Override
+    public void endDocument() {
+        delegate.endDocument();
+    }
+
+    /**
+     * @return Sections left out because they had been seen before
+     */
+    public long getSkippedCount() {
+        return skipped;
+    }
+
+    /**
+     * @return Fingerprints of the sections passed on, in document order
+     */
+    public List<SectionFingerprint> getNewFingerprints() {
+        return newFingerprints;
+    }
+
+    /**
+     * Record the sections passed on as seen, once the receiving handler's work is safely done
+     * @return Number of fingerprints added
+     */
+    public int commit() throws IOException {
+        int added = seen.addAll(newFingerprints);
+        seen.flush();
+        newFingerprints.clear();
+        return added;
+    }
+}
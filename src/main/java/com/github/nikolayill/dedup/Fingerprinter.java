@@ -0,0 +1,158 @@
+package com.github.nikolayill.dedup;
+
+/**
+ * Computes {@link SectionFingerprint}s incrementally from parser events, without allocating.
+ * Each item is hashed on its own with a MurmurHash3-style 128-bit mix over the key and the
+ * whitespace-normalized value; item hashes are summed, so their order does not matter while
+ * repeated items still count. Not thread-safe; reusable for any number of sections.
+ */
+public final class Fingerprinter {
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+    private static final char SEPARATOR = '\uFFFF'; // noncharacter, cannot occur in a key
+
+    private long sumHigh;
+    private long sumLow;
+    private long items;
+    private long nameHigh;
+    private long nameLow;
+
+    // state of the string being hashed
+    private long h1;
+    private long h2;
+    private long word;
+    private long pending;
+    private int wordChars;
+    private int wordCount;
+    private long length;
+
+    public void start(String name) {
+        begin();
+        text(name, false);
+        end();
+        nameHigh = h1;
+        nameLow = h2;
+        sumHigh = 0;
+        sumLow = 0;
+        items = 0;
+    }
+
+    public void item(String key, String value) {
+        begin();
+        text(key, false);
+        update(SEPARATOR);
+        text(value, true);
+        end();
+        sumHigh += h1;
+        sumLow += h2;
+        items++;
+    }
+
+    public SectionFingerprint finish() {
+        long high = fmix(sumHigh ^ nameHigh ^ items * C1);
+        long low = fmix(sumLow ^ nameLow ^ items * C2);
+        high += low;
+        low += high;
+        if (high == 0 && low == 0) {
+            low = 1; // all zero marks an empty SeenSet slot
+        }
+        return new SectionFingerprint(high, low);
+    }
+
+    private void begin() {
+        h1 = 0x9368e53c2f6af274L;
+        h2 = 0x586dcd208f7cd3fdL;
+        word = 0;
+        pending = 0;
+        wordChars = 0;
+        wordCount = 0;
+        length = 0;
+    }
+
+    // Feeds trimmed text; with normalize, every inner run of whitespace counts as one space
+    private void text(String text, boolean normalize) {
+        int start = 0;
+        int end = text.length();
+        while (start < end && isSpace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && isSpace(text.charAt(end - 1))) {
+            end--;
+        }
+        boolean space = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (normalize && isSpace(c)) {
+                space = true;
+                continue;
+            }
+            if (space) {
+                update(' ');
+                space = false;
+            }
+            update(c);
+        }
+    }
+
+    private void update(char c) {
+        word |= (long) c << (wordChars * 16);
+        length++;
+        if (++wordChars == 4) {
+            if (++wordCount == 2) {
+                block(pending, word);
+                wordCount = 0;
+            } else {
+                pending = word;
+            }
+            word = 0;
+            wordChars = 0;
+        }
+    }
+
+    private void block(long k1, long k2) {
+        h1 ^= mixK1(k1);
+        h1 = Long.rotateLeft(h1, 27) + h2;
+        h1 = h1 * 5 + 0x52dce729;
+        h2 ^= mixK2(k2);
+        h2 = Long.rotateLeft(h2, 31) + h1;
+        h2 = h2 * 5 + 0x38495ab5;
+    }
+
+    private void end() {
+        long k1 = wordCount == 1 ? pending : word;
+        long k2 = wordCount == 1 ? word : 0;
+        if (wordCount == 1 || wordChars > 0) {
+            h1 ^= mixK1(k1);
+            h2 ^= mixK2(k2);
+        }
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+    }
+
+    private static long mixK1(long k1) {
+        return Long.rotateLeft(k1 * C1, 31) * C2;
+    }
+
+    private static long mixK2(long k2) {
+        return Long.rotateLeft(k2 * C2, 33) * C1;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    private static boolean isSpace(char c) {
+        return c <= ' ' || c == '\u00A0';
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.nikolayill.dedup;
+
+import com.github.nikolayill.dto.DocumentSection;
+import com.github.nikolayill.dto.Item;
+
+/**
+ * 128-bit content hash of a document section, equal for sections with the same name and the
+ * same key=value items in any order and with any whitespace around and inside values.
+ * Stable across runs and JVMs, so it can be stored. Computed fingerprints are never all zero,
+ * the value a {@link SeenSet} uses for empty slots.
+ */
+public final class SectionFingerprint {
+    private final long high;
+    private final long low;
+
+    public SectionFingerprint(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    public static SectionFingerprint of(DocumentSection section) {
+        Fingerprinter fingerprinter = new Fingerprinter();
+        fingerprinter.start(section.getName());
+        for (Item item : section.getItems()) {
+            fingerprinter.item(item.getKey(), item.getValue());
+        }
+        return fingerprinter.finish();
+    }
+
+    /**
+     * @param hex 32 hex digits as written by {@link #toString()}
+     */
+    public static SectionFingerprint parse(String hex) {
+        if (hex.length() != 32) {
+            throw new IllegalArgumentException("Expected 32 hex digits: " + hex);
+        }
+        return new SectionFingerprint(Long.parseUnsignedLong(hex.substring(0, 16), 16),
+                Long.parseUnsignedLong(hex.substring(16), 16));
+    }
+
+    public long getHigh() {
+        return high;
+    }
+
+    public long getLow() {
+        return low;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof SectionFingerprint that && high == that.high && low == that.low;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(high ^ low);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%016x%016x", high, low);
+    }
+}
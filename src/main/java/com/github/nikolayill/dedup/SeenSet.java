@@ -0,0 +1,217 @@
+package com.github.nikolayill.dedup;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+
+/**
+ * Persistent set of {@link SectionFingerprint}s: an open-addressing hash table in a memory-mapped
+ * file, so lookups touch one or two pages and opening does not load the set onto the heap.
+ * The table doubles, into a new file that replaces the old one atomically, when it is half full.
+ * Fingerprints are written as they are added and forced to disk by {@link #flush()} and
+ * {@link #close()}. Methods are thread-safe.
+ * <p>
+ * The header holds the magic number, the fingerprint count, the capacity and a clean-shutdown flag.
+ * The flag is cleared while the set is open and set again by {@link #close()} after the table is
+ * forced, so the count is trusted only for a file that was closed cleanly; any other file is
+ * rescanned slot by slot on open.
+ */
+public class SeenSet implements Closeable {
+    private static final int MAGIC = 0x53454e31; // "SEN1"
+    private static final int COUNT_OFFSET = 4;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int CLEAN_OFFSET = 16;
+    private static final int HEADER_SIZE = 32;
+    private static final int SLOT_SIZE = 16;
+    private static final long INITIAL_CAPACITY = 1 << 16;
+    private static final long MAX_CAPACITY = (Integer.MAX_VALUE - HEADER_SIZE) / SLOT_SIZE;
+
+    private final Path path;
+    private FileChannel channel;
+    private MappedByteBuffer table;
+    private long capacity;
+    private long size;
+
+    /**
+     * Open the set stored in a file, creating it if missing
+     * @throws IOException if the file cannot be read or is not a seen-set
+     */
+    public SeenSet(Path path) throws IOException {
+        this.path = path;
+        if (!Files.exists(path) || Files.size(path) == 0) {
+            create(path, INITIAL_CAPACITY).close();
+        }
+        open();
+    }
+
+    public synchronized boolean contains(SectionFingerprint fingerprint) {
+        int offset = (int) (HEADER_SIZE + find(fingerprint) * SLOT_SIZE);
+        return table.getLong(offset) != 0 || table.getLong(offset + 8) != 0;
+    }
+
+    /**
+     * @return true if the fingerprint was not in the set yet
+     * @throws IllegalArgumentException if the fingerprint is all zero, which marks empty slots
+     */
+    public synchronized boolean add(SectionFingerprint fingerprint) throws IOException {
+        if (fingerprint.getHigh() == 0 && fingerprint.getLow() == 0) {
+            throw new IllegalArgumentException("All-zero fingerprint cannot be stored");
+        }
+        long slot = find(fingerprint);
+        int offset = (int) (HEADER_SIZE + slot * SLOT_SIZE);
+        if (table.getLong(offset) != 0 || table.getLong(offset + 8) != 0) {
+            return false;
+        }
+        table.putLong(offset, fingerprint.getHigh());
+        table.putLong(offset + 8, fingerprint.getLow());
+        table.putInt(COUNT_OFFSET, (int) ++size);
+        if (size * 2 > capacity) {
+            grow();
+        }
+        return true;
+    }
+
+    /**
+     * @return Number of fingerprints that were not in the set yet
+     */
+    public synchronized int addAll(Collection<SectionFingerprint> fingerprints) throws IOException {
+        int added = 0;
+        for (SectionFingerprint fingerprint : fingerprints) {
+            if (add(fingerprint)) {
+                added++;
+            }
+        }
+        return added;
+    }
+
+    public synchronized long size() {
+        return size;
+    }
+
+    public synchronized void flush() {
+        table.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            table.force();
+            table.putInt(CLEAN_OFFSET, 1);
+            table.force(0, HEADER_SIZE);
+            channel.close();
+            channel = null;
+            table = null;
+        }
+    }
+
+    // Slot holding the fingerprint, or the empty slot where it belongs
+    private long find(SectionFingerprint fingerprint) {
+        long mask = capacity - 1;
+        long slot = spread(fingerprint.getLow()) & mask;
+        for (long probes = 0; probes < capacity; probes++, slot = (slot + 1) & mask) {
+            int offset = (int) (HEADER_SIZE + slot * SLOT_SIZE);
+            long high = table.getLong(offset);
+            long low = table.getLong(offset + 8);
+            if ((high == 0 && low == 0) || (high == fingerprint.getHigh() && low == fingerprint.getLow())) {
+                return slot;
+            }
+        }
+        throw new IllegalStateException("Seen-set table has no free slot: " + path);
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long fileSize = channel.size();
+        if (fileSize < HEADER_SIZE) {
+            throw new IOException("Not a seen-set file: " + path);
+        }
+        table = map(channel, fileSize);
+        capacity = table.getLong(CAPACITY_OFFSET);
+        if (table.getInt(0) != MAGIC || Long.bitCount(capacity) != 1 || fileSize != HEADER_SIZE + capacity * SLOT_SIZE) {
+            channel.close();
+            throw new IOException("Not a seen-set file: " + path);
+        }
+        size = table.getInt(COUNT_OFFSET);
+        boolean clean = table.getInt(CLEAN_OFFSET) == 1;
+        table.putInt(CLEAN_OFFSET, 0);
+        table.force(0, HEADER_SIZE);
+        if (!clean || size < 0 || size * 2 > capacity) {
+            size = 0;
+            for (long slot = 0; slot < capacity; slot++) {
+                int offset = (int) (HEADER_SIZE + slot * SLOT_SIZE);
+                if (table.getLong(offset) != 0 || table.getLong(offset + 8) != 0) {
+                    size++;
+                }
+            }
+            table.putInt(COUNT_OFFSET, (int) size);
+        }
+        if (size * 2 > capacity) {
+            grow();
+        }
+    }
+
+    private void grow() throws IOException {
+        if (capacity * 2 > MAX_CAPACITY) {
+            throw new IllegalStateException("Seen-set is full: " + path);
+        }
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (Resized resized = create(temporary, capacity * 2)) {
+            long mask = resized.capacity - 1;
+            for (long slot = 0; slot < capacity; slot++) {
+                int offset = (int) (HEADER_SIZE + slot * SLOT_SIZE);
+                long high = table.getLong(offset);
+                long low = table.getLong(offset + 8);
+                if (high == 0 && low == 0) {
+                    continue;
+                }
+                long target = spread(low) & mask;
+                int targetOffset = (int) (HEADER_SIZE + target * SLOT_SIZE);
+                while (resized.table.getLong(targetOffset) != 0 || resized.table.getLong(targetOffset + 8) != 0) {
+                    target = (target + 1) & mask;
+                    targetOffset = (int) (HEADER_SIZE + target * SLOT_SIZE);
+                }
+                resized.table.putLong(targetOffset, high);
+                resized.table.putLong(targetOffset + 8, low);
+            }
+            resized.table.putInt(COUNT_OFFSET, (int) size);
+        }
+        channel.close();
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        open();
+    }
+
+    private static Resized create(Path file, long capacity) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        MappedByteBuffer table = map(channel, HEADER_SIZE + capacity * SLOT_SIZE);
+        table.putInt(0, MAGIC);
+        table.putLong(CAPACITY_OFFSET, capacity);
+        return new Resized(channel, table, capacity);
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long size) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    private static long spread(long hash) {
+        return hash ^ (hash >>> 29);
+    }
+
+    // A freshly created table file, forced to disk on close
+    private record Resized(FileChannel channel, MappedByteBuffer table, long capacity) implements Closeable {
+        @Override
+        public void close() throws IOException {
+            table.force();
+            channel.close();
+        }
+    }
+}
@@ -5,7 +5,7 @@ import java.util.ArrayList;
 
 public class Document {
     private List<Item> heading = new ArrayList<>();
-    private AccountSection account;
+    private List<AccountSection> accounts = new ArrayList<>();
     private List<DocumentSection> sections = new ArrayList<>();
 
     // Getters and setters
@@ -18,12 +18,24 @@ public class Document {
         this.heading = heading;
     }
 
+    // First account section, consolidated statements have one per account
     public AccountSection getAccount() {
-        return account;
+        return accounts.isEmpty() ? null : accounts.get(0);
     }
 
     public void setAccount(AccountSection account) {
-        this.account = account;
+        this.accounts = new ArrayList<>();
+        if (account != null) {
+            this.accounts.add(account);
+        }
+    }
+
+    public List<AccountSection> getAccounts() {
+        return accounts;
+    }
+
+    public void setAccounts(List<AccountSection> accounts) {
+        this.accounts = accounts;
     }
 
     public List<DocumentSection> getSections() {
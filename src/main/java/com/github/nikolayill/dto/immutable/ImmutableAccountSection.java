@@ -0,0 +1,29 @@
+package com.github.nikolayill.dto.immutable;
+
+import com.github.nikolayill.dto.AccountSection;
+
+import java.util.List;
+
+/**
+ * Immutable СекцияРасчСчет block
+ */
+public record ImmutableAccountSection(List<ImmutableItem> items) {
+
+    public ImmutableAccountSection {
+        items = List.copyOf(items);
+    }
+
+    /**
+     * Convert a mutable account section, sharing its key and value strings
+     */
+    public static ImmutableAccountSection of(AccountSection account) {
+        return new ImmutableAccountSection(ImmutableItem.listOf(account.getItems()));
+    }
+
+    /**
+     * @return Value of the first item with the given key, or null
+     */
+    public String getValue(String key) {
+        return ImmutableItem.find(items, key);
+    }
+}
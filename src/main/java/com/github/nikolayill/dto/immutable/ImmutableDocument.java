@@ -0,0 +1,45 @@
+package com.github.nikolayill.dto.immutable;
+
+import com.github.nikolayill.dto.AccountSection;
+import com.github.nikolayill.dto.Document;
+import com.github.nikolayill.dto.DocumentSection;
+
+import java.util.List;
+
+/**
+ * Immutable counterpart of {@link Document}. All lists are unmodifiable and sized to their
+ * content, so instances can be shared between threads and cached without copying.
+ */
+public record ImmutableDocument(List<ImmutableItem> heading, List<ImmutableAccountSection> accounts,
+                                List<ImmutableDocumentSection> sections) {
+
+    public ImmutableDocument {
+        heading = List.copyOf(heading);
+        accounts = List.copyOf(accounts);
+        sections = List.copyOf(sections);
+    }
+
+    /**
+     * @return First account section, or null when there is none
+     */
+    public ImmutableAccountSection account() {
+        return accounts.isEmpty() ? null : accounts.get(0);
+    }
+
+    /**
+     * Convert a mutable document. Key, value and name strings are shared rather than copied.
+     */
+    public static ImmutableDocument of(Document document) {
+        List<AccountSection> sourceAccounts = document.getAccounts();
+        ImmutableAccountSection[] accounts = new ImmutableAccountSection[sourceAccounts.size()];
+        for (int i = 0; i < accounts.length; i++) {
+            accounts[i] = ImmutableAccountSection.of(sourceAccounts.get(i));
+        }
+        List<DocumentSection> source = document.getSections();
+        ImmutableDocumentSection[] sections = new ImmutableDocumentSection[source.size()];
+        for (int i = 0; i < sections.length; i++) {
+            sections[i] = ImmutableDocumentSection.of(source.get(i));
+        }
+        return new ImmutableDocument(ImmutableItem.listOf(document.getHeading()), List.of(accounts), List.of(sections));
+    }
+}
@@ -0,0 +1,31 @@
+package com.github.nikolayill.dto.immutable;
+
+import com.github.nikolayill.dto.DocumentSection;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Immutable СекцияДокумент block
+ */
+public record ImmutableDocumentSection(String name, List<ImmutableItem> items) {
+
+    public ImmutableDocumentSection {
+        Objects.requireNonNull(name, "name");
+        items = List.copyOf(items);
+    }
+
+    /**
+     * Convert a mutable document section, sharing its name, key and value strings
+     */
+    public static ImmutableDocumentSection of(DocumentSection section) {
+        return new ImmutableDocumentSection(section.getName(), ImmutableItem.listOf(section.getItems()));
+    }
+
+    /**
+     * @return Value of the first item with the given key, or null
+     */
+    public String getValue(String key) {
+        return ImmutableItem.find(items, key);
+    }
+}
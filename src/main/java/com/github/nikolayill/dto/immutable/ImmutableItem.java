@@ -0,0 +1,42 @@
+package com.github.nikolayill.dto.immutable;
+
+import com.github.nikolayill.dto.Item;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Immutable key=value item
+ */
+public record ImmutableItem(String key, String value) {
+
+    public ImmutableItem {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(value, "value");
+    }
+
+    /**
+     * Convert a mutable item, sharing its key and value strings
+     */
+    public static ImmutableItem of(Item item) {
+        return new ImmutableItem(item.getKey(), item.getValue());
+    }
+
+    static List<ImmutableItem> listOf(List<Item> items) {
+        ImmutableItem[] result = new ImmutableItem[items.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = of(items.get(i));
+        }
+        return List.of(result);
+    }
+
+    // Value of the first item with the given key, or null
+    static String find(List<ImmutableItem> items, String key) {
+        for (ImmutableItem item : items) {
+            if (item.key.equals(key)) {
+                return item.value;
+            }
+        }
+        return null;
+    }
+}
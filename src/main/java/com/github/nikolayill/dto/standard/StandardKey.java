@@ -0,0 +1,106 @@
+package com.github.nikolayill.dto.standard;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keys of a СекцияДокумент block defined by the 1C client bank exchange format
+ */
+public enum StandardKey {
+    NUMBER("Номер"),
+    DATE("Дата"),
+    AMOUNT("Сумма"),
+    RECEIPT_DATE("КвитанцияДата"),
+    RECEIPT_TIME("КвитанцияВремя"),
+    RECEIPT_CONTENT("КвитанцияСодержание"),
+    PAYER_ACCOUNT("ПлательщикСчет"),
+    WRITTEN_OFF_DATE("ДатаСписано"),
+    PAYER("Плательщик"),
+    PAYER_INN("ПлательщикИНН"),
+    PAYER_1("Плательщик1"),
+    PAYER_2("Плательщик2"),
+    PAYER_3("Плательщик3"),
+    PAYER_4("Плательщик4"),
+    PAYER_SETTLEMENT_ACCOUNT("ПлательщикРасчСчет"),
+    PAYER_BANK_1("ПлательщикБанк1"),
+    PAYER_BANK_2("ПлательщикБанк2"),
+    PAYER_BIC("ПлательщикБИК"),
+    PAYER_CORRESPONDENT_ACCOUNT("ПлательщикКорсчет"),
+    PAYER_KPP("ПлательщикКПП"),
+    PAYEE_ACCOUNT("ПолучательСчет"),
+    RECEIVED_DATE("ДатаПоступило"),
+    PAYEE("Получатель"),
+    PAYEE_INN("ПолучательИНН"),
+    PAYEE_1("Получатель1"),
+    PAYEE_2("Получатель2"),
+    PAYEE_3("Получатель3"),
+    PAYEE_4("Получатель4"),
+    PAYEE_SETTLEMENT_ACCOUNT("ПолучательРасчСчет"),
+    PAYEE_BANK_1("ПолучательБанк1"),
+    PAYEE_BANK_2("ПолучательБанк2"),
+    PAYEE_BIC("ПолучательБИК"),
+    PAYEE_CORRESPONDENT_ACCOUNT("ПолучательКорсчет"),
+    PAYEE_KPP("ПолучательКПП"),
+    PAYMENT_KIND("ВидПлатежа"),
+    OPERATION_KIND("ВидОплаты"),
+    PAYMENT_CODE("Код"),
+    PRIORITY("Очередность"),
+    ORIGINATOR_STATUS("СтатусСоставителя"),
+    BUDGET_CLASSIFICATION_CODE("ПоказательКБК"),
+    OKATO("ОКАТО"),
+    TAX_BASIS("ПоказательОснования"),
+    TAX_PERIOD("ПоказательПериода"),
+    TAX_DOCUMENT_NUMBER("ПоказательНомера"),
+    TAX_DOCUMENT_DATE("ПоказательДаты"),
+    TAX_PAYMENT_TYPE("ПоказательТипа"),
+    ACCEPTANCE_TERM("СрокАкцепта"),
+    LETTER_OF_CREDIT_KIND("ВидАккредитива"),
+    PAYMENT_TERM("СрокПлатежа"),
+    PAYMENT_CONDITION_1("УсловиеОплаты1"),
+    PAYMENT_CONDITION_2("УсловиеОплаты2"),
+    PAYMENT_CONDITION_3("УсловиеОплаты3"),
+    PAYMENT_ON_PRESENTATION("ПлатежПоПредст"),
+    ADDITIONAL_CONDITIONS("ДополнУсловия"),
+    SUPPLIER_ACCOUNT_NUMBER("НомерСчетаПоставщика"),
+    DOCUMENTS_SENT_DATE("ДатаОтсылкиДок"),
+    PURPOSE("НазначениеПлатежа"),
+    PURPOSE_1("НазначениеПлатежа1"),
+    PURPOSE_2("НазначениеПлатежа2"),
+    PURPOSE_3("НазначениеПлатежа3"),
+    PURPOSE_4("НазначениеПлатежа4"),
+    PURPOSE_5("НазначениеПлатежа5"),
+    PURPOSE_6("НазначениеПлатежа6");
+
+    private static final StandardKey[] VALUES = values();
+    private static final Map<String, StandardKey> BY_KEY = new HashMap<>(VALUES.length * 2);
+
+    static {
+        for (StandardKey key : VALUES) {
+            BY_KEY.put(key.key, key);
+        }
+    }
+
+    private final String key;
+
+    StandardKey(String key) {
+        this.key = key;
+    }
+
+    /**
+     * @return The key as written in exchange files
+     */
+    public String key() {
+        return key;
+    }
+
+    /**
+     * @return The standard key written as {@code key}, or null for a non-standard key
+     */
+    public static StandardKey of(String key) {
+        return BY_KEY.get(key);
+    }
+
+    static int count() {
+        return VALUES.length;
+    }
+}
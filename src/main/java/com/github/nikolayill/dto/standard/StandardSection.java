@@ -0,0 +1,151 @@
+package com.github.nikolayill.dto.standard;
+
+import com.github.nikolayill.dto.DocumentSection;
+import com.github.nikolayill.dto.Item;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * СекцияДокумент block keyed by {@link StandardKey}. Standard values live in an array indexed
+ * by the key's ordinal, other keys in an overflow map created on first use. When a key
+ * repeats, the last value wins.
+ */
+public class StandardSection {
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+
+    private final String name;
+    private final String[] values = new String[StandardKey.count()];
+    private Map<String, String> overflow;
+
+    public StandardSection(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Convert a document section, sharing its value strings
+     */
+    public static StandardSection of(DocumentSection section) {
+        StandardSection standard = new StandardSection(section.getName());
+        for (Item item : section.getItems()) {
+            standard.set(item.getKey(), item.getValue());
+        }
+        return standard;
+    }
+
+    public void set(String key, String value) {
+        StandardKey standardKey = StandardKey.of(key);
+        if (standardKey != null) {
+            values[standardKey.ordinal()] = value;
+        } else {
+            if (overflow == null) {
+                overflow = new LinkedHashMap<>();
+            }
+            overflow.put(key, value);
+        }
+    }
+
+    public void set(StandardKey key, String value) {
+        values[key.ordinal()] = value;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String get(StandardKey key) {
+        return values[key.ordinal()];
+    }
+
+    /**
+     * @return Value of a standard or non-standard key, or null
+     */
+    public String getValue(String key) {
+        StandardKey standardKey = StandardKey.of(key);
+        if (standardKey != null) {
+            return values[standardKey.ordinal()];
+        }
+        return overflow == null ? null : overflow.get(key);
+    }
+
+    /**
+     * @return Items with non-standard keys in file order
+     */
+    public Map<String, String> getOverflow() {
+        return overflow == null ? Collections.emptyMap() : Collections.unmodifiableMap(overflow);
+    }
+
+    public String getNumber() {
+        return get(StandardKey.NUMBER);
+    }
+
+    /**
+     * @return Дата, or null if absent
+     * @throws java.time.format.DateTimeParseException if it is not dd.MM.yyyy
+     */
+    public LocalDate getDate() {
+        return date(StandardKey.DATE);
+    }
+
+    /**
+     * @return Сумма, or null if absent; a decimal comma is accepted
+     * @throws NumberFormatException if it is not a number
+     */
+    public BigDecimal getAmount() {
+        String amount = get(StandardKey.AMOUNT);
+        return amount == null ? null : new BigDecimal(amount.replace(',', '.'));
+    }
+
+    public String getPayerAccount() {
+        return get(StandardKey.PAYER_ACCOUNT);
+    }
+
+    public String getPayer() {
+        return get(StandardKey.PAYER);
+    }
+
+    public String getPayerInn() {
+        return get(StandardKey.PAYER_INN);
+    }
+
+    public String getPayerKpp() {
+        return get(StandardKey.PAYER_KPP);
+    }
+
+    public String getPayeeAccount() {
+        return get(StandardKey.PAYEE_ACCOUNT);
+    }
+
+    public String getPayee() {
+        return get(StandardKey.PAYEE);
+    }
+
+    public String getPayeeInn() {
+        return get(StandardKey.PAYEE_INN);
+    }
+
+    public String getPayeeKpp() {
+        return get(StandardKey.PAYEE_KPP);
+    }
+
+    public String getPurpose() {
+        return get(StandardKey.PURPOSE);
+    }
+
+    public LocalDate getWrittenOffDate() {
+        return date(StandardKey.WRITTEN_OFF_DATE);
+    }
+
+    public LocalDate getReceivedDate() {
+        return date(StandardKey.RECEIVED_DATE);
+    }
+
+    private LocalDate date(StandardKey key) {
+        String date = get(key);
+        return date == null || date.isEmpty() ? null : LocalDate.parse(date, DATE_FORMAT);
+    }
+}
@@ -0,0 +1,115 @@
+package com.github.nikolayill.export;
+
+import com.github.nikolayill.index.AccountIndex;
+import com.github.nikolayill.parser.stream.ParseOptions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Maps heading, account and section keys to output columns. Every exported row is one
+ * document section; heading columns repeat the file's values on each row, account columns
+ * the values of the row's account section.
+ */
+public class ColumnMapping {
+
+    public enum Source {
+        HEADING, ACCOUNT, SECTION, SECTION_NAME
+    }
+
+    public static class Column {
+        private final Source source;
+        private final String key;
+        private final String header;
+
+        public Column(Source source, String key, String header) {
+            this.source = source;
+            this.key = key;
+            this.header = header;
+        }
+
+        public Source getSource() {
+            return source;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getHeader() {
+            return header;
+        }
+    }
+
+    private final List<Column> columns = new ArrayList<>();
+
+    public ColumnMapping withHeadingColumn(String key, String header) {
+        columns.add(new Column(Source.HEADING, key, header));
+        return this;
+    }
+
+    public ColumnMapping withAccountColumn(String key, String header) {
+        columns.add(new Column(Source.ACCOUNT, key, header));
+        return this;
+    }
+
+    public ColumnMapping withSectionColumn(String key, String header) {
+        columns.add(new Column(Source.SECTION, key, header));
+        return this;
+    }
+
+    public ColumnMapping withSectionColumn(String key) {
+        return withSectionColumn(key, key);
+    }
+
+    public ColumnMapping withSectionNameColumn(String header) {
+        columns.add(new Column(Source.SECTION_NAME, null, header));
+        return this;
+    }
+
+    public List<Column> getColumns() {
+        return Collections.unmodifiableList(columns);
+    }
+
+    public List<String> keys(Source source) {
+        List<String> keys = new ArrayList<>();
+        for (Column column : columns) {
+            if (column.getSource() == source && !keys.contains(column.getKey())) {
+                keys.add(column.getKey());
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Restrict the parser to the mapped keys so that unmapped items are never materialized
+     * @return the same options, for chaining
+     */
+    public ParseOptions applyTo(ParseOptions options) {
+        return options.withHeadingProjection(projection(Source.HEADING))
+                .withAccountProjection(projection(Source.ACCOUNT))
+                .withSectionProjection(projection(Source.SECTION));
+    }
+
+    // Mapped keys plus the account numbers that tie a row to its account section
+    List<String> projection(Source source) {
+        List<String> keys = keys(source);
+        if (keys(Source.ACCOUNT).isEmpty()) {
+            return keys;
+        }
+        if (source == Source.ACCOUNT) {
+            addIfMissing(keys, AccountIndex.ACCOUNT_KEY);
+        } else if (source == Source.SECTION) {
+            addIfMissing(keys, AccountIndex.PAYER_ACCOUNT_KEY);
+            addIfMissing(keys, AccountIndex.PAYEE_ACCOUNT_KEY);
+        }
+        return keys;
+    }
+
+    private static void addIfMissing(List<String> keys, String key) {
+        if (!keys.contains(key)) {
+            keys.add(key);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.github.nikolayill.export;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Writes every column to its own file, {@code column-<n>.bin}, as a sequence of values:
+ * a big-endian int byte length (-1 for a missing value) followed by the UTF-8 bytes.
+ * {@code schema.txt} lists the column headers in order and, last, the row count.
+ */
+public class ColumnarExporter extends RowExporter implements Closeable {
+    static final String SCHEMA_FILE = "schema.txt";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final DataOutputStream[] columns;
+
+    public ColumnarExporter(ColumnMapping mapping, Path directory) throws IOException {
+        super(mapping);
+        this.directory = directory;
+        Files.createDirectories(directory);
+        columns = new DataOutputStream[mapping.getColumns().size()];
+        try {
+            for (int i = 0; i < columns.length; i++) {
+                FileChannel channel = FileChannel.open(columnFile(directory, i),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                columns[i] = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    public static Path columnFile(Path directory, int column) {
+        return directory.resolve("column-" + column + ".bin");
+    }
+
+    @Override
+    protected void writeHeader(List<ColumnMapping.Column> columnList) {
+        // headers go to the schema file once the row count is known
+    }
+
+    @Override
+    protected void writeRow(String[] row) throws IOException {
+        for (int i = 0; i < row.length; i++) {
+            if (row[i] == null) {
+                columns[i].writeInt(-1);
+            } else {
+                byte[] bytes = row[i].getBytes(StandardCharsets.UTF_8);
+                columns[i].writeInt(bytes.length);
+                columns[i].write(bytes);
+            }
+        }
+    }
+
+    @Override
+    protected void finish(long rowCount) throws IOException {
+        for (DataOutputStream column : columns) {
+            column.flush();
+        }
+        StringBuilder schema = new StringBuilder();
+        for (ColumnMapping.Column column : mapping.getColumns()) {
+            schema.append(column.getHeader()).append('\n');
+        }
+        schema.append(rowCount).append('\n');
+        Files.writeString(directory.resolve(SCHEMA_FILE), schema);
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (DataOutputStream column : columns) {
+            if (column == null) {
+                continue;
+            }
+            try {
+                column.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
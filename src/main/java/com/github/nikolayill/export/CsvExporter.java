@@ -0,0 +1,80 @@
+package com.github.nikolayill.export;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes one CSV line per document section (RFC 4180 quoting). The writer is flushed
+ * at the end of the document but not closed.
+ */
+public class CsvExporter extends RowExporter {
+    private final Writer out;
+    private final char delimiter;
+
+    public CsvExporter(ColumnMapping mapping, Writer out) {
+        this(mapping, out, ',');
+    }
+
+    public CsvExporter(ColumnMapping mapping, Writer out, char delimiter) {
+        super(mapping);
+        this.out = out;
+        this.delimiter = delimiter;
+    }
+
+    @Override
+    protected void writeHeader(List<ColumnMapping.Column> columns) throws IOException {
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                out.write(delimiter);
+            }
+            writeValue(columns.get(i).getHeader());
+        }
+        out.write("\r\n");
+    }
+
+    @Override
+    protected void writeRow(String[] row) throws IOException {
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) {
+                out.write(delimiter);
+            }
+            writeValue(row[i]);
+        }
+        out.write("\r\n");
+    }
+
+    @Override
+    protected void finish(long rowCount) throws IOException {
+        out.flush();
+    }
+
+    private void writeValue(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (!needsQuotes(value)) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    private boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == delimiter || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
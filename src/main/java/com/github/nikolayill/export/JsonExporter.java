@@ -0,0 +1,198 @@
+package com.github.nikolayill.export;
+
+import com.github.nikolayill.parser.stream.DocumentHandler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes parser events as UTF-8 JSON without building a tree. Strings are escaped and
+ * encoded char by char into an internal byte buffer, so values are never copied.
+ * <p>
+ * {@link Mode#DOCUMENT} writes a single object:
+ * {@code {"heading":{..},"accounts":[{..},..],"sections":[{"name":"..","items":{..}},..]}}.
+ * {@link Mode#NDJSON} writes {@code {"heading":{..},"accounts":[{..},..]}} on the first line and
+ * then one {@code {"name":"..","items":{..}}} line per section.
+ * Repeated keys are written as repeated members. The stream is flushed at the end
+ * of the document but not closed.
+ */
+public class JsonExporter implements DocumentHandler {
+
+    public enum Mode {
+        DOCUMENT, NDJSON
+    }
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    private final OutputStream out;
+    private final Mode mode;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private boolean firstMember;
+    private boolean firstAccount = true;
+    private boolean inAccounts;
+    private boolean firstSection = true;
+    private long sectionCount;
+
+    public JsonExporter(OutputStream out) {
+        this(out, Mode.DOCUMENT);
+    }
+
+    public JsonExporter(OutputStream out, Mode mode) {
+        this.out = out;
+        this.mode = mode;
+    }
+
+    @Override
+    public void startDocument() {
+        writeAscii("{\"heading\":{");
+        firstMember = true;
+    }
+
+    @Override
+    public void headingItem(String key, String value) {
+        member(key, value);
+    }
+
+    @Override
+    public void startAccount() {
+        writeAscii(firstAccount ? "},\"accounts\":[{" : ",{");
+        firstAccount = false;
+        inAccounts = true;
+        firstMember = true;
+    }
+
+    @Override
+    public void accountItem(String key, String value) {
+        member(key, value);
+    }
+
+    @Override
+    public void endAccount() {
+        write('}');
+    }
+
+    @Override
+    public void startSection(String name) {
+        endAccounts();
+        if (mode == Mode.DOCUMENT && !firstSection) {
+            write(',');
+        }
+        firstSection = false;
+        writeAscii("{\"name\":");
+        string(name);
+        writeAscii(",\"items\":{");
+        firstMember = true;
+    }
+
+    @Override
+    public void sectionItem(String key, String value) {
+        member(key, value);
+    }
+
+    @Override
+    public void endSection() {
+        writeAscii(mode == Mode.NDJSON ? "}}\n" : "}}");
+        sectionCount++;
+    }
+
+    @Override
+    public void endDocument() {
+        endAccounts();
+        if (mode == Mode.DOCUMENT) {
+            writeAscii("]}");
+        }
+        flush();
+    }
+
+    public long getSectionCount() {
+        return sectionCount;
+    }
+
+    // The account list ends with the first section or with the document
+    private void endAccounts() {
+        if (inAccounts) {
+            writeAscii(mode == Mode.NDJSON ? "]}\n" : "],\"sections\":[");
+            inAccounts = false;
+        }
+    }
+
+    private void member(String key, String value) {
+        if (!firstMember) {
+            write(',');
+        }
+        firstMember = false;
+        string(key);
+        write(':');
+        string(value);
+    }
+
+    private void string(String value) {
+        write('"');
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c == '"' || c == '\\') {
+                    write('\\');
+                    write(c);
+                } else if (c < 0x20) {
+                    writeAscii("\\u00");
+                    write(HEX[c >> 4]);
+                    write(HEX[c & 0xF]);
+                } else {
+                    write(c);
+                }
+            } else if (c < 0x800) {
+                write(0xC0 | (c >> 6));
+                write(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                write(0xF0 | (codePoint >> 18));
+                write(0x80 | ((codePoint >> 12) & 0x3F));
+                write(0x80 | ((codePoint >> 6) & 0x3F));
+                write(0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                write('?'); // unpaired surrogate has no UTF-8 encoding
+            } else {
+                write(0xE0 | (c >> 12));
+                write(0x80 | ((c >> 6) & 0x3F));
+                write(0x80 | (c & 0x3F));
+            }
+        }
+        write('"');
+    }
+
+    private void writeAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            write(text.charAt(i));
+        }
+    }
+
+    private void write(int b) {
+        if (position == buffer.length) {
+            drain();
+        }
+        buffer[position++] = (byte) b;
+    }
+
+    private void drain() {
+        try {
+            out.write(buffer, 0, position);
+            position = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void flush() {
+        drain();
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.github.nikolayill.export;
+
+import com.github.nikolayill.index.AccountIndex;
+import com.github.nikolayill.parser.stream.DocumentHandler;
+import com.github.nikolayill.parser.stream.KeyTable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Turns parser events into one row per document section. Expects the parser to run with
+ * {@link ColumnMapping#applyTo} options, so section items arrive with their projection index.
+ * Only the current row and the account sections are held in memory. When a statement has several
+ * account sections, as consolidated statements do, account columns carry the values of the section
+ * whose РасчСчет is the row's ПлательщикСчет, or else its ПолучательСчет, and stay empty when
+ * neither names an account of the statement.
+ */
+public abstract class RowExporter implements DocumentHandler {
+    protected final ColumnMapping mapping;
+    private final String[] row;
+    private final Map<String, int[]> headingColumns;
+    private final Map<String, int[]> accountColumns;
+    private final int[] accountValueColumns;
+    private final int[][] sectionColumns;
+    private final int[] sectionValueColumns;
+    private final int[] sectionNameColumns;
+    private final int payerIndex;
+    private final int payeeIndex;
+    // Account column values of each account section, indexed like the row
+    private final List<String[]> accounts = new ArrayList<>();
+    private final Map<String, String[]> accountsByNumber = new HashMap<>();
+    private String[] account;
+    private String payer;
+    private String payee;
+    private long rowCount;
+
+    protected RowExporter(ColumnMapping mapping) {
+        this.mapping = mapping;
+        List<ColumnMapping.Column> columns = mapping.getColumns();
+        row = new String[columns.size()];
+        headingColumns = columnsByKey(columns, ColumnMapping.Source.HEADING);
+        accountColumns = columnsByKey(columns, ColumnMapping.Source.ACCOUNT);
+        accountValueColumns = columnIndexes(columns, column -> column.getSource() == ColumnMapping.Source.ACCOUNT);
+
+        KeyTable sectionKeys = KeyTable.of(mapping.projection(ColumnMapping.Source.SECTION));
+        sectionColumns = new int[sectionKeys.size()][];
+        Map<String, int[]> byKey = columnsByKey(columns, ColumnMapping.Source.SECTION);
+        for (int i = 0; i < sectionKeys.size(); i++) {
+            sectionColumns[i] = byKey.get(sectionKeys.key(i));
+        }
+        sectionValueColumns = columnIndexes(columns, column -> column.getSource() == ColumnMapping.Source.SECTION);
+        sectionNameColumns = columnIndexes(columns, column -> column.getSource() == ColumnMapping.Source.SECTION_NAME);
+        payerIndex = sectionKeys.indexOf(AccountIndex.PAYER_ACCOUNT_KEY);
+        payeeIndex = sectionKeys.indexOf(AccountIndex.PAYEE_ACCOUNT_KEY);
+    }
+
+    protected abstract void writeHeader(List<ColumnMapping.Column> columns) throws IOException;
+
+    protected abstract void writeRow(String[] row) throws IOException;
+
+    protected abstract void finish(long rowCount) throws IOException;
+
+    @Override
+    public void startDocument() {
+        accounts.clear();
+        accountsByNumber.clear();
+        try {
+            writeHeader(mapping.getColumns());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void headingItem(String key, String value) {
+        set(headingColumns.get(key), value);
+    }
+
+    @Override
+    public void startAccount() {
+        account = new String[row.length];
+        accounts.add(account);
+    }
+
+    @Override
+    public void accountItem(String key, String value) {
+        int[] columns = accountColumns.get(key);
+        if (columns != null) {
+            for (int column : columns) {
+                account[column] = value;
+            }
+        }
+        if (AccountIndex.ACCOUNT_KEY.equals(key)) {
+            accountsByNumber.putIfAbsent(value, account);
+        }
+    }
+
+    @Override
+    public void startSection(String name) {
+        set(sectionValueColumns, null);
+        set(sectionNameColumns, name);
+        payer = null;
+        payee = null;
+    }
+
+    @Override
+    public void sectionItem(int index, String key, String value) {
+        set(sectionColumns[index], value);
+        if (index == payerIndex && payer == null) {
+            payer = value;
+        } else if (index == payeeIndex && payee == null) {
+            payee = value;
+        }
+    }
+
+    @Override
+    public void endSection() {
+        String[] values = rowAccount();
+        for (int column : accountValueColumns) {
+            row[column] = values == null ? null : values[column];
+        }
+        try {
+            writeRow(row);
+            rowCount++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void endDocument() {
+        try {
+            finish(rowCount);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    // The only account section, or the one the row debits or credits
+    private String[] rowAccount() {
+        if (accounts.size() == 1) {
+            return accounts.get(0);
+        }
+        String[] values = payer == null ? null : accountsByNumber.get(payer);
+        return values != null || payee == null ? values : accountsByNumber.get(payee);
+    }
+
+    private void set(int[] columns, String value) {
+        if (columns != null) {
+            for (int column : columns) {
+                row[column] = value;
+            }
+        }
+    }
+
+    private static Map<String, int[]> columnsByKey(List<ColumnMapping.Column> columns, ColumnMapping.Source source) {
+        Map<String, int[]> byKey = new HashMap<>();
+        for (ColumnMapping.Column column : columns) {
+            if (column.getSource() == source) {
+                byKey.computeIfAbsent(column.getKey(),
+                        key -> columnIndexes(columns, c -> c.getSource() == source && c.getKey().equals(key)));
+            }
+        }
+        return byKey;
+    }
+
+    private static int[] columnIndexes(List<ColumnMapping.Column> columns, Predicate<ColumnMapping.Column> filter) {
+        int[] indexes = new int[columns.size()];
+        int count = 0;
+        for (int i = 0; i < columns.size(); i++) {
+            if (filter.test(columns.get(i))) {
+                indexes[count++] = i;
+            }
+        }
+        return Arrays.copyOf(indexes, count);
+    }
+}
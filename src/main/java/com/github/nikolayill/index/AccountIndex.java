@@ -0,0 +1,154 @@
+package com.github.nikolayill.index;
+
+import com.github.nikolayill.dto.AccountSection;
+import com.github.nikolayill.dto.Document;
+import com.github.nikolayill.dto.DocumentSection;
+import com.github.nikolayill.dto.Item;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of a statement by account number. Every СекцияРасчСчет is keyed by its РасчСчет and
+ * linked to the document sections that debit it (ПлательщикСчет) or credit it (ПолучательСчет).
+ * A transfer between two accounts of the statement appears under both. Sections naming only
+ * foreign accounts are not indexed.
+ * <p>
+ * The index is built once and not modified afterwards, so its entries can be processed in
+ * parallel, e.g. {@code index.getEntries().parallelStream()}.
+ */
+public class AccountIndex {
+    public static final String ACCOUNT_KEY = "РасчСчет";
+    public static final String PAYER_ACCOUNT_KEY = "ПлательщикСчет";
+    public static final String PAYEE_ACCOUNT_KEY = "ПолучательСчет";
+
+    private final Map<String, Entry> entries;
+
+    private AccountIndex(Map<String, Entry> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Build the index of a parsed document
+     * @param document Document with one or more account sections
+     * @return Index in account section order
+     */
+    public static AccountIndex of(Document document) {
+        Map<String, Builder> builders = new LinkedHashMap<>();
+        for (AccountSection account : document.getAccounts()) {
+            String number = valueOf(account.getItems(), ACCOUNT_KEY);
+            if (number != null) {
+                builders.computeIfAbsent(number, Builder::new).accounts.add(account);
+            }
+        }
+        for (DocumentSection section : document.getSections()) {
+            String payer = null;
+            String payee = null;
+            for (Item item : section.getItems()) {
+                if (payer == null && PAYER_ACCOUNT_KEY.equals(item.getKey())) {
+                    payer = item.getValue();
+                } else if (payee == null && PAYEE_ACCOUNT_KEY.equals(item.getKey())) {
+                    payee = item.getValue();
+                }
+            }
+            Builder debited = payer == null ? null : builders.get(payer);
+            if (debited != null) {
+                debited.debits.add(section);
+            }
+            Builder credited = payee == null ? null : builders.get(payee);
+            if (credited != null) {
+                credited.credits.add(section);
+            }
+        }
+
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        builders.forEach((number, builder) -> entries.put(number, builder.build()));
+        return new AccountIndex(Collections.unmodifiableMap(entries));
+    }
+
+    public Set<String> getAccountNumbers() {
+        return entries.keySet();
+    }
+
+    public Collection<Entry> getEntries() {
+        return entries.values();
+    }
+
+    /**
+     * @return Entry of the account, or null when the statement has no such account section
+     */
+    public Entry get(String accountNumber) {
+        return entries.get(accountNumber);
+    }
+
+    /**
+     * Account section with the document sections that move money on it
+     */
+    public static class Entry {
+        private final String accountNumber;
+        private final List<AccountSection> accounts;
+        private final List<DocumentSection> debits;
+        private final List<DocumentSection> credits;
+
+        Entry(String accountNumber, List<AccountSection> accounts, List<DocumentSection> debits,
+              List<DocumentSection> credits) {
+            this.accountNumber = accountNumber;
+            this.accounts = accounts;
+            this.debits = debits;
+            this.credits = credits;
+        }
+
+        public String getAccountNumber() {
+            return accountNumber;
+        }
+
+        /**
+         * @return First account section with this РасчСчет
+         */
+        public AccountSection getAccount() {
+            return accounts.get(0);
+        }
+
+        // Normally one, a statement may repeat an account for several periods
+        public List<AccountSection> getAccounts() {
+            return accounts;
+        }
+
+        public List<DocumentSection> getDebits() {
+            return debits;
+        }
+
+        public List<DocumentSection> getCredits() {
+            return credits;
+        }
+    }
+
+    private static class Builder {
+        final String accountNumber;
+        final List<AccountSection> accounts = new ArrayList<>(1);
+        final List<DocumentSection> debits = new ArrayList<>();
+        final List<DocumentSection> credits = new ArrayList<>();
+
+        Builder(String accountNumber) {
+            this.accountNumber = accountNumber;
+        }
+
+        Entry build() {
+            return new Entry(accountNumber, List.copyOf(accounts), List.copyOf(debits), List.copyOf(credits));
+        }
+    }
+
+    private static String valueOf(List<Item> items, String key) {
+        for (Item item : items) {
+            if (key.equals(item.getKey())) {
+                return item.getValue();
+            }
+        }
+        return null;
+    }
+}
@@ -2,29 +2,70 @@
 package com.github.nikolayill.parser;
 
 import com.github.nikolayill.dto.Document;
+import com.github.nikolayill.export.JsonExporter;
+import com.github.nikolayill.parser.stream.ParseOptions;
+import com.github.nikolayill.server.ParseServer;
+import org.parboiled.parserunners.ProfilingParseRunner;
+
+import java.nio.file.Path;
 import java.util.*;
 
 public class DocumentParser {
+    private static final String PROFILE_GRAMMAR_OPTION = "--profile-grammar";
+    private static final String RESILIENT_OPTION = "--resilient";
+    private static final String JSON_OPTION = "--json";
+    private static final String NDJSON_OPTION = "--ndjson";
+    private static final String SERVE_OPTION = "--serve";
+
     public static void main(String[] args) {
-        if (args.length == 0) {
-            System.out.println("Usage: java DocumentParser <input-file>");
+        if (args.length == 0 || (args[0].startsWith("--") && !SERVE_OPTION.equals(args[0]) && args.length < 2)) {
+            printUsage();
             System.exit(1);
         }
         
         try {
+            if (SERVE_OPTION.equals(args[0])) {
+                ParseServer server = new ParseServer()
+                        .withPort(args.length > 1 ? Integer.parseInt(args[1]) : ParseServer.DEFAULT_PORT)
+                        .start();
+                System.out.println("Parse server listening on 127.0.0.1:" + server.getPort());
+                Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+                return;
+            }
+
             ParboiledDocumentParserService parser = new ParboiledDocumentParserService();
-            Document document = parser.parseFromFile(args[0]);
-            
-            System.out.println("Parsing completed successfully.");
-            System.out.println("Document structure:");
-            System.out.println("- Heading items: " + document.getHeading().size());
-            System.out.println("- Account items: " + document.getAccount().getItems().size());
-            System.out.println("- Document sections: " + document.getSections().size());
+
+            if (PROFILE_GRAMMAR_OPTION.equals(args[0])) {
+                ProfilingParseRunner.Report report = parser.profileGrammarFromFile(Path.of(args[1]));
+                System.out.println(report.print());
+                return;
+            }
+
+            if (JSON_OPTION.equals(args[0]) || NDJSON_OPTION.equals(args[0])) {
+                JsonExporter.Mode mode = JSON_OPTION.equals(args[0]) ? JsonExporter.Mode.DOCUMENT : JsonExporter.Mode.NDJSON;
+                parser.exportJson(Path.of(args[1]), System.out, mode, new ParseOptions());
+                return;
+            }
+
+            if (RESILIENT_OPTION.equals(args[0])) {
+                ResilientParseResult result = parser.parseResilientFromFile(Path.of(args[1]));
+                printSummary(result.getDocument(), result.getQuarantinedSections());
+                return;
+            }
             
-            if (!document.getSections().isEmpty()) {
-                System.out.println("Sections:");
-                document.getSections().forEach(section -> 
-                    System.out.println("  - " + section.getName() + " (" + section.getItems().size() + " items)"));
+            // Batch mode: every argument is a statement file, a .gz file or a .zip archive of them
+            for (String fileName : args) {
+                if (args.length > 1) {
+                    System.out.println("== " + fileName);
+                }
+                if (fileName.toLowerCase(Locale.ROOT).endsWith(".zip")) {
+                    for (Map.Entry<String, Document> entry : parser.parseZip(Path.of(fileName)).entrySet()) {
+                        System.out.println("-- " + entry.getKey());
+                        printSummary(entry.getValue(), Collections.emptyList());
+                    }
+                } else {
+                    printSummary(parser.parseFromFile(fileName), Collections.emptyList());
+                }
             }
             
         } catch (Exception e) {
@@ -33,4 +74,34 @@ public class DocumentParser {
             System.exit(1);
         }
     }
+
+    private static void printSummary(Document document, List<QuarantinedSection> quarantined) {
+        System.out.println("Parsing completed successfully.");
+        System.out.println("Document structure:");
+        System.out.println("- Heading items: " + document.getHeading().size());
+        System.out.println("- Account items: " + document.getAccounts().stream().mapToInt(account -> account.getItems().size()).sum());
+        if (document.getAccounts().size() > 1) {
+            System.out.println("- Account sections: " + document.getAccounts().size());
+        }
+        System.out.println("- Document sections: " + document.getSections().size());
+        
+        if (!document.getSections().isEmpty()) {
+            System.out.println("Sections:");
+            document.getSections().forEach(section -> 
+                System.out.println("  - " + section.getName() + " (" + section.getItems().size() + " items)"));
+        }
+        
+        if (!quarantined.isEmpty()) {
+            System.out.println("Quarantined: " + quarantined.size());
+            quarantined.forEach(section -> System.out.println("  - " + section));
+        }
+    }
+
+    private static void printUsage() {
+        System.out.println("Usage: java DocumentParser <input-file>...  (plain, .gz or .zip)");
+        System.out.println("       java DocumentParser " + PROFILE_GRAMMAR_OPTION + " <input-file>");
+        System.out.println("       java DocumentParser " + RESILIENT_OPTION + " <input-file>");
+        System.out.println("       java DocumentParser " + JSON_OPTION + "|" + NDJSON_OPTION + " <input-file>");
+        System.out.println("       java DocumentParser " + SERVE_OPTION + " [port]  (then java ParseClient <input-file>...)");
+    }
 }
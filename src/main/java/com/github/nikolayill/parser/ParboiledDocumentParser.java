@@ -1,6 +1,7 @@
 package com.github.nikolayill.parser;
 
 import com.github.nikolayill.dto.*;
+import com.github.nikolayill.validation.ValidationSession;
 import org.parboiled.BaseParser;
 import org.parboiled.Rule;
 import org.parboiled.annotations.BuildParseTree;
@@ -12,6 +13,13 @@ import java.util.List;
 @BuildParseTree
 public class ParboiledDocumentParser extends BaseParser<Object> {
 
+    // Validation applied while document sections are built, null when not validating
+    private ValidationSession validation;
+
+    public void setValidationSession(ValidationSession validation) {
+        this.validation = validation;
+    }
+
     // Helper methods for Parboiled ACTION blocks
     public boolean setDocumentVar(Var<Document> document) {
         document.set(new Document());
@@ -43,6 +51,33 @@ public class ParboiledDocumentParser extends BaseParser<Object> {
         return true;
     }
 
+    public boolean addSectionItem(List<Item> list, Item item) {
+        list.add(item);
+        if (validation != null) {
+            validation.item(item.getKey(), item.getValue(), currentIndex());
+        }
+        return true;
+    }
+
+    public boolean startSectionValidation(String name) {
+        if (validation != null) {
+            validation.startSection(name, currentIndex());
+        }
+        return true;
+    }
+
+    public boolean endSectionValidation() {
+        if (validation != null) {
+            validation.endSection();
+        }
+        return true;
+    }
+
+    public boolean addAccountToList(List<AccountSection> list, AccountSection account) {
+        list.add(account);
+        return true;
+    }
+
     public boolean addSectionToList(List<DocumentSection> list, DocumentSection section) {
         list.add(section);
         return true;
@@ -58,6 +93,11 @@ public class ParboiledDocumentParser extends BaseParser<Object> {
         return true;
     }
 
+    public boolean setAccounts(Document doc, List<AccountSection> accounts) {
+        doc.setAccounts(accounts);
+        return true;
+    }
+
     public boolean setSections(Document doc, List<DocumentSection> sections) {
         doc.setSections(sections);
         return true;
@@ -102,7 +142,7 @@ public class ParboiledDocumentParser extends BaseParser<Object> {
     public Rule Document() {
         Var<Document> document = new Var<>();
         Var<List<Item>> heading = new Var<>(new ArrayList<>());
-        Var<AccountSection> account = new Var<>();
+        Var<List<AccountSection>> accounts = new Var<>(new ArrayList<>());
         Var<List<DocumentSection>> sections = new Var<>(new ArrayList<>());
 
         return Sequence(
@@ -119,11 +159,17 @@ public class ParboiledDocumentParser extends BaseParser<Object> {
                                 OptionalWhitespace()
                         )
                 ),
-                ACTION(setHeading(document.get(), heading.get())),            // Parse account section
-                AccountSection(),
-                ACTION(setAccountSectionFromStack(account, (AccountSection) pop())),
-                ACTION(setAccount(document.get(), account.get())),
-                Whitespace(),
+                ACTION(setHeading(document.get(), heading.get())),
+
+                // Parse account sections
+                OneOrMore(
+                        Sequence(
+                                AccountSection(),
+                                ACTION(addAccountToList(accounts.get(), (AccountSection) pop())),
+                                Whitespace()
+                        )
+                ),
+                ACTION(setAccounts(document.get(), accounts.get())),
 
                 // Parse document sections
                 ZeroOrMore(
@@ -142,6 +188,50 @@ public class ParboiledDocumentParser extends BaseParser<Object> {
         );
     }
 
+    // Heading and account sections only, used when the document is parsed section by section
+    public Rule Prologue() {
+        Var<Document> document = new Var<>();
+        Var<List<Item>> heading = new Var<>(new ArrayList<>());
+        Var<List<AccountSection>> accounts = new Var<>(new ArrayList<>());
+
+        return Sequence(
+                ACTION(setDocumentVar(document)),
+                IgnoreCase("1CClientBankExchange"),
+                Whitespace(),
+
+                ZeroOrMore(
+                        Sequence(
+                                TestNot(IgnoreCase("СекцияРасчСчет")),
+                                Item(),
+                                ACTION(addItemToList(heading.get(), (Item) pop())),
+                                OptionalWhitespace()
+                        )
+                ),
+                ACTION(setHeading(document.get(), heading.get())),
+                OneOrMore(
+                        Sequence(
+                                AccountSection(),
+                                ACTION(addAccountToList(accounts.get(), (AccountSection) pop())),
+                                OptionalWhitespace()
+                        )
+                ),
+                ACTION(setAccounts(document.get(), accounts.get())),
+
+                EOI,
+                ACTION(pushObj(document.get()))
+        );
+    }
+
+    // A single document section surrounded by nothing but whitespace
+    public Rule StandaloneDocumentSection() {
+        return Sequence(
+                OptionalWhitespace(),
+                DocumentSection(),
+                OptionalWhitespace(),
+                EOI
+        );
+    }
+
     public Rule AccountSection() {
         Var<AccountSection> accountSection = new Var<>();
         Var<List<Item>> items = new Var<>(new ArrayList<>());
@@ -177,17 +267,19 @@ public class ParboiledDocumentParser extends BaseParser<Object> {
                 SectionName(),
                 ACTION(setStringVar(sectionName, (String) pop())),
                 ACTION(setSectionName(docSection.get(), sectionName.get())),
+                ACTION(startSectionValidation(sectionName.get())),
                 Whitespace(),
 
                 ZeroOrMore(
                         Sequence(
                                 TestNot(IgnoreCase("КонецДокумента")),
                                 Item(),
-                                ACTION(addItemToList(items.get(), (Item) pop())),
+                                ACTION(addSectionItem(items.get(), (Item) pop())),
                                 OptionalWhitespace()
                         )
                 ),
                 ACTION(setSectionItems(docSection.get(), items.get())),
+                ACTION(endSectionValidation()),
 
                 IgnoreCase("КонецДокумента"),
                 ACTION(pushObj(docSection.get()))
@@ -1,22 +1,92 @@
 package com.github.nikolayill.parser;
 
 import com.github.nikolayill.dto.Document;
+import com.github.nikolayill.dto.DocumentSection;
+import com.github.nikolayill.dto.immutable.ImmutableDocument;
+import com.github.nikolayill.dto.standard.StandardSection;
+import com.github.nikolayill.export.ColumnMapping;
+import com.github.nikolayill.export.ColumnarExporter;
+import com.github.nikolayill.export.CsvExporter;
+import com.github.nikolayill.export.JsonExporter;
+import com.github.nikolayill.parser.stream.DocumentCollector;
+import com.github.nikolayill.parser.stream.ImmutableDocumentCollector;
+import com.github.nikolayill.parser.stream.LimitExceededException;
+import com.github.nikolayill.parser.stream.ParseContext;
+import com.github.nikolayill.parser.stream.ParseOptions;
+import com.github.nikolayill.parser.stream.SectionPublisher;
+import com.github.nikolayill.parser.stream.StandardSectionCollector;
+import com.github.nikolayill.parser.stream.StreamingDocumentParser;
+import com.github.nikolayill.validation.ValidationProfile;
+import com.github.nikolayill.validation.ValidationResult;
+import com.github.nikolayill.validation.ValidationSession;
 import org.parboiled.Parboiled;
+import org.parboiled.buffers.DefaultInputBuffer;
+import org.parboiled.errors.ErrorUtils;
+import org.parboiled.parserunners.ProfilingParseRunner;
 import org.parboiled.parserunners.ReportingParseRunner;
 import org.parboiled.support.ParsingResult;
 
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.Channels;
+import java.nio.channels.CompletionHandler;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 public class ParboiledDocumentParserService {
     
     private final ParboiledDocumentParser parser;
     private final ReportingParseRunner<Object> runner;
+    private final ReportingParseRunner<Object> prologueRunner;
+    private final ReportingParseRunner<Object> sectionRunner;
+    
+    private static final String ACCOUNT_END = "КонецРасчСчет";
+    private static final String SECTION_START = "СекцияДокумент=";
+    private static final String SECTION_END = "КонецДокумента";
+    private static final String FILE_END = "КонецФайла";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int PEEK_BUFFER_SIZE = 1024;
+    private static final int FILES_IN_FLIGHT = 16;
     
     public ParboiledDocumentParserService() {
         this.parser = Parboiled.createParser(ParboiledDocumentParser.class);
         this.runner = new ReportingParseRunner<>(parser.Document());
+        this.prologueRunner = new ReportingParseRunner<>(parser.Prologue());
+        this.sectionRunner = new ReportingParseRunner<>(parser.StandaloneDocumentSection());
     }
     
     /**
@@ -43,7 +113,7 @@ public class ParboiledDocumentParserService {
      * @throws IOException if file reading fails
      */
     public Document parseFromFile(Path filePath) throws ParseException, IOException {
-        String content = Files.readString(filePath);
+        String content = readFile(filePath);
         return parseFromString(content);
     }
     
@@ -58,6 +128,817 @@ public class ParboiledDocumentParserService {
         return parseFromFile(Path.of(fileName));
     }
     
+    /**
+     * Parse document from string content with the streaming parser
+     * @param content The document content to parse
+     * @param options Section filter and other streaming options
+     * @return Parsed Document object
+     * @throws ParseException if parsing fails
+     */
+    public Document parseFromString(String content, ParseOptions options) throws ParseException {
+        DocumentCollector collector = new DocumentCollector();
+        new StreamingDocumentParser(options).parse(content, collector);
+        return collector.getDocument();
+    }
+    
+    /**
+     * Parse document from file with the streaming parser, reading it in bounded chunks
+     * @param filePath Path to the file to parse
+     * @param options Section filter and other streaming options
+     * @return Parsed Document object
+     * @throws ParseException if parsing fails
+     * @throws IOException if file reading fails
+     */
+    public Document parseFromFile(Path filePath, ParseOptions options) throws ParseException, IOException {
+        try (Reader reader = openReader(filePath, options)) {
+            return parse(reader, options);
+        }
+    }
+    
+    /**
+     * Parse document from file with the streaming parser, reusing the buffers and interned keys of
+     * a context. Meant for batches of many files, with one context per thread.
+     * @param filePath Path to the file to parse, .gz files are decompressed
+     * @param options Section filter and other streaming options
+     * @param context Per-thread parse state
+     * @return Parsed Document object
+     * @throws ParseException if parsing fails
+     * @throws IOException if file reading fails
+     */
+    public Document parseFromFile(Path filePath, ParseOptions options, ParseContext context) throws ParseException, IOException {
+        DocumentCollector collector = new DocumentCollector();
+        if (isGzip(filePath.toString())) {
+            try (Reader reader = openReader(filePath, options)) {
+                new StreamingDocumentParser(options).parse(reader, collector, context);
+            }
+            return collector.getDocument();
+        }
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long maxFileSize = options.getLimits().getMaxFileSize();
+            if (size > maxFileSize) {
+                throw new LimitExceededException("Failed to parse document: " + filePath + " is larger than "
+                        + maxFileSize + " bytes");
+            }
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IOException("File too large to parse at once: " + filePath);
+            }
+            byte[] content = context.byteBuffer((int) size);
+            ByteBuffer buffer = ByteBuffer.wrap(content, 0, (int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // read the whole file
+            }
+            new StreamingDocumentParser(options).parse(content, 0, buffer.position(), StandardCharsets.UTF_8,
+                    collector, context);
+        }
+        return collector.getDocument();
+    }
+    
+    /**
+     * Read only the heading and the account sections of a file, e.g. to route it by
+     * ДатаНачала, Отправитель or РасчСчет. Reading stops at the first line after the last
+     * КонецРасчСчет and is done in small blocks, so the rest of the file is not touched.
+     * @param filePath Path to the file, .gz files are decompressed
+     * @return Document with the heading and accounts and no sections
+     * @throws ParseException if the heading or an account section is not valid
+     * @throws IOException if file reading fails
+     */
+    public Document peekHeader(Path filePath) throws ParseException, IOException {
+        DocumentCollector collector = new DocumentCollector();
+        try (Reader reader = isGzip(filePath.toString()) ? openReader(filePath)
+                : Channels.newReader(FileChannel.open(filePath, StandardOpenOption.READ),
+                        StandardCharsets.UTF_8.newDecoder(), PEEK_BUFFER_SIZE)) {
+            new StreamingDocumentParser().parseHeader(reader, collector);
+        }
+        return collector.getDocument();
+    }
+    
+    /**
+     * Parse document from a character stream with the streaming parser. The input is read
+     * in bounded chunks and parsed as it arrives; it is not closed.
+     * @param reader Source of the document
+     * @param options Section filter and other streaming options
+     * @return Parsed Document object
+     * @throws ParseException if parsing fails
+     * @throws IOException if reading fails
+     */
+    public Document parse(Reader reader, ParseOptions options) throws ParseException, IOException {
+        DocumentCollector collector = new DocumentCollector();
+        new StreamingDocumentParser(options).parse(reader, collector);
+        return collector.getDocument();
+    }
+    
+    /**
+     * Parse document from a character stream, reusing the buffers and interned keys of a context
+     * @param reader Source of the document, not closed
+     * @param options Section filter and other streaming options
+     * @param context Per-thread parse state
+     * @return Parsed Document object
+     * @throws ParseException if parsing fails
+     * @throws IOException if reading fails
+     */
+    public Document parse(Reader reader, ParseOptions options, ParseContext context) throws ParseException, IOException {
+        DocumentCollector collector = new DocumentCollector();
+        new StreamingDocumentParser(options).parse(reader, collector, context);
+        return collector.getDocument();
+    }
+    
+    /**
+     * Parse document from its encoded bytes with the streaming parser. Lines are split on the
+     * bytes before decoding, which is faster than going through a Reader when the whole
+     * content is already in memory.
+     * @param content The document content
+     * @param charset UTF-8 or a single-byte encoding such as windows-1251
+     * @param options Section filter and other streaming options
+     * @return Parsed Document object
+     * @throws ParseException if parsing fails
+     * @throws IOException if the content is not valid in the charset
+     */
+    public Document parse(byte[] content, Charset charset, ParseOptions options) throws ParseException, IOException {
+        DocumentCollector collector = new DocumentCollector();
+        new StreamingDocumentParser(options).parse(content, 0, content.length, charset, collector);
+        return collector.getDocument();
+    }
+    
+    /**
+     * Parse document from a character stream straight into the immutable model
+     * @param reader Source of the document, not closed
+     * @param options Section filter and other streaming options
+     * @return Parsed document, safe to share between threads
+     * @throws ParseException if parsing fails
+     * @throws IOException if reading fails
+     */
+    public ImmutableDocument parseImmutable(Reader reader, ParseOptions options) throws ParseException, IOException {
+        ImmutableDocumentCollector collector = new ImmutableDocumentCollector();
+        new StreamingDocumentParser(options).parse(reader, collector);
+        return collector.getDocument();
+    }
+    
+    /**
+     * Parse document from file straight into the immutable model
+     * @param filePath Path to the file to parse, .gz files are decompressed
+     * @param options Section filter and other streaming options
+     * @return Parsed document, safe to share between threads
+     * @throws ParseException if parsing fails
+     * @throws IOException if file reading fails
+     */
+    public ImmutableDocument parseImmutableFromFile(Path filePath, ParseOptions options) throws ParseException, IOException {
+        try (Reader reader = openReader(filePath, options)) {
+            return parseImmutable(reader, options);
+        }
+    }
+    
+    /**
+     * Parse the document sections of a file into the {@link StandardSection} model
+     * @param filePath Path to the file to parse, .gz files are decompressed
+     * @param options Section filter and other streaming options
+     * @return Document sections in file order
+     * @throws ParseException if parsing fails
+     * @throws IOException if file reading fails
+     */
+    public List<StandardSection> parseStandardSections(Path filePath, ParseOptions options) throws ParseException, IOException {
+        StandardSectionCollector collector = new StandardSectionCollector();
+        try (Reader reader = openReader(filePath, options)) {
+            new StreamingDocumentParser(options).parse(reader, collector);
+        }
+        return collector.getSections();
+    }
+    
+    /**
+     * Parse document from file without blocking the caller. The file is read with an
+     * {@link AsynchronousFileChannel}, so no thread waits on the disk, and then parsed with
+     * the streaming parser on the executor.
+     * @param filePath Path to the file to parse, .gz files are decompressed
+     * @param options Section filter and other streaming options
+     * @param executor Runs the parsing
+     * @return Parsed Document object; completes exceptionally with ParseException or IOException
+     */
+    public CompletableFuture<Document> parseAsync(Path filePath, ParseOptions options, Executor executor) {
+        return readAsync(filePath, options.getLimits().getMaxFileSize()).thenApplyAsync(content -> {
+            try {
+                if (!isGzip(filePath.toString())) {
+                    // plain files are split into lines before decoding
+                    DocumentCollector collector = new DocumentCollector();
+                    new StreamingDocumentParser(options).parse(content.array(), 0, content.limit(),
+                            StandardCharsets.UTF_8, collector);
+                    return collector.getDocument();
+                }
+                InputStream in = new GZIPInputStream(new ByteArrayInputStream(content.array(), 0, content.limit()), BUFFER_SIZE);
+                try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8.newDecoder())) {
+                    return parse(reader, options);
+                }
+            } catch (ParseException | IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+    
+    /**
+     * Parse document from file without blocking the caller, see
+     * {@link #parseAsync(Path, ParseOptions, Executor)}. Parsing runs on the common fork-join pool.
+     */
+    public CompletableFuture<Document> parseAsync(Path filePath) {
+        return parseAsync(filePath, new ParseOptions(), ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Parse many files concurrently; reads of some files overlap with parsing of others. At most
+     * {@value #FILES_IN_FLIGHT} files are open and buffered at a time.
+     * @param filePaths Paths of the files to parse
+     * @param options Section filter and other streaming options
+     * @param executor Runs the parsing
+     * @return Parsed documents in the order of the paths; fails if any file fails
+     */
+    public CompletableFuture<List<Document>> parseAllAsync(Collection<Path> filePaths, ParseOptions options, Executor executor) {
+        return parseAllAsync(filePaths, options, executor, FILES_IN_FLIGHT);
+    }
+    
+    /**
+     * Parse many files concurrently, starting the next file whenever one is parsed
+     * @param filePaths Paths of the files to parse
+     * @param options Section filter and other streaming options
+     * @param executor Runs the parsing
+     * @param maxInFlight Number of files read or parsed at once, each holding its content in a buffer
+     * @return Parsed documents in the order of the paths; fails with the first failure, no new
+     * file is started after it
+     */
+    public CompletableFuture<List<Document>> parseAllAsync(Collection<Path> filePaths, ParseOptions options,
+                                                           Executor executor, int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+        }
+        List<Path> paths = List.copyOf(filePaths);
+        Document[] documents = new Document[paths.size()];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger remaining = new AtomicInteger(paths.size());
+        CompletableFuture<List<Document>> result = new CompletableFuture<>();
+        if (paths.isEmpty()) {
+            result.complete(new ArrayList<>());
+            return result;
+        }
+        Runnable startNext = new Runnable() {
+            @Override
+            public void run() {
+                int i = next.getAndIncrement();
+                if (i >= paths.size() || result.isDone()) {
+                    return;
+                }
+                parseAsync(paths.get(i), options, executor).whenComplete((document, failure) -> {
+                    if (failure != null) {
+                        result.completeExceptionally(failure instanceof CompletionException && failure.getCause() != null
+                                ? failure.getCause() : failure);
+                    } else {
+                        documents[i] = document;
+                        if (remaining.decrementAndGet() == 0) {
+                            result.complete(new ArrayList<>(Arrays.asList(documents)));
+                        } else {
+                            run();
+                        }
+                    }
+                });
+            }
+        };
+        for (int i = 0; i < Math.min(maxInFlight, paths.size()); i++) {
+            startNext.run();
+        }
+        return result;
+    }
+    
+    /**
+     * Parse many files concurrently on the common fork-join pool, see
+     * {@link #parseAllAsync(Collection, ParseOptions, Executor)}
+     */
+    public CompletableFuture<List<Document>> parseAllAsync(Collection<Path> filePaths) {
+        return parseAllAsync(filePaths, new ParseOptions(), ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Publish the document sections of a file with backpressure: the file is opened on the
+     * first request and parsed only as far as subscribers request sections
+     * @param filePath Path to the file to parse, .gz files are decompressed
+     * @param options Section filter and other streaming options
+     * @param executor Runs parsing and delivers signals to subscribers
+     * @return Publisher parsing the file once per subscription
+     */
+    public Flow.Publisher<DocumentSection> publishSections(Path filePath, ParseOptions options, Executor executor) {
+        return new SectionPublisher(() -> openReader(filePath, options), options, executor);
+    }
+    
+    /**
+     * Publish the document sections of a file, see {@link #publishSections(Path, ParseOptions, Executor)}.
+     * Signals are delivered on the common fork-join pool.
+     */
+    public Flow.Publisher<DocumentSection> publishSections(Path filePath, ParseOptions options) {
+        return new SectionPublisher(() -> openReader(filePath, options), options);
+    }
+    
+    /**
+     * Parse document from a character stream, see {@link #parse(Reader, ParseOptions)}
+     */
+    public Document parse(Reader reader) throws ParseException, IOException {
+        return parse(reader, new ParseOptions());
+    }
+    
+    /**
+     * Parse document from a byte stream as it arrives, e.g. an upload or a pipe
+     * @param in Source of the document, not closed
+     * @param charset Encoding of the input, 1C exports are commonly windows-1251 or UTF-8
+     * @return Parsed Document object
+     * @throws ParseException if parsing fails
+     * @throws IOException if reading fails
+     */
+    public Document parse(InputStream in, Charset charset) throws ParseException, IOException {
+        return parse(new InputStreamReader(in, charset));
+    }
+    
+    /**
+     * Parse document from a byte channel as it arrives
+     * @param channel Source of the document, not closed
+     * @param charset Encoding of the input
+     * @return Parsed Document object
+     * @throws ParseException if parsing fails
+     * @throws IOException if reading fails
+     */
+    public Document parse(ReadableByteChannel channel, Charset charset) throws ParseException, IOException {
+        return parse(Channels.newReader(channel, charset.newDecoder(), -1));
+    }
+    
+    /**
+     * Parse UTF-8 document from a byte channel as it arrives
+     */
+    public Document parse(ReadableByteChannel channel) throws ParseException, IOException {
+        return parse(channel, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Parse every file entry of a zip archive with the streaming parser, see
+     * {@link #parseZip(Path, ParseOptions)}
+     */
+    public Map<String, Document> parseZip(Path zipPath) throws ParseException, IOException {
+        return parseZip(zipPath, new ParseOptions());
+    }
+    
+    /**
+     * Parse every file entry of a zip archive with the streaming parser. Entries are
+     * decompressed as they are read, never extracted to disk, and parsed in parallel;
+     * entries ending in .gz are decompressed once more.
+     * @param zipPath Path to the archive
+     * @param options Section filter and other streaming options
+     * @return Parsed documents by entry name, in archive order
+     * @throws ParseException if an entry fails to parse, the message names the entry
+     * @throws IOException if reading fails
+     */
+    public Map<String, Document> parseZip(Path zipPath, ParseOptions options) throws ParseException, IOException {
+        try (ZipFile zip = new ZipFile(zipPath.toFile())) {
+            List<ZipEntry> entries = new ArrayList<>();
+            zip.stream().filter(entry -> !entry.isDirectory()).forEach(entries::add);
+            if (entries.isEmpty()) {
+                return new LinkedHashMap<>();
+            }
+    
+            int threads = Math.min(entries.size(), Runtime.getRuntime().availableProcessors());
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<Document>> futures = new ArrayList<>(entries.size());
+                for (ZipEntry entry : entries) {
+                    futures.add(executor.submit(() -> parseZipEntry(zip, entry, options)));
+                }
+                Map<String, Document> documents = new LinkedHashMap<>();
+                for (int i = 0; i < entries.size(); i++) {
+                    documents.put(entries.get(i).getName(), await(futures.get(i)));
+                }
+                return documents;
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+    
+    private Document parseZipEntry(ZipFile zip, ZipEntry entry, ParseOptions options) throws ParseException, IOException {
+        InputStream in = zip.getInputStream(entry);
+        if (isGzip(entry.getName())) {
+            in = new GZIPInputStream(in, BUFFER_SIZE);
+        }
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8.newDecoder())) {
+            return parse(reader, options);
+        } catch (ParseException e) {
+            throw new ParseException(entry.getName() + ": " + e.getMessage(), e);
+        }
+    }
+    
+    private static Document await(Future<Document> future) throws ParseException, IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while parsing archive");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ParseException) {
+                throw (ParseException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+    
+    /**
+     * Export document sections of a file to CSV while it is parsed, one row per section.
+     * Memory use does not depend on the file size.
+     * @param filePath Path to the file to export
+     * @param csvPath Path of the CSV file to write, UTF-8 encoded
+     * @param mapping Key-to-column mapping
+     * @return Number of rows written
+     * @throws ParseException if parsing fails
+     * @throws IOException if reading or writing fails
+     */
+    public long exportCsv(Path filePath, Path csvPath, ColumnMapping mapping) throws ParseException, IOException {
+        try (Reader reader = openReader(filePath);
+             FileChannel channel = FileChannel.open(csvPath, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             Writer out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8))) {
+            CsvExporter exporter = new CsvExporter(mapping, out);
+            new StreamingDocumentParser(mapping.applyTo(new ParseOptions())).parse(reader, exporter);
+            return exporter.getRowCount();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+    
+    /**
+     * Export document sections of a file into one file per column while it is parsed
+     * @param filePath Path to the file to export
+     * @param directory Directory for the column files, created if missing
+     * @param mapping Key-to-column mapping
+     * @return Number of rows written
+     * @throws ParseException if parsing fails
+     * @throws IOException if reading or writing fails
+     */
+    public long exportColumnar(Path filePath, Path directory, ColumnMapping mapping) throws ParseException, IOException {
+        try (Reader reader = openReader(filePath);
+             ColumnarExporter exporter = new ColumnarExporter(mapping, directory)) {
+            new StreamingDocumentParser(mapping.applyTo(new ParseOptions())).parse(reader, exporter);
+            return exporter.getRowCount();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+    
+    /**
+     * Write a file as JSON while it is parsed, without building a Document
+     * @param filePath Path to the file to export
+     * @param out Stream receiving UTF-8 JSON, flushed but not closed
+     * @param mode Single JSON document or one line per section
+     * @param options Section filter and projection applied while parsing
+     * @return Number of sections written
+     * @throws ParseException if parsing fails
+     * @throws IOException if reading or writing fails
+     */
+    public long exportJson(Path filePath, OutputStream out, JsonExporter.Mode mode, ParseOptions options)
+            throws ParseException, IOException {
+        JsonExporter exporter = new JsonExporter(out, mode);
+        try (Reader reader = openReader(filePath, options)) {
+            new StreamingDocumentParser(options).parse(reader, exporter);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return exporter.getSectionCount();
+    }
+    
+    /**
+     * Parse document from string content, validating each document section as it is built
+     * @param content The document content to parse
+     * @param profile Compiled validation rules
+     * @return Parsed Document object and the violations found, with line numbers
+     * @throws ParseException if parsing fails
+     */
+    public ValidationResult parseAndValidate(String content, ValidationProfile profile) throws ParseException {
+        DefaultInputBuffer buffer = new DefaultInputBuffer(content.toCharArray());
+        ValidationSession session = profile.newSession(index -> buffer.getPosition(index).line);
+        
+        ParsingResult<Object> result;
+        parser.setValidationSession(session);
+        try {
+            result = runner.run(buffer);
+        } finally {
+            parser.setValidationSession(null);
+        }
+        
+        if (!result.matched) {
+            throw new ParseException("Failed to parse document: " + result.parseErrors);
+        }
+        
+        return new ValidationResult((Document) result.resultValue, session.getViolations());
+    }
+    
+    /**
+     * Parse document from file, validating each document section as it is built
+     * @param filePath Path to the file to parse
+     * @param profile Compiled validation rules
+     * @return Parsed Document object and the violations found, with line numbers
+     * @throws ParseException if parsing fails
+     * @throws IOException if file reading fails
+     */
+    public ValidationResult parseAndValidateFromFile(Path filePath, ValidationProfile profile) throws ParseException, IOException {
+        return parseAndValidate(readFile(filePath), profile);
+    }
+    
+    /**
+     * Parse document from string content, skipping malformed document sections.
+     * The input is split at СекцияДокумент=, КонецДокумента and КонецФайла lines and every
+     * section is parsed on its own, so a broken section costs only its own re-parse.
+     * @param content The document content to parse
+     * @return Parsed sections and the quarantined parts of the input
+     * @throws ParseException if the heading or the account sections cannot be parsed
+     */
+    public ResilientParseResult parseResilient(String content) throws ParseException {
+        LineCursor cursor = new LineCursor(content);
+        while (cursor.advance() && !cursor.startsWith(ACCOUNT_END)) {
+            // heading and account section have nothing to resynchronize on
+        }
+        if (cursor.atEnd()) {
+            throw new ParseException("Failed to parse document: " + ACCOUNT_END + " not found");
+        }
+        
+        // consolidated statements have further account sections before the first document section
+        int prologueEnd = cursor.next;
+        long prologueEndByte = cursor.nextByte;
+        int prologueLine = cursor.line;
+        while (cursor.advance() && !cursor.startsWith(SECTION_START) && !cursor.startsWith(FILE_END)) {
+            if (cursor.startsWith(ACCOUNT_END)) {
+                prologueEnd = cursor.next;
+                prologueEndByte = cursor.nextByte;
+                prologueLine = cursor.line;
+            }
+        }
+        cursor.rewind(prologueEnd, prologueEndByte, prologueLine);
+        
+        ParsingResult<Object> prologue = prologueRunner.run(content.substring(0, prologueEnd));
+        if (!prologue.matched) {
+            throw new ParseException("Failed to parse document: " + prologue.parseErrors);
+        }
+        Document document = (Document) prologue.resultValue;
+        List<QuarantinedSection> quarantined = new ArrayList<>();
+        
+        int regionStart = -1;
+        long regionStartByte = 0;
+        int regionLine = 0;
+        boolean fileEndSeen = false;
+        while (cursor.advance()) {
+            boolean sectionEnd = cursor.startsWith(SECTION_END);
+            if (sectionEnd || cursor.startsWith(SECTION_START) || cursor.startsWith(FILE_END)) {
+                if (regionStart >= 0 && !sectionEnd) {
+                    parseRegion(content, regionStart, cursor.start, regionStartByte, cursor.startByte,
+                            regionLine, document, quarantined);
+                    regionStart = -1;
+                }
+                if (regionStart < 0) {
+                    regionStart = cursor.start;
+                    regionStartByte = cursor.startByte;
+                    regionLine = cursor.line;
+                }
+                if (sectionEnd) {
+                    parseRegion(content, regionStart, cursor.next, regionStartByte, cursor.nextByte,
+                            regionLine, document, quarantined);
+                    regionStart = -1;
+                } else if (cursor.startsWith(FILE_END)) {
+                    fileEndSeen = true;
+                    break;
+                }
+            } else if (regionStart < 0 && !cursor.isBlank()) {
+                regionStart = cursor.start;
+                regionStartByte = cursor.startByte;
+                regionLine = cursor.line;
+            }
+        }
+        
+        if (fileEndSeen) {
+            if (!content.substring(regionStart).strip().equalsIgnoreCase(FILE_END)) {
+                quarantined.add(new QuarantinedSection(regionStartByte, regionStartByte + utf8Length(content, regionStart, content.length()),
+                        regionLine, "Unexpected content after " + FILE_END));
+            }
+        } else {
+            if (regionStart >= 0) {
+                parseRegion(content, regionStart, content.length(), regionStartByte, cursor.nextByte,
+                        regionLine, document, quarantined);
+            }
+            quarantined.add(new QuarantinedSection(cursor.nextByte, cursor.nextByte, cursor.line, FILE_END + " not found"));
+        }
+        
+        return new ResilientParseResult(document, quarantined);
+    }
+    
+    /**
+     * Parse document from file, skipping malformed document sections
+     * @param filePath Path to the file to parse
+     * @return Parsed sections and the quarantined parts of the file
+     * @throws ParseException if the heading or the account sections cannot be parsed
+     * @throws IOException if file reading fails
+     */
+    public ResilientParseResult parseResilientFromFile(Path filePath) throws ParseException, IOException {
+        return parseResilient(readFile(filePath));
+    }
+    
+    private void parseRegion(String content, int start, int end, long startByte, long endByte, int line,
+                             Document document, List<QuarantinedSection> quarantined) {
+        ParsingResult<Object> result = sectionRunner.run(content.substring(start, end));
+        if (result.matched) {
+            document.getSections().add((DocumentSection) result.resultValue);
+        } else {
+            quarantined.add(new QuarantinedSection(startByte, endByte, line, ErrorUtils.printParseErrors(result)));
+        }
+    }
+    
+    private static long utf8Length(String content, int start, int end) {
+        long length = 0;
+        for (int i = start; i < end; i++) {
+            char c = content.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800 || Character.isSurrogate(c)) {
+                length += 2; // a surrogate pair takes four bytes, two per char
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+    
+    /**
+     * Walks the content line by line, tracking char and UTF-8 byte offsets
+     */
+    private static class LineCursor {
+        private final String content;
+        int start;
+        int next;
+        long startByte;
+        long nextByte;
+        int line;
+        
+        LineCursor(String content) {
+            this.content = content;
+        }
+        
+        boolean advance() {
+            if (next >= content.length()) {
+                start = next;
+                startByte = nextByte;
+                return false;
+            }
+            start = next;
+            startByte = nextByte;
+            int newline = content.indexOf('\n', start);
+            next = newline < 0 ? content.length() : newline + 1;
+            nextByte = startByte + utf8Length(content, start, next);
+            line++;
+            return true;
+        }
+        
+        boolean atEnd() {
+            return start >= content.length();
+        }
+        
+        // Continue reading after an earlier line
+        void rewind(int next, long nextByte, int line) {
+            this.next = next;
+            this.nextByte = nextByte;
+            this.line = line;
+        }
+        
+        boolean startsWith(String marker) {
+            int i = start;
+            while (i < next && (content.charAt(i) == ' ' || content.charAt(i) == '\t')) {
+                i++;
+            }
+            return content.regionMatches(true, i, marker, 0, marker.length());
+        }
+        
+        boolean isBlank() {
+            for (int i = start; i < next; i++) {
+                if (!Character.isWhitespace(content.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+    
+    /**
+     * Run the grammar over string content with Parboiled's profiling runner
+     * @param content The document content to profile
+     * @return Per-rule invocation, match/mismatch and rematch statistics
+     */
+    public ProfilingParseRunner.Report profileGrammar(String content) {
+        ProfilingParseRunner<Object> profilingRunner = new ProfilingParseRunner<>(parser.Document());
+        profilingRunner.run(content);
+        return profilingRunner.getReport();
+    }
+    
+    /**
+     * Run the grammar over file content with Parboiled's profiling runner
+     * @param filePath Path to the file to profile
+     * @return Per-rule invocation, match/mismatch and rematch statistics
+     * @throws IOException if file reading fails
+     */
+    public ProfilingParseRunner.Report profileGrammarFromFile(Path filePath) throws IOException {
+        return profileGrammar(readFile(filePath));
+    }
+    
+    // Files ending in .gz are decompressed while they are read
+    private static Reader openReader(Path filePath) throws IOException {
+        if (!isGzip(filePath.toString())) {
+            return Files.newBufferedReader(filePath);
+        }
+        InputStream in = new GZIPInputStream(Files.newInputStream(filePath), BUFFER_SIZE);
+        return new InputStreamReader(in, StandardCharsets.UTF_8.newDecoder());
+    }
+    
+    // Files over the size limit are rejected before any of them is read
+    private static Reader openReader(Path filePath, ParseOptions options) throws IOException, ParseException {
+        long maxFileSize = options.getLimits().getMaxFileSize();
+        if (maxFileSize != Long.MAX_VALUE && Files.size(filePath) > maxFileSize) {
+            throw new LimitExceededException("Failed to parse document: " + filePath + " is larger than "
+                    + maxFileSize + " bytes");
+        }
+        return openReader(filePath);
+    }
+    
+    private static String readFile(Path filePath) throws IOException {
+        if (!isGzip(filePath.toString())) {
+            return Files.readString(filePath);
+        }
+        try (Reader reader = openReader(filePath)) {
+            StringBuilder content = new StringBuilder();
+            char[] buffer = new char[BUFFER_SIZE];
+            int n;
+            while ((n = reader.read(buffer)) != -1) {
+                content.append(buffer, 0, n);
+            }
+            return content.toString();
+        }
+    }
+    
+    // Whole file content, read by completion handlers on the channel's default thread pool
+    private static CompletableFuture<ByteBuffer> readAsync(Path filePath, long maxFileSize) {
+        CompletableFuture<ByteBuffer> result = new CompletableFuture<>();
+        AsynchronousFileChannel channel;
+        ByteBuffer content;
+        try {
+            channel = AsynchronousFileChannel.open(filePath, StandardOpenOption.READ);
+            long size = channel.size();
+            if (size > maxFileSize) {
+                channel.close();
+                result.completeExceptionally(new LimitExceededException(
+                        "Failed to parse document: " + filePath + " is larger than " + maxFileSize + " bytes"));
+                return result;
+            }
+            if (size > Integer.MAX_VALUE - 8) {
+                channel.close();
+                throw new IOException("File too large to parse at once: " + filePath);
+            }
+            content = ByteBuffer.allocate((int) size);
+        } catch (IOException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+    
+        channel.read(content, 0, content, new CompletionHandler<Integer, ByteBuffer>() {
+            @Override
+            public void completed(Integer read, ByteBuffer buffer) {
+                if (read >= 0 && buffer.hasRemaining()) {
+                    channel.read(buffer, buffer.position(), buffer, this);
+                    return;
+                }
+                close();
+                result.complete(buffer.flip());
+            }
+    
+            @Override
+            public void failed(Throwable error, ByteBuffer buffer) {
+                close();
+                result.completeExceptionally(error);
+            }
+    
+            private void close() {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    // the content has been read or the read has already failed
+                }
+            }
+        });
+        return result;
+    }
+    
+    private static boolean isGzip(String fileName) {
+        return fileName.regionMatches(true, fileName.length() - 3, ".gz", 0, 3);
+    }
+    
     /**
      * Custom exception for parsing errors
      */
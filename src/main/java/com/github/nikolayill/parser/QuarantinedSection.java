@@ -0,0 +1,40 @@
+package com.github.nikolayill.parser;
+
+/**
+ * Part of the input that could not be parsed as a document section and was skipped.
+ * Offsets are byte offsets into the UTF-8 encoded input, end exclusive.
+ */
+public class QuarantinedSection {
+    private final long startOffset;
+    private final long endOffset;
+    private final int line;
+    private final String error;
+
+    public QuarantinedSection(long startOffset, long endOffset, int line, String error) {
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+        this.line = line;
+        this.error = error;
+    }
+
+    public long getStartOffset() {
+        return startOffset;
+    }
+
+    public long getEndOffset() {
+        return endOffset;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return "bytes " + startOffset + "-" + endOffset + " (line " + line + "): " + error;
+    }
+}
@@ -0,0 +1,30 @@
+package com.github.nikolayill.parser;
+
+import com.github.nikolayill.dto.Document;
+
+import java.util.List;
+
+/**
+ * Outcome of a resilient parse: every section that parsed cleanly plus the ones that were skipped.
+ */
+public class ResilientParseResult {
+    private final Document document;
+    private final List<QuarantinedSection> quarantinedSections;
+
+    public ResilientParseResult(Document document, List<QuarantinedSection> quarantinedSections) {
+        this.document = document;
+        this.quarantinedSections = quarantinedSections;
+    }
+
+    public Document getDocument() {
+        return document;
+    }
+
+    public List<QuarantinedSection> getQuarantinedSections() {
+        return quarantinedSections;
+    }
+
+    public boolean isComplete() {
+        return quarantinedSections.isEmpty();
+    }
+}
@@ -0,0 +1,142 @@
+package com.github.nikolayill.parser.stream;
+
+import com.github.nikolayill.parser.ParboiledDocumentParserService.ParseException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnmappableCharacterException;
+
+/**
+ * Line source over encoded input held in memory. Lines and their first '=' are found by
+ * {@link ByteTokenizer} on the bytes, then each line is decoded into the char buffer:
+ * UTF-8 by hand, single-byte encodings such as windows-1251 through a lookup table. Bytes
+ * that are not valid in the encoding fail the parse with a {@link CharacterCodingException}.
+ */
+final class ByteLineReader extends LineReader {
+    // Table entry of a byte the charset does not map
+    private static final char UNMAPPED = '\uFFFD';
+
+    private final ByteTokenizer tokenizer;
+    private final byte[] data;
+    // Byte to char table for single-byte encodings, null for UTF-8
+    private final char[] table;
+
+    ByteLineReader(byte[] data, int offset, int length, Charset charset, int maxLineLength) {
+        this(data, offset, length, new char[LineReader.DEFAULT_BUFFER_SIZE],
+                StandardCharsets.UTF_8.equals(charset) ? null : singleByteTable(charset), maxLineLength);
+    }
+
+    ByteLineReader(byte[] data, int offset, int length, char[] buffer, char[] table, int maxLineLength) {
+        super(buffer, 0, maxLineLength);
+        this.tokenizer = new ByteTokenizer(data, offset, length);
+        this.data = data;
+        this.table = table;
+    }
+
+    @Override
+    boolean nextLine() throws IOException, ParseException {
+        if (!tokenizer.next()) {
+            return false;
+        }
+        int from = tokenizer.lineStart();
+        int to = tokenizer.lineEnd();
+        int eq = tokenizer.delimiter();
+        // Fewest chars the bytes can decode to: one per byte in a table, one per three in UTF-8
+        checkLineLength(table != null ? to - from : (to - from + 2) / 3);
+        if (buf.length < to - from) {
+            buf = new char[Math.max(to - from, buf.length * 2)];
+        }
+        lineNumber++;
+        int n;
+        if (eq < 0) {
+            n = decode(from, to, 0);
+            delimiter = -1;
+        } else {
+            delimiter = decode(from, eq, 0);
+            n = decode(eq, to, delimiter);
+        }
+        checkLineLength(n);
+        start = 0;
+        end = n;
+        return true;
+    }
+
+    // Decodes data[from, to) into buf at n, returns the new length
+    private int decode(int from, int to, int n) throws CharacterCodingException {
+        char[] out = buf;
+        if (table != null) {
+            for (int i = from; i < to; i++) {
+                char c = table[data[i] & 0xFF];
+                if (c == UNMAPPED) {
+                    throw new UnmappableCharacterException(1);
+                }
+                out[n++] = c;
+            }
+            return n;
+        }
+        int i = from;
+        while (i < to) {
+            int b = data[i];
+            if (b >= 0) {
+                out[n++] = (char) b;
+                i++;
+                continue;
+            }
+            b &= 0xFF;
+            if (b >= 0xC2 && b <= 0xDF && i + 1 < to && isContinuation(data[i + 1])) {
+                out[n++] = (char) (((b & 0x1F) << 6) | (data[i + 1] & 0x3F));
+                i += 2;
+            } else if (b >= 0xE0 && b <= 0xEF && i + 2 < to && isContinuation(data[i + 1])
+                    && isContinuation(data[i + 2])) {
+                int c = ((b & 0x0F) << 12) | ((data[i + 1] & 0x3F) << 6) | (data[i + 2] & 0x3F);
+                if (c < 0x800 || Character.isSurrogate((char) c)) {
+                    throw new MalformedInputException(3);
+                }
+                out[n++] = (char) c;
+                i += 3;
+            } else if (b >= 0xF0 && b <= 0xF4 && i + 3 < to && isContinuation(data[i + 1])
+                    && isContinuation(data[i + 2]) && isContinuation(data[i + 3])) {
+                int c = ((b & 0x07) << 18) | ((data[i + 1] & 0x3F) << 12) | ((data[i + 2] & 0x3F) << 6)
+                        | (data[i + 3] & 0x3F);
+                if (c < 0x10000 || c > Character.MAX_CODE_POINT) {
+                    throw new MalformedInputException(4);
+                }
+                out[n++] = Character.highSurrogate(c);
+                out[n++] = Character.lowSurrogate(c);
+                i += 4;
+            } else {
+                throw new MalformedInputException(1);
+            }
+        }
+        return n;
+    }
+
+    private static boolean isContinuation(byte b) {
+        return (b & 0xC0) == 0x80;
+    }
+
+    static char[] singleByteTable(Charset charset) {
+        CharsetDecoder decoder = charset.newDecoder();
+        if (decoder.maxCharsPerByte() != 1 || charset.newEncoder().maxBytesPerChar() != 1) {
+            throw new IllegalArgumentException("Expected UTF-8 or a single-byte charset: " + charset);
+        }
+        char[] table = new char[256];
+        for (int i = 0; i < table.length; i++) {
+            try {
+                CharSequence decoded = decoder.reset().decode(ByteBuffer.wrap(new byte[]{(byte) i}));
+                if (decoded.length() != 1) {
+                    throw new IllegalArgumentException("Expected UTF-8 or a single-byte charset: " + charset);
+                }
+                table[i] = decoded.charAt(0);
+            } catch (CharacterCodingException e) {
+                table[i] = UNMAPPED;
+            }
+        }
+        return table;
+    }
+}
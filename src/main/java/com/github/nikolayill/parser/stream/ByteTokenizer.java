@@ -0,0 +1,117 @@
+package com.github.nikolayill.parser.stream;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Splits encoded input into lines and finds the first '=' of each line without decoding it.
+ * The bytes are scanned eight at a time with SWAR (SIMD within a register) word tricks, which
+ * works for UTF-8 and single-byte encodings alike since their line terminators and '=' are ASCII.
+ * The current line is {@code data[lineStart(), lineEnd())} without its terminator.
+ * Accepts \n, \r\n and lone \r terminators.
+ */
+public final class ByteTokenizer {
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGHS = 0x8080808080808080L;
+    private static final long LF = ONES * '\n';
+    private static final long CR = ONES * '\r';
+    private static final long EQUALS = ONES * '=';
+
+    private final byte[] data;
+    private final int limit;
+    private int pos;
+    private int lineStart;
+    private int lineEnd;
+    private int delimiter;
+
+    public ByteTokenizer(byte[] data, int offset, int length) {
+        this.data = data;
+        this.pos = offset;
+        this.limit = offset + length;
+    }
+
+    /**
+     * Move to the next line
+     * @return false at the end of the input
+     */
+    public boolean next() {
+        if (pos >= limit) {
+            return false;
+        }
+        lineStart = pos;
+        lineEnd = indexOfLineEnd(data, pos, limit);
+        pos = lineEnd + 1;
+        if (lineEnd < limit && data[lineEnd] == '\r' && pos < limit && data[pos] == '\n') {
+            pos++;
+        }
+        delimiter = indexOf(data, lineStart, lineEnd, (byte) '=', EQUALS);
+        return true;
+    }
+
+    public int lineStart() {
+        return lineStart;
+    }
+
+    public int lineEnd() {
+        return lineEnd;
+    }
+
+    /**
+     * @return Index of the first '=' of the current line, -1 if it has none
+     */
+    public int delimiter() {
+        return delimiter < lineEnd ? delimiter : -1;
+    }
+
+    /**
+     * @return Index of the first \n or \r in {@code data[from, to)}, {@code to} if there is none
+     */
+    public static int indexOfLineEnd(byte[] data, int from, int to) {
+        int i = from;
+        for (; i + Long.BYTES <= to; i += Long.BYTES) {
+            long word = (long) LONGS.get(data, i);
+            long found = zeroBytes(word ^ LF) | zeroBytes(word ^ CR);
+            if (found != 0) {
+                return i + (Long.numberOfTrailingZeros(found) >>> 3);
+            }
+        }
+        for (; i < to; i++) {
+            byte b = data[i];
+            if (b == '\n' || b == '\r') {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    /**
+     * @return Index of the first {@code b} in {@code data[from, to)}, {@code to} if there is none
+     */
+    public static int indexOf(byte[] data, int from, int to, byte b) {
+        return indexOf(data, from, to, b, ONES * (b & 0xFF));
+    }
+
+    private static int indexOf(byte[] data, int from, int to, byte b, long pattern) {
+        int i = from;
+        for (; i + Long.BYTES <= to; i += Long.BYTES) {
+            long found = zeroBytes((long) LONGS.get(data, i) ^ pattern);
+            if (found != 0) {
+                return i + (Long.numberOfTrailingZeros(found) >>> 3);
+            }
+        }
+        for (; i < to; i++) {
+            if (data[i] == b) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    // High bit set in each zero byte of the word. Bytes above the lowest zero byte may be flagged
+    // falsely through the borrow, so only the lowest flag is exact.
+    private static long zeroBytes(long word) {
+        return (word - ONES) & ~word & HIGHS;
+    }
+}
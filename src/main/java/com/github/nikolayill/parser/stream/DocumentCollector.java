@@ -0,0 +1,59 @@
+package com.github.nikolayill.parser.stream;
+
+import com.github.nikolayill.dto.AccountSection;
+import com.github.nikolayill.dto.Document;
+import com.github.nikolayill.dto.DocumentSection;
+import com.github.nikolayill.dto.Item;
+
+/**
+ * Builds the regular {@link Document} model from parser events
+ */
+public class DocumentCollector implements DocumentHandler {
+    private final Document document = new Document();
+    private AccountSection account;
+    private DocumentSection section;
+
+    @Override
+    public void headingItem(String key, String value) {
+        document.getHeading().add(item(key, value));
+    }
+
+    @Override
+    public void startAccount() {
+        account = new AccountSection();
+        document.getAccounts().add(account);
+    }
+
+    @Override
+    public void accountItem(String key, String value) {
+        account.getItems().add(item(key, value));
+    }
+
+    @Override
+    public void startSection(String name) {
+        section = new DocumentSection();
+        section.setSectionName(name);
+    }
+
+    @Override
+    public void sectionItem(String key, String value) {
+        section.getItems().add(item(key, value));
+    }
+
+    @Override
+    public void endSection() {
+        document.getSections().add(section);
+        section = null;
+    }
+
+    public Document getDocument() {
+        return document;
+    }
+
+    private static Item item(String key, String value) {
+        Item item = new Item();
+        item.setKey(key);
+        item.setValue(value);
+        return item;
+    }
+}
@@ -0,0 +1,43 @@
+package com.github.nikolayill.parser.stream;
+
+/**
+ * Receives parser events in document order. Items of a section are reported between
+ * its startSection and endSection; sections rejected by the section filter are not reported at all.
+ * Account events are reported once per СекцияРасчСчет block, all before the first section.
+ */
+public interface DocumentHandler {
+    default void startDocument() {
+    }
+
+    default void headingItem(String key, String value) {
+    }
+
+    default void startAccount() {
+    }
+
+    default void accountItem(String key, String value) {
+    }
+
+    default void endAccount() {
+    }
+
+    default void startSection(String name) {
+    }
+
+    default void sectionItem(String key, String value) {
+    }
+
+    /**
+     * Called instead of {@link #sectionItem(String, String)} when a section projection is set
+     * @param index Position of the key in the projection
+     */
+    default void sectionItem(int index, String key, String value) {
+        sectionItem(key, value);
+    }
+
+    default void endSection() {
+    }
+
+    default void endDocument() {
+    }
+}
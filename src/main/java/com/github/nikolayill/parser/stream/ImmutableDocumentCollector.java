@@ -0,0 +1,75 @@
+package com.github.nikolayill.parser.stream;
+
+import com.github.nikolayill.dto.immutable.ImmutableAccountSection;
+import com.github.nikolayill.dto.immutable.ImmutableDocument;
+import com.github.nikolayill.dto.immutable.ImmutableDocumentSection;
+import com.github.nikolayill.dto.immutable.ImmutableItem;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the {@link ImmutableDocument} model directly from parser events, without an
+ * intermediate mutable document. One item buffer is reused for every block.
+ */
+public class ImmutableDocumentCollector implements DocumentHandler {
+    private final List<ImmutableItem> items = new ArrayList<>();
+    private final List<ImmutableAccountSection> accounts = new ArrayList<>();
+    private final List<ImmutableDocumentSection> sections = new ArrayList<>();
+    private List<ImmutableItem> heading;
+    private String sectionName;
+    private ImmutableDocument document;
+
+    @Override
+    public void headingItem(String key, String value) {
+        items.add(new ImmutableItem(key, value));
+    }
+
+    @Override
+    public void startAccount() {
+        if (heading == null) {
+            heading = List.copyOf(items);
+            items.clear();
+        }
+    }
+
+    @Override
+    public void accountItem(String key, String value) {
+        items.add(new ImmutableItem(key, value));
+    }
+
+    @Override
+    public void endAccount() {
+        accounts.add(new ImmutableAccountSection(items));
+        items.clear();
+    }
+
+    @Override
+    public void startSection(String name) {
+        sectionName = name;
+    }
+
+    @Override
+    public void sectionItem(String key, String value) {
+        items.add(new ImmutableItem(key, value));
+    }
+
+    @Override
+    public void endSection() {
+        sections.add(new ImmutableDocumentSection(sectionName, items));
+        items.clear();
+        sectionName = null;
+    }
+
+    @Override
+    public void endDocument() {
+        document = new ImmutableDocument(heading, accounts, sections);
+    }
+
+    /**
+     * @return The parsed document, null until the parser has reached the end of input
+     */
+    public ImmutableDocument getDocument() {
+        return document;
+    }
+}
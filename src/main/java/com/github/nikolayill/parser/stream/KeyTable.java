@@ -0,0 +1,92 @@
+package com.github.nikolayill.parser.stream;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Immutable set of keys with dense indexes in insertion order. Lookups work directly on
+ * a char range of the parser buffer, so deciding whether a key is wanted allocates nothing,
+ * and a found key is returned as the table's own String instance.
+ */
+public final class KeyTable {
+    private final String[] keys;
+    private final int[] hashes;
+    private final int[] slots; // index + 1, 0 marks an empty slot
+    private final int mask;
+
+    private KeyTable(Set<String> keySet) {
+        keys = keySet.toArray(new String[0]);
+        hashes = new int[keys.length];
+        int capacity = Integer.highestOneBit(Math.max(keys.length, 1) * 4 - 1) << 1;
+        slots = new int[capacity];
+        mask = capacity - 1;
+        for (int i = 0; i < keys.length; i++) {
+            hashes[i] = keys[i].hashCode();
+            int slot = spread(hashes[i]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = i + 1;
+        }
+    }
+
+    public static KeyTable of(Collection<String> keys) {
+        return new KeyTable(new LinkedHashSet<>(keys));
+    }
+
+    public static KeyTable of(String... keys) {
+        return of(Arrays.asList(keys));
+    }
+
+    /**
+     * @return index of the key held in {@code buf[start, end)}, or -1 if it is not in the table
+     */
+    public int indexOf(char[] buf, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + buf[i];
+        }
+        int length = end - start;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            int entry = slots[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            int index = entry - 1;
+            if (hashes[index] == hash && regionEquals(keys[index], buf, start, length)) {
+                return index;
+            }
+        }
+    }
+
+    public int indexOf(String key) {
+        char[] chars = key.toCharArray();
+        return indexOf(chars, 0, chars.length);
+    }
+
+    public String key(int index) {
+        return keys[index];
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    private static boolean regionEquals(String key, char[] buf, int start, int length) {
+        if (key.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (key.charAt(i) != buf[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
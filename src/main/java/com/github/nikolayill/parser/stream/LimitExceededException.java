@@ -0,0 +1,14 @@
+package com.github.nikolayill.parser.stream;
+
+import com.github.nikolayill.parser.ParboiledDocumentParserService.ParseException;
+
+/**
+ * Input rejected because it crossed one of the {@link ParseLimits}
+ */
+public class LimitExceededException extends ParseException {
+    private static final long serialVersionUID = 1L;
+
+    public LimitExceededException(String message) {
+        super(message);
+    }
+}
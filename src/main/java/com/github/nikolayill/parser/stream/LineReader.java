@@ -0,0 +1,139 @@
+package com.github.nikolayill.parser.stream;
+
+import com.github.nikolayill.parser.ParboiledDocumentParserService.ParseException;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Splits character input into lines without creating Strings. The current line is
+ * {@code buf[start, end)} without its terminator and stays valid until the next call to {@link #nextLine()}.
+ * Accepts \n, \r\n and lone \r terminators. Lines longer than the line limit and input longer
+ * than the input limit, both in characters, are rejected before they are buffered.
+ */
+class LineReader {
+    static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final int maxLineLength;
+    private final long maxInputLength;
+    private long inputLength;
+    char[] buf;
+    int start;
+    int end;
+    int lineNumber;
+    // Index in buf of the first '=' of the current line when the reader already knows it, otherwise -1
+    int delimiter = -1;
+
+    private int pos;
+    private int limit;
+    private boolean eof;
+    private boolean skipLf;
+
+    LineReader(Reader reader, int bufferSize) {
+        this(reader, bufferSize, Integer.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    LineReader(Reader reader, int bufferSize, int maxLineLength, long maxInputLength) {
+        this(reader, new char[bufferSize], maxLineLength, maxInputLength);
+    }
+
+    // Reads into a caller's buffer, which is replaced by a larger one if a line does not fit
+    LineReader(Reader reader, char[] buffer, int maxLineLength, long maxInputLength) {
+        this.reader = reader;
+        this.buf = buffer;
+        this.maxLineLength = maxLineLength;
+        this.maxInputLength = maxInputLength;
+    }
+
+    // In-memory input, read in place
+    LineReader(char[] data, int length) {
+        this(data, length, Integer.MAX_VALUE);
+    }
+
+    LineReader(char[] data, int length, int maxLineLength) {
+        this.reader = null;
+        this.buf = data;
+        this.limit = length;
+        this.eof = true;
+        this.maxLineLength = maxLineLength;
+        this.maxInputLength = Long.MAX_VALUE;
+    }
+
+    boolean nextLine() throws IOException, ParseException {
+        if (skipLf) {
+            if (pos == limit) {
+                fill();
+            }
+            if (pos < limit && buf[pos] == '\n') {
+                pos++;
+            }
+            skipLf = false;
+        }
+        int scanned = 0;
+        for (;;) {
+            for (int i = pos + scanned; i < limit; i++) {
+                char c = buf[i];
+                if (c == '\n' || c == '\r') {
+                    checkLineLength(i - pos);
+                    start = pos;
+                    end = i;
+                    pos = i + 1;
+                    skipLf = c == '\r';
+                    lineNumber++;
+                    return true;
+                }
+            }
+            scanned = limit - pos;
+            checkLineLength(scanned);
+            if (!fill()) {
+                if (pos < limit) {
+                    start = pos;
+                    end = limit;
+                    pos = limit;
+                    lineNumber++;
+                    return true;
+                }
+                return false;
+            }
+        }
+    }
+
+    void checkLineLength(int length) throws ParseException {
+        if (length > maxLineLength) {
+            throw new LimitExceededException("Failed to parse document: line " + (lineNumber + 1)
+                    + ": line longer than " + maxLineLength + " characters");
+        }
+    }
+
+    // Reads more input after the unconsumed tail, moving the tail to the front or growing the buffer for long lines
+    private boolean fill() throws IOException, ParseException {
+        if (eof) {
+            return false;
+        }
+        if (pos > 0) {
+            System.arraycopy(buf, pos, buf, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        } else if (limit == buf.length) {
+            char[] grown = new char[buf.length * 2];
+            System.arraycopy(buf, 0, grown, 0, limit);
+            buf = grown;
+        }
+        int read;
+        do {
+            read = reader.read(buf, limit, buf.length - limit);
+        } while (read == 0);
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+        limit += read;
+        inputLength += read;
+        if (inputLength > maxInputLength) {
+            throw new LimitExceededException("Failed to parse document: line " + (lineNumber + 1)
+                    + ": input longer than " + maxInputLength + " characters");
+        }
+        return true;
+    }
+}
@@ -0,0 +1,130 @@
+package com.github.nikolayill.parser.stream;
+
+import java.nio.charset.Charset;
+
+/**
+ * Reusable state for parsing many files in a row: the char and byte buffers, single-byte
+ * decoding tables and an interning table for keys and section names, so that repeated keys
+ * share one String across documents. What a parse allocates is then mostly the result model.
+ * <p>
+ * A context is reset between files by the parser and may be used for any number of them, one at
+ * a time. It is not thread-safe; keep one per thread. Closing it releases the buffers.
+ */
+public final class ParseContext implements AutoCloseable {
+    // Buffers grown beyond this by a large file are not kept for the next one
+    static final int MAX_RETAINED_BUFFER = 1 << 20;
+    static final int BYTE_BUFFER_SIZE = 64 * 1024;
+    private static final int KEY_SLOTS = 2048;
+    private static final int MAX_KEYS = KEY_SLOTS / 2;
+    private static final int MAX_KEY_LENGTH = 64;
+
+    private char[] chars = new char[LineReader.DEFAULT_BUFFER_SIZE];
+    private byte[] bytes = new byte[BYTE_BUFFER_SIZE];
+    private String[] keys = new String[KEY_SLOTS];
+    private int[] hashes = new int[KEY_SLOTS];
+    private int keyCount;
+    private Charset tableCharset;
+    private char[] table;
+    private boolean closed;
+
+    /**
+     * @return Number of distinct keys and section names interned so far
+     */
+    public int getKeyCount() {
+        return keyCount;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        chars = null;
+        bytes = null;
+        keys = null;
+        hashes = null;
+        table = null;
+    }
+
+    char[] chars() {
+        checkOpen();
+        return chars;
+    }
+
+    // Keeps a buffer the line reader had to grow, unless it grew too large
+    void release(char[] buffer) {
+        if (!closed && buffer.length <= MAX_RETAINED_BUFFER) {
+            chars = buffer;
+        }
+    }
+
+    /**
+     * @return A byte buffer of at least the capacity for reading a file into, reused between files
+     */
+    public byte[] byteBuffer(int capacity) {
+        checkOpen();
+        if (bytes.length < capacity) {
+            byte[] grown = new byte[Math.max(capacity, bytes.length * 2)];
+            if (grown.length <= MAX_RETAINED_BUFFER) {
+                bytes = grown;
+            }
+            return grown;
+        }
+        return bytes;
+    }
+
+    char[] table(Charset charset) {
+        checkOpen();
+        if (!charset.equals(tableCharset)) {
+            table = ByteLineReader.singleByteTable(charset);
+            tableCharset = charset;
+        }
+        return table;
+    }
+
+    /**
+     * @return The interned String for {@code buf[start, end)}; long or overflowing keys are not interned
+     */
+    String intern(char[] buf, int start, int end) {
+        int length = end - start;
+        if (length > MAX_KEY_LENGTH) {
+            return new String(buf, start, length);
+        }
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + buf[i];
+        }
+        int mask = KEY_SLOTS - 1;
+        for (int slot = (hash ^ (hash >>> 16)) & mask; ; slot = (slot + 1) & mask) {
+            String key = keys[slot];
+            if (key == null) {
+                key = new String(buf, start, length);
+                if (keyCount < MAX_KEYS) {
+                    keys[slot] = key;
+                    hashes[slot] = hash;
+                    keyCount++;
+                }
+                return key;
+            }
+            if (hashes[slot] == hash && regionEquals(key, buf, start, length)) {
+                return key;
+            }
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Parse context is closed");
+        }
+    }
+
+    private static boolean regionEquals(String key, char[] buf, int start, int length) {
+        if (key.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (key.charAt(i) != buf[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
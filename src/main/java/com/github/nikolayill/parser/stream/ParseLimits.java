@@ -0,0 +1,85 @@
+package com.github.nikolayill.parser.stream;
+
+/**
+ * Resource limits for untrusted input, enforced by {@link StreamingDocumentParser} while it reads.
+ * Input is rejected with a {@link LimitExceededException} as soon as a limit is crossed, before
+ * the offending line or value is materialized. Everything is unlimited by default.
+ */
+public class ParseLimits {
+    // Room for the key and '=' on top of the longest allowed value
+    static final int KEY_ALLOWANCE = 1024;
+
+    private long maxFileSize = Long.MAX_VALUE;
+    private int maxValueLength = Integer.MAX_VALUE;
+    private int maxItemsPerSection = Integer.MAX_VALUE;
+    private int maxSections = Integer.MAX_VALUE;
+    private long maxRetainedBytes = Long.MAX_VALUE;
+
+    /**
+     * Maximum input size in bytes. Files and byte arrays are checked before they are parsed,
+     * strings by their UTF-8 encoded length. Character streams, whose encoding is unknown, are
+     * checked as characters are read against the same number of characters; a character takes at
+     * least one byte in UTF-8 and single-byte encodings, so a stream is never rejected while its
+     * encoded form is within the limit.
+     */
+    public ParseLimits withMaxFileSize(long maxFileSize) {
+        this.maxFileSize = maxFileSize;
+        return this;
+    }
+
+    /**
+     * Maximum value length in characters. Longer lines are rejected before they are buffered whole.
+     */
+    public ParseLimits withMaxValueLength(int maxValueLength) {
+        this.maxValueLength = maxValueLength;
+        return this;
+    }
+
+    /**
+     * Maximum number of items in the heading, an account section or a document section
+     */
+    public ParseLimits withMaxItemsPerSection(int maxItemsPerSection) {
+        this.maxItemsPerSection = maxItemsPerSection;
+        return this;
+    }
+
+    /**
+     * Maximum number of document sections, skipped ones included
+     */
+    public ParseLimits withMaxSections(int maxSections) {
+        this.maxSections = maxSections;
+        return this;
+    }
+
+    /**
+     * Budget for the estimated heap size of the keys, values and names handed to the handler
+     */
+    public ParseLimits withMaxRetainedBytes(long maxRetainedBytes) {
+        this.maxRetainedBytes = maxRetainedBytes;
+        return this;
+    }
+
+    public long getMaxFileSize() {
+        return maxFileSize;
+    }
+
+    public int getMaxValueLength() {
+        return maxValueLength;
+    }
+
+    public int getMaxItemsPerSection() {
+        return maxItemsPerSection;
+    }
+
+    public int getMaxSections() {
+        return maxSections;
+    }
+
+    public long getMaxRetainedBytes() {
+        return maxRetainedBytes;
+    }
+
+    int getMaxLineLength() {
+        return maxValueLength > Integer.MAX_VALUE - KEY_ALLOWANCE ? Integer.MAX_VALUE : maxValueLength + KEY_ALLOWANCE;
+    }
+}
@@ -0,0 +1,99 @@
+package com.github.nikolayill.parser.stream;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Options for {@link StreamingDocumentParser}. Configure before handing to a parser;
+ * the parser reads them but never changes them, so one instance can serve many parsers.
+ */
+public class ParseOptions {
+    private Predicate<String> sectionFilter;
+    private KeyTable headingProjection;
+    private KeyTable accountProjection;
+    private KeyTable sectionProjection;
+    private ParseLimits limits = new ParseLimits();
+
+    /**
+     * Keep only document sections whose СекцияДокумент name matches the predicate.
+     * Other sections are skipped line by line up to КонецДокумента without creating items.
+     */
+    public ParseOptions withSectionFilter(Predicate<String> sectionFilter) {
+        this.sectionFilter = sectionFilter;
+        return this;
+    }
+
+    public ParseOptions withSections(Collection<String> sectionNames) {
+        Set<String> allowed = Set.copyOf(sectionNames);
+        return withSectionFilter(allowed::contains);
+    }
+
+    public ParseOptions withSections(String... sectionNames) {
+        return withSections(Arrays.asList(sectionNames));
+    }
+
+    /**
+     * Keep only the given keys in the heading, the account section and document sections.
+     * Items with other keys are skipped without creating key or value Strings.
+     */
+    public ParseOptions withProjection(Collection<String> keys) {
+        KeyTable projection = KeyTable.of(keys);
+        headingProjection = projection;
+        accountProjection = projection;
+        sectionProjection = projection;
+        return this;
+    }
+
+    public ParseOptions withProjection(String... keys) {
+        return withProjection(Arrays.asList(keys));
+    }
+
+    public ParseOptions withHeadingProjection(Collection<String> keys) {
+        this.headingProjection = KeyTable.of(keys);
+        return this;
+    }
+
+    public ParseOptions withAccountProjection(Collection<String> keys) {
+        this.accountProjection = KeyTable.of(keys);
+        return this;
+    }
+
+    /**
+     * Keep only the given keys in document sections; the key order defines
+     * the value order of {@link ProjectedSection}
+     */
+    public ParseOptions withSectionProjection(Collection<String> keys) {
+        this.sectionProjection = KeyTable.of(keys);
+        return this;
+    }
+
+    /**
+     * Resource limits for untrusted input
+     */
+    public ParseOptions withLimits(ParseLimits limits) {
+        this.limits = limits;
+        return this;
+    }
+
+    public Predicate<String> getSectionFilter() {
+        return sectionFilter;
+    }
+
+    public KeyTable getHeadingProjection() {
+        return headingProjection;
+    }
+
+    public KeyTable getAccountProjection() {
+        return accountProjection;
+    }
+
+    public KeyTable getSectionProjection() {
+        return sectionProjection;
+    }
+
+    public ParseLimits getLimits() {
+        return limits;
+    }
+}
@@ -0,0 +1,30 @@
+package com.github.nikolayill.parser.stream;
+
+/**
+ * Document section reduced to the projected keys, with values in projection order.
+ * Keys missing from the section have null values; when a key repeats, the last value wins.
+ */
+public class ProjectedSection {
+    private final String name;
+    private final KeyTable projection;
+    private final String[] values;
+
+    public ProjectedSection(String name, KeyTable projection, String[] values) {
+        this.name = name;
+        this.projection = projection;
+        this.values = values;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String[] getValues() {
+        return values;
+    }
+
+    public String getValue(String key) {
+        int index = projection.indexOf(key);
+        return index < 0 ? null : values[index];
+    }
+}
@@ -0,0 +1,42 @@
+package com.github.nikolayill.parser.stream;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects document sections as dense value arrays in the order of the section projection
+ */
+public class ProjectedSectionCollector implements DocumentHandler {
+    private final KeyTable projection;
+    private final List<ProjectedSection> sections = new ArrayList<>();
+    private String sectionName;
+    private String[] values;
+
+    public ProjectedSectionCollector(ParseOptions options) {
+        this.projection = options.getSectionProjection();
+        if (projection == null) {
+            throw new IllegalArgumentException("Section projection is not configured");
+        }
+    }
+
+    @Override
+    public void startSection(String name) {
+        sectionName = name;
+        values = new String[projection.size()];
+    }
+
+    @Override
+    public void sectionItem(int index, String key, String value) {
+        values[index] = value;
+    }
+
+    @Override
+    public void endSection() {
+        sections.add(new ProjectedSection(sectionName, projection, values));
+        values = null;
+    }
+
+    public List<ProjectedSection> getSections() {
+        return sections;
+    }
+}
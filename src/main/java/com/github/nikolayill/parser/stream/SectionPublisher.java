@@ -0,0 +1,216 @@
+package com.github.nikolayill.parser.stream;
+
+import com.github.nikolayill.dto.AccountSection;
+import com.github.nikolayill.dto.Document;
+import com.github.nikolayill.dto.DocumentSection;
+import com.github.nikolayill.dto.Item;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the document sections of an input with demand-driven parsing. The input is opened
+ * on the first request and read only as far as needed to satisfy outstanding demand, so a slow
+ * subscriber holds back the disk reader. Cancelling closes the input.
+ * <p>
+ * Every subscription parses the input afresh. Subscribers implementing {@link SectionSubscriber}
+ * receive the heading and account sections before the first section. Signals are delivered on
+ * the executor, one at a time per subscription.
+ */
+public class SectionPublisher implements Flow.Publisher<DocumentSection> {
+    private final Callable<Reader> source;
+    private final StreamingDocumentParser parser;
+    private final Executor executor;
+
+    /**
+     * @param source Opens the input, called once per subscription
+     * @param options Section filter and other streaming options
+     * @param executor Runs parsing and delivers signals
+     */
+    public SectionPublisher(Callable<Reader> source, ParseOptions options, Executor executor) {
+        this.source = source;
+        this.parser = new StreamingDocumentParser(options);
+        this.executor = executor;
+    }
+
+    public SectionPublisher(Callable<Reader> source, ParseOptions options) {
+        this(source, options, ForkJoinPool.commonPool());
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super DocumentSection> subscriber) {
+        SectionSubscription subscription = new SectionSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    private final class SectionSubscription implements Flow.Subscription, DocumentHandler, Runnable {
+        private final Flow.Subscriber<? super DocumentSection> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger work = new AtomicInteger();
+        private volatile boolean cancelled;
+        private Throwable invalidRequest;
+        private Reader reader;
+        private StreamingDocumentParser.Cursor cursor;
+        private boolean done;
+
+        // Parser events
+        private final Document header = new Document();
+        private AccountSection account;
+        private DocumentSection section;
+        private DocumentSection pending;
+        private boolean headerComplete;
+        private boolean headerSent;
+
+        SectionSubscription(Flow.Subscriber<? super DocumentSection> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Non-positive request: " + n);
+                n = 1;
+            }
+            long current;
+            do {
+                current = demand.get();
+            } while (!demand.compareAndSet(current, current + n < 0 ? Long.MAX_VALUE : current + n));
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (work.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                drain();
+                missed = work.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drain() {
+            if (done) {
+                return;
+            }
+            if (cancelled) {
+                finish();
+                return;
+            }
+            if (invalidRequest != null) {
+                finish();
+                subscriber.onError(invalidRequest);
+                return;
+            }
+            try {
+                if (cursor == null) {
+                    reader = source.call();
+                    cursor = parser.open(reader, this);
+                }
+                while (demand.get() > 0 && !cancelled) {
+                    boolean more = cursor.advance();
+                    if (headerComplete && !headerSent) {
+                        headerSent = true;
+                        if (subscriber instanceof SectionSubscriber) {
+                            ((SectionSubscriber) subscriber).onHeader(header);
+                        }
+                    }
+                    if (pending != null) {
+                        DocumentSection next = pending;
+                        pending = null;
+                        demand.decrementAndGet();
+                        subscriber.onNext(next);
+                    }
+                    if (!more) {
+                        finish();
+                        subscriber.onComplete();
+                        return;
+                    }
+                }
+                if (cancelled) {
+                    finish();
+                }
+            } catch (Exception e) {
+                finish();
+                if (!cancelled) {
+                    subscriber.onError(e);
+                }
+            }
+        }
+
+        // Releases the input; no signal may follow the terminal one
+        private void finish() {
+            done = true;
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    // the subscription is over, nothing to report to
+                }
+                reader = null;
+            }
+        }
+
+        @Override
+        public void headingItem(String key, String value) {
+            header.getHeading().add(item(key, value));
+        }
+
+        @Override
+        public void startAccount() {
+            account = new AccountSection();
+            header.getAccounts().add(account);
+        }
+
+        @Override
+        public void accountItem(String key, String value) {
+            account.getItems().add(item(key, value));
+        }
+
+        @Override
+        public void startSection(String name) {
+            headerComplete = true;
+            section = new DocumentSection();
+            section.setSectionName(name);
+        }
+
+        @Override
+        public void sectionItem(String key, String value) {
+            section.getItems().add(item(key, value));
+        }
+
+        @Override
+        public void endSection() {
+            pending = section;
+            section = null;
+        }
+
+        @Override
+        public void endDocument() {
+            headerComplete = true;
+        }
+
+        private Item item(String key, String value) {
+            Item item = new Item();
+            item.setKey(key);
+            item.setValue(value);
+            return item;
+        }
+    }
+}
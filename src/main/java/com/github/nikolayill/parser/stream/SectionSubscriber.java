@@ -0,0 +1,18 @@
+package com.github.nikolayill.parser.stream;
+
+import com.github.nikolayill.dto.Document;
+import com.github.nikolayill.dto.DocumentSection;
+
+import java.util.concurrent.Flow;
+
+/**
+ * Subscriber to a {@link SectionPublisher} that also receives the heading and account sections
+ */
+public interface SectionSubscriber extends Flow.Subscriber<DocumentSection> {
+
+    /**
+     * Called once, before the first section or completion
+     * @param header Document with the heading and account sections and no document sections
+     */
+    void onHeader(Document header);
+}
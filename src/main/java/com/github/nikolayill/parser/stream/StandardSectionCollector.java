@@ -0,0 +1,34 @@
+package com.github.nikolayill.parser.stream;
+
+import com.github.nikolayill.dto.standard.StandardSection;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects document sections into the {@link StandardSection} model
+ */
+public class StandardSectionCollector implements DocumentHandler {
+    private final List<StandardSection> sections = new ArrayList<>();
+    private StandardSection section;
+
+    @Override
+    public void startSection(String name) {
+        section = new StandardSection(name);
+    }
+
+    @Override
+    public void sectionItem(String key, String value) {
+        section.set(key, value);
+    }
+
+    @Override
+    public void endSection() {
+        sections.add(section);
+        section = null;
+    }
+
+    public List<StandardSection> getSections() {
+        return sections;
+    }
+}
@@ -0,0 +1,504 @@
+package com.github.nikolayill.parser.stream;
+
+import com.github.nikolayill.parser.ParboiledDocumentParserService.ParseException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Predicate;
+
+/**
+ * Line-oriented parser for the 1C client bank exchange format that reports
+ * {@link DocumentHandler} events instead of building a tree. It accepts the same
+ * documents as {@code ParboiledDocumentParser}, one marker or key=value item per line,
+ * and reads its input in bounded chunks. {@link ParseLimits} from the options are enforced as lines
+ * are read. Instances are stateless and thread-safe.
+ */
+public class StreamingDocumentParser {
+    static final String FILE_START = "1CClientBankExchange";
+    static final String ACCOUNT_START = "СекцияРасчСчет";
+    static final String ACCOUNT_END = "КонецРасчСчет";
+    static final String SECTION_START = "СекцияДокумент=";
+    static final String SECTION_END = "КонецДокумента";
+    static final String FILE_END = "КонецФайла";
+    static final int RETAINED_OVERHEAD = 64;
+
+    private final ParseOptions options;
+    private final int bufferSize;
+
+    public StreamingDocumentParser() {
+        this(new ParseOptions());
+    }
+
+    public StreamingDocumentParser(ParseOptions options) {
+        this(options, LineReader.DEFAULT_BUFFER_SIZE);
+    }
+
+    StreamingDocumentParser(ParseOptions options, int bufferSize) {
+        this.options = options;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Parse a document read from a character stream
+     * @param reader Source of the document, not closed by the parser
+     * @param handler Receiver of parser events
+     * @throws ParseException if the input is not a valid document
+     * @throws IOException if reading fails
+     */
+    public void parse(Reader reader, DocumentHandler handler) throws ParseException, IOException {
+        Cursor cursor = open(reader, handler);
+        while (cursor.advance()) {
+            // events are delivered to the handler
+        }
+    }
+
+    /**
+     * Parse a document read from a character stream, reusing the buffers and interned keys of a context
+     * @param reader Source of the document, not closed by the parser
+     * @param handler Receiver of parser events
+     * @param context Per-thread parse state, reset for this document
+     * @throws ParseException if the input is not a valid document
+     * @throws IOException if reading fails
+     */
+    public void parse(Reader reader, DocumentHandler handler, ParseContext context) throws ParseException, IOException {
+        ParseLimits limits = options.getLimits();
+        LineReader lines = new LineReader(reader, context.chars(), limits.getMaxLineLength(), limits.getMaxFileSize());
+        Cursor cursor = new Cursor(lines, handler, context);
+        try {
+            while (cursor.advance()) {
+                // events are delivered to the handler
+            }
+        } finally {
+            context.release(lines.buf);
+        }
+    }
+
+    /**
+     * Parse a document held in memory. The file size limit applies to its UTF-8 encoded length.
+     * @param content The document content
+     * @param handler Receiver of parser events
+     * @throws ParseException if the input is not a valid document
+     */
+    public void parse(String content, DocumentHandler handler) throws ParseException {
+        ParseLimits limits = options.getLimits();
+        if (utf8Length(content, limits.getMaxFileSize()) > limits.getMaxFileSize()) {
+            throw new LimitExceededException("Failed to parse document: input larger than "
+                    + limits.getMaxFileSize() + " bytes");
+        }
+        char[] data = content.toCharArray();
+        Cursor cursor = new Cursor(new LineReader(data, data.length, limits.getMaxLineLength()), handler, null);
+        try {
+            while (cursor.advance()) {
+                // events are delivered to the handler
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // in-memory input is never read from a stream
+        }
+    }
+
+    // Length of the content encoded as UTF-8, counted only as far as needed to compare it with the limit
+    static long utf8Length(String content, long limit) {
+        int length = content.length();
+        if (length > limit || 3L * length <= limit) {
+            return length; // a char takes one to three bytes, a surrogate pair four
+        }
+        long bytes = 0;
+        for (int i = 0; i < length && bytes <= limit; i++) {
+            char c = content.charAt(i);
+            bytes += c < 0x80 ? 1 : c < 0x800 || Character.isSurrogate(c) ? 2 : 3;
+        }
+        return bytes;
+    }
+
+    /**
+     * Parse a document held in memory in its encoded form. Lines and delimiters are found on the
+     * bytes, see {@link ByteTokenizer}, and each line is decoded once.
+     * @param data The document content
+     * @param offset Start of the content in data
+     * @param length Length of the content in bytes
+     * @param charset UTF-8 or a single-byte encoding such as windows-1251
+     * @param handler Receiver of parser events
+     * @throws ParseException if the input is not a valid document
+     * @throws IOException if the content is not valid in the charset
+     */
+    public void parse(byte[] data, int offset, int length, Charset charset, DocumentHandler handler)
+            throws ParseException, IOException {
+        ParseLimits limits = options.getLimits();
+        if (length > limits.getMaxFileSize()) {
+            throw new LimitExceededException("Failed to parse document: input larger than "
+                    + limits.getMaxFileSize() + " bytes");
+        }
+        Cursor cursor = new Cursor(new ByteLineReader(data, offset, length, charset, limits.getMaxLineLength()), handler, null);
+        while (cursor.advance()) {
+            // events are delivered to the handler
+        }
+    }
+
+    /**
+     * Parse a document held in memory in its encoded form, reusing the buffers and interned keys of a context
+     * @param data The document content
+     * @param offset Start of the content in data
+     * @param length Length of the content in bytes
+     * @param charset UTF-8 or a single-byte encoding such as windows-1251
+     * @param handler Receiver of parser events
+     * @param context Per-thread parse state, reset for this document
+     * @throws ParseException if the input is not a valid document
+     * @throws IOException if the content is not valid in the charset
+     */
+    public void parse(byte[] data, int offset, int length, Charset charset, DocumentHandler handler, ParseContext context)
+            throws ParseException, IOException {
+        ParseLimits limits = options.getLimits();
+        if (length > limits.getMaxFileSize()) {
+            throw new LimitExceededException("Failed to parse document: input larger than "
+                    + limits.getMaxFileSize() + " bytes");
+        }
+        char[] table = StandardCharsets.UTF_8.equals(charset) ? null : context.table(charset);
+        LineReader lines = new ByteLineReader(data, offset, length, context.chars(), table, limits.getMaxLineLength());
+        Cursor cursor = new Cursor(lines, handler, context);
+        try {
+            while (cursor.advance()) {
+                // events are delivered to the handler
+            }
+        } finally {
+            context.release(lines.buf);
+        }
+    }
+
+    /**
+     * Parse only the heading and the account sections, reading no further than the first
+     * line after them. Handler events stop after the last endAccount; endDocument is not reported.
+     * @param reader Source of the document, not closed by the parser
+     * @param handler Receiver of heading and account events
+     * @throws ParseException if the heading or an account section is not valid
+     * @throws IOException if reading fails
+     */
+    public void parseHeader(Reader reader, DocumentHandler handler) throws ParseException, IOException {
+        open(reader, handler).advanceHeader();
+    }
+
+    // Pull-style parsing: each advance() reads up to the next account or section end
+    Cursor open(Reader reader, DocumentHandler handler) {
+        ParseLimits limits = options.getLimits();
+        return new Cursor(new LineReader(reader, bufferSize, limits.getMaxLineLength(), limits.getMaxFileSize()),
+                handler, null);
+    }
+
+    private enum State {
+        FILE_START, HEADING, ACCOUNT, ACCOUNTS, BODY, SECTION, SKIPPED_SECTION, FILE_END, DONE
+    }
+
+    /**
+     * Parsing state of one input. Each call to {@link #advance()} consumes lines up to the end
+     * of the next account section or of the next reported document section.
+     */
+    final class Cursor {
+        private final LineReader lines;
+        private final DocumentHandler handler;
+        private final ParseContext context; // interns keys and names when set
+        private final Predicate<String> sectionFilter = options.getSectionFilter();
+        private final KeyTable headingProjection = options.getHeadingProjection();
+        private final KeyTable accountProjection = options.getAccountProjection();
+        private final KeyTable sectionProjection = options.getSectionProjection();
+        private final int maxValueLength = options.getLimits().getMaxValueLength();
+        private final int maxItems = options.getLimits().getMaxItemsPerSection();
+        private final int maxSections = options.getLimits().getMaxSections();
+        private final long maxRetainedBytes = options.getLimits().getMaxRetainedBytes();
+        private State state = State.FILE_START;
+        private int items;
+        private int sections;
+        private long retainedBytes;
+
+        Cursor(LineReader lines, DocumentHandler handler, ParseContext context) {
+            this.lines = lines;
+            this.handler = handler;
+            this.context = context;
+        }
+
+        /**
+         * @return false once the whole document has been read
+         */
+        boolean advance() throws ParseException, IOException {
+            while (state != State.DONE) {
+                if (!lines.nextLine()) {
+                    if (state != State.FILE_END) {
+                        throw error("unexpected end of input, " + expected());
+                    }
+                    state = State.DONE;
+                    handler.endDocument();
+                    return false;
+                }
+                if (processLine()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Consumes lines up to the end of the account sections. The first line after them is read
+         * but not processed, so no section event is reported.
+         */
+        void advanceHeader() throws ParseException, IOException {
+            while (state == State.FILE_START || state == State.HEADING || state == State.ACCOUNT || state == State.ACCOUNTS) {
+                if (!lines.nextLine()) {
+                    throw error("unexpected end of input, " + expected());
+                }
+                if (state == State.ACCOUNTS && !isBlankOrAccountStart()) {
+                    return;
+                }
+                processLine();
+            }
+        }
+
+        private boolean isBlankOrAccountStart() {
+            char[] buf = lines.buf;
+            int start = lines.start;
+            int end = lines.end;
+            while (start < end && buf[start] <= ' ') {
+                start++;
+            }
+            return start == end || startsWith(buf, start, end, ACCOUNT_START);
+        }
+
+        // Returns true when a step boundary (end of account or of a reported section) was reached
+        private boolean processLine() throws ParseException {
+            char[] buf = lines.buf;
+            int start = lines.start;
+            int end = lines.end;
+            if (state == State.FILE_START && lines.lineNumber == 1 && start < end && buf[start] == '\uFEFF') {
+                start++;
+            }
+            while (start < end && buf[start] <= ' ') {
+                start++;
+            }
+            while (end > start && buf[end - 1] <= ' ') {
+                end--;
+            }
+            if (start == end) {
+                return false;
+            }
+
+            switch (state) {
+                case FILE_START:
+                    expectMarker(buf, start, end, FILE_START);
+                    handler.startDocument();
+                    state = State.HEADING;
+                    return false;
+                case HEADING:
+                    if (isMarker(buf, start, end, ACCOUNT_START)) {
+                        handler.startAccount();
+                        state = State.ACCOUNT;
+                        items = 0;
+                    } else {
+                        item(buf, start, end);
+                    }
+                    return false;
+                case ACCOUNT:
+                    if (isMarker(buf, start, end, ACCOUNT_END)) {
+                        handler.endAccount();
+                        state = State.ACCOUNTS;
+                        return true;
+                    }
+                    item(buf, start, end);
+                    return false;
+                case ACCOUNTS:
+                    // consolidated statements carry one account section per account
+                    if (isMarker(buf, start, end, ACCOUNT_START)) {
+                        handler.startAccount();
+                        state = State.ACCOUNT;
+                        items = 0;
+                        return false;
+                    }
+                    bodyLine(buf, start, end);
+                    return false;
+                case BODY:
+                    bodyLine(buf, start, end);
+                    return false;
+                case SECTION:
+                    if (isMarker(buf, start, end, SECTION_END)) {
+                        handler.endSection();
+                        state = State.BODY;
+                        return true;
+                    }
+                    item(buf, start, end);
+                    return false;
+                case SKIPPED_SECTION:
+                    if (isMarker(buf, start, end, SECTION_END)) {
+                        state = State.BODY;
+                    } else {
+                        countItem();
+                    }
+                    return false;
+                default:
+                    throw error("unexpected content after " + FILE_END);
+            }
+        }
+
+        // A line between sections: the next section or the end of the file
+        private void bodyLine(char[] buf, int start, int end) throws ParseException {
+            if (startsWith(buf, start, end, SECTION_START)) {
+                startSection(buf, start + SECTION_START.length(), end);
+            } else {
+                expectMarker(buf, start, end, FILE_END);
+                state = State.FILE_END;
+            }
+        }
+
+        private void startSection(char[] buf, int nameStart, int end) throws ParseException {
+            while (nameStart < end && buf[nameStart] <= ' ') {
+                nameStart++;
+            }
+            if (nameStart == end) {
+                throw error("missing section name after " + SECTION_START);
+            }
+            if (++sections > maxSections) {
+                throw limitError("more than " + maxSections + " sections");
+            }
+            items = 0;
+            String name = context == null ? new String(buf, nameStart, end - nameStart)
+                    : context.intern(buf, nameStart, end);
+            if (sectionFilter == null || sectionFilter.test(name)) {
+                retain(name.length());
+                handler.startSection(name);
+                state = State.SECTION;
+            } else {
+                state = State.SKIPPED_SECTION;
+            }
+        }
+
+        private void item(char[] buf, int start, int end) throws ParseException {
+            int eq = lines.delimiter;
+            if (eq < 0) {
+                eq = start;
+                while (eq < end && buf[eq] != '=') {
+                    eq++;
+                }
+            }
+            if (eq == end) {
+                throw error("expected key=value item, " + expected());
+            }
+            int keyEnd = eq;
+            while (keyEnd > start && buf[keyEnd - 1] <= ' ') {
+                keyEnd--;
+            }
+            if (keyEnd == start) {
+                throw error("missing key before '='");
+            }
+            int valueStart = eq + 1;
+            while (valueStart < end && buf[valueStart] <= ' ') {
+                valueStart++;
+            }
+            countItem();
+            if (end - valueStart > maxValueLength) {
+                throw limitError("value longer than " + maxValueLength + " characters");
+            }
+            KeyTable projection = state == State.HEADING ? headingProjection
+                    : state == State.ACCOUNT ? accountProjection : sectionProjection;
+            int index = -1;
+            String key;
+            if (projection == null) {
+                key = context == null ? new String(buf, start, keyEnd - start) : context.intern(buf, start, keyEnd);
+            } else {
+                index = projection.indexOf(buf, start, keyEnd);
+                if (index < 0) {
+                    return;
+                }
+                key = projection.key(index);
+            }
+            retain(keyEnd - start + end - valueStart);
+            String value = new String(buf, valueStart, end - valueStart);
+            switch (state) {
+                case HEADING:
+                    handler.headingItem(key, value);
+                    break;
+                case ACCOUNT:
+                    handler.accountItem(key, value);
+                    break;
+                default:
+                    if (index < 0) {
+                        handler.sectionItem(key, value);
+                    } else {
+                        handler.sectionItem(index, key, value);
+                    }
+            }
+        }
+
+        // A line that starts with a marker must consist of the marker alone
+        private boolean isMarker(char[] buf, int start, int end, String marker) throws ParseException {
+            if (!startsWith(buf, start, end, marker)) {
+                return false;
+            }
+            if (end - start != marker.length()) {
+                throw error("unexpected content after " + marker);
+            }
+            return true;
+        }
+
+        private void expectMarker(char[] buf, int start, int end, String marker) throws ParseException {
+            if (!isMarker(buf, start, end, marker)) {
+                throw error(expected());
+            }
+        }
+
+        private String expected() {
+            switch (state) {
+                case FILE_START:
+                    return "expected " + FILE_START;
+                case HEADING:
+                    return "expected heading item or " + ACCOUNT_START;
+                case ACCOUNT:
+                    return "expected account item or " + ACCOUNT_END;
+                case ACCOUNTS:
+                    return "expected " + ACCOUNT_START + ", " + SECTION_START + " or " + FILE_END;
+                case BODY:
+                    return "expected " + SECTION_START + " or " + FILE_END;
+                case SECTION:
+                case SKIPPED_SECTION:
+                    return "expected section item or " + SECTION_END;
+                default:
+                    return "expected end of input";
+            }
+        }
+
+        private void countItem() throws ParseException {
+            if (++items > maxItems) {
+                throw limitError("more than " + maxItems + " items in a section");
+            }
+        }
+
+        // Rough heap cost of the strings handed to the handler: object headers plus two bytes a char
+        private void retain(int chars) throws ParseException {
+            retainedBytes += RETAINED_OVERHEAD + 2L * chars;
+            if (retainedBytes > maxRetainedBytes) {
+                throw limitError("more than " + maxRetainedBytes + " bytes retained");
+            }
+        }
+
+        private ParseException error(String message) {
+            return new ParseException("Failed to parse document: line " + lines.lineNumber + ": " + message);
+        }
+
+        private ParseException limitError(String message) {
+            return new LimitExceededException("Failed to parse document: line " + lines.lineNumber + ": " + message);
+        }
+    }
+
+    static boolean startsWith(char[] buf, int start, int end, String marker) {
+        int length = marker.length();
+        if (end - start < length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char a = buf[start + i];
+            char b = marker.charAt(i);
+            if (a != b && Character.toUpperCase(a) != Character.toUpperCase(b)
+                    && Character.toLowerCase(a) != Character.toLowerCase(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
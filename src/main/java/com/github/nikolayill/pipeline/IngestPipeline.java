@@ -0,0 +1,384 @@
+package com.github.nikolayill.pipeline;
+
+import com.github.nikolayill.dto.DocumentSection;
+import com.github.nikolayill.dto.Item;
+import com.github.nikolayill.parser.stream.DocumentCollector;
+import com.github.nikolayill.parser.stream.LimitExceededException;
+import com.github.nikolayill.parser.stream.ParseContext;
+import com.github.nikolayill.parser.stream.ParseOptions;
+import com.github.nikolayill.parser.stream.StreamingDocumentParser;
+import com.github.nikolayill.validation.ValidationProfile;
+import com.github.nikolayill.validation.ValidationSession;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Ingestion of many statement files in four stages, each with its own worker threads:
+ * read/decompress, parse, validate/enrich and sink. Stages are connected by bounded queues, so
+ * {@link #submit(Path)} blocks once the pipeline is full and a slow sink holds back reading
+ * instead of piling up documents. Disk, CPU and database bound stages overlap.
+ * <p>
+ * A file that fails in any stage is dropped and reported to the error handler. {@link #close()}
+ * stops intake and waits until every submitted file has left the sink.
+ * <pre>
+ * try (IngestPipeline pipeline = new IngestPipeline().withParsers(4).withSink(file -> store(file.getDocument())).start()) {
+ *     for (Path file : files) {
+ *         pipeline.submit(file);
+ *     }
+ * }
+ * </pre>
+ */
+public class IngestPipeline implements AutoCloseable {
+    // Passed down the queues after the last file, one per worker of the receiving stage
+    private static final IngestedFile END = new IngestedFile(null);
+
+    @FunctionalInterface
+    private interface Task {
+        void process(IngestedFile file) throws Exception;
+    }
+
+    private int readers = 1;
+    private int parsers = Runtime.getRuntime().availableProcessors();
+    private int enrichers = 1;
+    private int sinks = 1;
+    private int queueCapacity = 64;
+    private ParseOptions options = new ParseOptions();
+    private ValidationProfile validation;
+    private Consumer<IngestedFile> enricher;
+    private Consumer<IngestedFile> sink;
+    private BiConsumer<Path, Exception> errorHandler = (path, error) -> { };
+    private final ThreadLocal<ParseContext> contexts = ThreadLocal.withInitial(ParseContext::new);
+    private final List<Stage> stages = new ArrayList<>();
+    // Held shared by submit and exclusively by close, so no file is queued behind the end markers
+    private final ReadWriteLock intake = new ReentrantReadWriteLock();
+    private boolean closed;
+
+    /**
+     * Threads reading and decompressing files
+     */
+    public IngestPipeline withReaders(int readers) {
+        this.readers = readers;
+        return this;
+    }
+
+    /**
+     * Threads parsing file content, by default one per processor
+     */
+    public IngestPipeline withParsers(int parsers) {
+        this.parsers = parsers;
+        return this;
+    }
+
+    /**
+     * Threads validating and enriching documents
+     */
+    public IngestPipeline withEnrichers(int enrichers) {
+        this.enrichers = enrichers;
+        return this;
+    }
+
+    /**
+     * Threads handing documents to the sink; the sink must be thread-safe if more than one
+     */
+    public IngestPipeline withSinks(int sinks) {
+        this.sinks = sinks;
+        return this;
+    }
+
+    /**
+     * Capacity of each queue between stages
+     */
+    public IngestPipeline withQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    /**
+     * Section filter, projection and limits used by the parse stage
+     */
+    public IngestPipeline withOptions(ParseOptions options) {
+        this.options = options;
+        return this;
+    }
+
+    /**
+     * Profile checked in the validate stage. Violations are attached to the file, with line 0
+     * since the document has already been parsed.
+     */
+    public IngestPipeline withValidation(ValidationProfile validation) {
+        this.validation = validation;
+        return this;
+    }
+
+    /**
+     * Called in the validate stage after validation, e.g. to look up reference data
+     */
+    public IngestPipeline withEnricher(Consumer<IngestedFile> enricher) {
+        this.enricher = enricher;
+        return this;
+    }
+
+    /**
+     * Final destination of every successfully processed file
+     */
+    public IngestPipeline withSink(Consumer<IngestedFile> sink) {
+        this.sink = sink;
+        return this;
+    }
+
+    /**
+     * Receives files dropped because a stage failed; must not throw
+     */
+    public IngestPipeline withErrorHandler(BiConsumer<Path, Exception> errorHandler) {
+        this.errorHandler = errorHandler;
+        return this;
+    }
+
+    /**
+     * Start the worker threads of all stages
+     * @return this pipeline
+     */
+    public IngestPipeline start() {
+        if (sink == null) {
+            throw new IllegalStateException("Sink is not configured");
+        }
+        if (!stages.isEmpty()) {
+            throw new IllegalStateException("Pipeline already started");
+        }
+        Stage sinkStage = new Stage("sink", sinks, null, file -> sink.accept(file));
+        Stage enrichStage = new Stage("validate", enrichers, sinkStage, this::validate);
+        Stage parseStage = new Stage("parse", parsers, enrichStage, this::parse);
+        Stage readStage = new Stage("read", readers, parseStage, this::read);
+        stages.addAll(List.of(readStage, parseStage, enrichStage, sinkStage));
+        for (Stage stage : stages) {
+            stage.start();
+        }
+        return this;
+    }
+
+    /**
+     * Queue a file, waiting while the read queue is full
+     * @throws IllegalStateException if the pipeline is not started or already closed
+     */
+    public void submit(Path file) throws InterruptedException {
+        intake.readLock().lockInterruptibly();
+        try {
+            if (stages.isEmpty() || closed) {
+                throw new IllegalStateException("Pipeline is not running");
+            }
+            stages.get(0).input.put(new IngestedFile(file));
+        } finally {
+            intake.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Metrics of the read, parse, validate and sink stages, in that order
+     */
+    public List<StageMetrics> getMetrics() {
+        List<StageMetrics> metrics = new ArrayList<>(stages.size());
+        for (Stage stage : stages) {
+            metrics.add(stage.metrics());
+        }
+        return metrics;
+    }
+
+    /**
+     * Stop accepting files and wait until all submitted files have been processed. An interrupt
+     * does not cut the wait short; the interrupt status is restored before returning.
+     */
+    @Override
+    public void close() {
+        boolean interrupted = false;
+        intake.writeLock().lock();
+        try {
+            if (stages.isEmpty() || closed) {
+                return;
+            }
+            closed = true;
+            Stage first = stages.get(0);
+            for (int i = 0; i < first.parallelism; i++) {
+                interrupted |= putUninterruptibly(first.input, END);
+            }
+        } finally {
+            intake.writeLock().unlock();
+        }
+        for (Stage stage : stages) {
+            for (;;) {
+                try {
+                    stage.done.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Returns true if the thread was interrupted while waiting for room
+    private static boolean putUninterruptibly(BlockingQueue<IngestedFile> queue, IngestedFile file) {
+        boolean interrupted = false;
+        for (;;) {
+            try {
+                queue.put(file);
+                return interrupted;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+    }
+
+    // Files over the size limit are rejected before they are read, decompressed content once it passes the limit
+    private void read(IngestedFile file) throws Exception {
+        long maxFileSize = options.getLimits().getMaxFileSize();
+        if (Files.size(file.getPath()) > maxFileSize) {
+            throw new LimitExceededException("Failed to parse document: " + file.getPath() + " is larger than "
+                    + maxFileSize + " bytes");
+        }
+        byte[] bytes = Files.readAllBytes(file.getPath());
+        if (file.getPath().toString().toLowerCase(Locale.ROOT).endsWith(".gz")) {
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+                bytes = in.readNBytes(maxFileSize < Integer.MAX_VALUE - 8 ? (int) maxFileSize + 1 : Integer.MAX_VALUE - 8);
+                if (bytes.length > maxFileSize || in.read() >= 0) {
+                    throw new LimitExceededException("Failed to parse document: " + file.getPath()
+                            + " decompresses to more than " + maxFileSize + " bytes");
+                }
+            }
+        }
+        file.setContent(bytes);
+    }
+
+    // The bytes are split into lines and decoded by the parser, no decoded copy of the file is made
+    private void parse(IngestedFile file) throws Exception {
+        DocumentCollector collector = new DocumentCollector();
+        byte[] content = file.getContent();
+        new StreamingDocumentParser(options).parse(content, 0, content.length, StandardCharsets.UTF_8, collector,
+                contexts.get());
+        file.setContent(null);
+        file.setDocument(collector.getDocument());
+    }
+
+    private void validate(IngestedFile file) {
+        if (validation != null) {
+            ValidationSession session = validation.newSession(index -> 0);
+            for (DocumentSection section : file.getDocument().getSections()) {
+                session.startSection(section.getName(), 0);
+                for (Item item : section.getItems()) {
+                    session.item(item.getKey(), item.getValue(), 0);
+                }
+                session.endSection();
+            }
+            file.setViolations(session.getViolations());
+        }
+        if (enricher != null) {
+            enricher.accept(file);
+        }
+    }
+
+    private final class Stage {
+        final String name;
+        final int parallelism;
+        final BlockingQueue<IngestedFile> input;
+        final Stage next;
+        final Task task;
+        final CountDownLatch done;
+        final AtomicInteger running;
+        final LongAdder processed = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder busyNanos = new LongAdder();
+        volatile long startNanos;
+
+        Stage(String name, int parallelism, Stage next, Task task) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("Stage " + name + " needs at least one thread");
+            }
+            this.name = name;
+            this.parallelism = parallelism;
+            this.input = new ArrayBlockingQueue<>(queueCapacity);
+            this.next = next;
+            this.task = task;
+            this.done = new CountDownLatch(parallelism);
+            this.running = new AtomicInteger(parallelism);
+        }
+
+        void start() {
+            startNanos = System.nanoTime();
+            for (int i = 1; i <= parallelism; i++) {
+                Thread thread = new Thread(this::work, "ingest-" + name + "-" + i);
+                thread.start();
+            }
+        }
+
+        private void work() {
+            try {
+                for (;;) {
+                    IngestedFile file = input.take();
+                    if (file == END) {
+                        break;
+                    }
+                    long start = System.nanoTime();
+                    boolean passed = false;
+                    try {
+                        task.process(file);
+                        passed = true;
+                    } catch (Exception e) {
+                        failed.increment();
+                        try {
+                            errorHandler.accept(file.getPath(), e);
+                        } catch (RuntimeException ignored) {
+                            // a failing handler must not stop the stage
+                        }
+                    } finally {
+                        busyNanos.add(System.nanoTime() - start);
+                    }
+                    if (passed) {
+                        processed.increment();
+                        if (next != null) {
+                            next.input.put(file);
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                // the last worker to exit, also by an Error, passes the end on to every worker of the next stage
+                if (running.decrementAndGet() == 0 && next != null) {
+                    boolean interrupted = false;
+                    for (int i = 0; i < next.parallelism; i++) {
+                        interrupted |= putUninterruptibly(next.input, END);
+                    }
+                    if (interrupted) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                contexts.remove();
+                done.countDown();
+            }
+        }
+
+        StageMetrics metrics() {
+            return new StageMetrics(name, parallelism, input.size(), queueCapacity, processed.sum(), failed.sum(),
+                    busyNanos.sum(), System.nanoTime() - startNanos);
+        }
+    }
+}
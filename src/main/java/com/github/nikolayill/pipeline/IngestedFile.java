@@ -0,0 +1,54 @@
+package com.github.nikolayill.pipeline;
+
+import com.github.nikolayill.dto.Document;
+import com.github.nikolayill.validation.Violation;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A file on its way through an {@link IngestPipeline}. The UTF-8 content, decompressed for .gz
+ * files, is set by the read stage and dropped once the parse stage has built the document.
+ */
+public class IngestedFile {
+    private final Path path;
+    private byte[] content;
+    private Document document;
+    private List<Violation> violations = Collections.emptyList();
+
+    IngestedFile(Path path) {
+        this.path = path;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public Document getDocument() {
+        return document;
+    }
+
+    public void setDocument(Document document) {
+        this.document = document;
+    }
+
+    /**
+     * @return Violations found by the validation profile, if one is configured
+     */
+    public List<Violation> getViolations() {
+        return violations;
+    }
+
+    byte[] getContent() {
+        return content;
+    }
+
+    void setContent(byte[] content) {
+        this.content = content;
+    }
+
+    void setViolations(List<Violation> violations) {
+        this.violations = violations;
+    }
+}
@@ -0,0 +1,77 @@
+package com.github.nikolayill.pipeline;
+
+/**
+ * Point-in-time counters of one pipeline stage
+ */
+public class StageMetrics {
+    private final String name;
+    private final int parallelism;
+    private final int queueDepth;
+    private final int queueCapacity;
+    private final long processed;
+    private final long failed;
+    private final long busyNanos;
+    private final long elapsedNanos;
+
+    StageMetrics(String name, int parallelism, int queueDepth, int queueCapacity, long processed, long failed,
+                 long busyNanos, long elapsedNanos) {
+        this.name = name;
+        this.parallelism = parallelism;
+        this.queueDepth = queueDepth;
+        this.queueCapacity = queueCapacity;
+        this.processed = processed;
+        this.failed = failed;
+        this.busyNanos = busyNanos;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @return Files waiting in the stage's input queue
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * @return Files the stage passed on, failures excluded
+     */
+    public long getProcessed() {
+        return processed;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * @return Files processed per second since the pipeline started
+     */
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0 : processed * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * @return Share of the workers' time spent processing rather than waiting, between 0 and 1
+     */
+    public double getUtilization() {
+        return elapsedNanos == 0 ? 0 : Math.min(1, (double) busyNanos / elapsedNanos / parallelism);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: queue %d/%d, processed %d, failed %d, %.1f files/s, %.0f%% busy",
+                name, queueDepth, queueCapacity, processed, failed, getThroughput(), getUtilization() * 100);
+    }
+}
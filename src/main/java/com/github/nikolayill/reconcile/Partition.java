@@ -0,0 +1,103 @@
+package com.github.nikolayill.reconcile;
+
+import com.github.nikolayill.dto.DocumentSection;
+import com.github.nikolayill.dto.Item;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sections of one input that hash to the same partition. They are kept in memory until
+ * {@link #spill} moves them to a file; later sections are then appended to the file directly.
+ */
+final class Partition implements Closeable {
+    private final List<DocumentSection> sections = new ArrayList<>();
+    private Path file;
+    private DataOutputStream out;
+    private int spilledCount;
+
+    void add(DocumentSection section) throws IOException {
+        if (out == null) {
+            sections.add(section);
+        } else {
+            write(section);
+        }
+    }
+
+    void spill(Path file) throws IOException {
+        this.file = file;
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+        for (DocumentSection section : sections) {
+            write(section);
+        }
+        sections.clear();
+    }
+
+    /**
+     * @return All sections of the partition in arrival order
+     */
+    List<DocumentSection> load() throws IOException {
+        if (out == null) {
+            return sections;
+        }
+        out.flush();
+        List<DocumentSection> loaded = new ArrayList<>(spilledCount);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            for (int i = 0; i < spilledCount; i++) {
+                DocumentSection section = new DocumentSection();
+                int count = in.readInt();
+                section.setSectionName(readString(in));
+                List<Item> items = new ArrayList<>(count);
+                for (int j = 0; j < count; j++) {
+                    Item item = new Item();
+                    item.setKey(readString(in));
+                    item.setValue(readString(in));
+                    items.add(item);
+                }
+                section.setItems(items);
+                loaded.add(section);
+            }
+        }
+        return loaded;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            out.close();
+            Files.deleteIfExists(file);
+            out = null;
+        }
+    }
+
+    private void write(DocumentSection section) throws IOException {
+        out.writeInt(section.getItems().size());
+        writeString(section.getName());
+        for (Item item : section.getItems()) {
+            writeString(item.getKey());
+            writeString(item.getValue());
+        }
+        spilledCount++;
+    }
+
+    private void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
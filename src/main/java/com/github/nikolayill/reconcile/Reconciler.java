@@ -0,0 +1,446 @@
+package com.github.nikolayill.reconcile;
+
+import com.github.nikolayill.dto.DocumentSection;
+import com.github.nikolayill.dto.Item;
+import com.github.nikolayill.parser.ParboiledDocumentParserService.ParseException;
+import com.github.nikolayill.parser.stream.DocumentHandler;
+import com.github.nikolayill.parser.stream.StreamingDocumentParser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Reconciles two sets of document sections, typically a bank statement (left) against a ledger
+ * export (right), with a hash join on a composite key of exact values.
+ * <p>
+ * Sections sharing a key are paired first with a partner whose compared values agree, amounts
+ * and dates within their tolerance; remaining sections with the same key are reported as
+ * mismatched pairs. Keys compared with a tolerance must not be part of the join key.
+ * <p>
+ * Both inputs are hash-partitioned and partitions are joined in parallel. When file inputs
+ * exceed the memory budget, partitions are spilled to disk and joined one per worker. Each joined
+ * partition is reported to a {@link ReconciliationListener} and dropped, so only the partitions
+ * being joined and the totals stay on the heap.
+ */
+public class Reconciler {
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+    private static final int MAX_PARTITIONS = 1024;
+    // Heap bytes per byte of statement file, used to size partitions
+    private static final int MEMORY_PER_FILE_BYTE = 4;
+    private static final ReconciliationListener COUNT_ONLY = new ReconciliationListener() {
+    };
+
+    private final List<String> keys = new ArrayList<>();
+    private final List<String> comparedKeys = new ArrayList<>();
+    private final Map<String, BigDecimal> amountTolerances = new LinkedHashMap<>();
+    private final Map<String, Integer> dateTolerances = new LinkedHashMap<>();
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private long memoryBudget = Runtime.getRuntime().maxMemory() / 4;
+    private Path spillDirectory;
+
+    /**
+     * Keys whose values are joined exactly, e.g. Номер, ПлательщикИНН
+     */
+    public Reconciler withKey(String... keys) {
+        this.keys.addAll(Arrays.asList(keys));
+        return this;
+    }
+
+    /**
+     * Keys that must be equal in a matched pair
+     */
+    public Reconciler withComparedKeys(String... keys) {
+        comparedKeys.addAll(Arrays.asList(keys));
+        return this;
+    }
+
+    /**
+     * Compare an amount, e.g. Сумма, allowing the given absolute difference
+     */
+    public Reconciler withAmountTolerance(String key, BigDecimal tolerance) {
+        amountTolerances.put(key, tolerance);
+        return this;
+    }
+
+    /**
+     * Compare a dd.MM.yyyy date, e.g. Дата, allowing the given number of days apart
+     */
+    public Reconciler withDateTolerance(String key, int days) {
+        dateTolerances.put(key, days);
+        return this;
+    }
+
+    public Reconciler withParallelism(int parallelism) {
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Approximate heap bytes the sections of file inputs may occupy before they are spilled
+     */
+    public Reconciler withMemoryBudget(long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+        return this;
+    }
+
+    /**
+     * Directory for spill files, the system temporary directory by default
+     */
+    public Reconciler withSpillDirectory(Path spillDirectory) {
+        this.spillDirectory = spillDirectory;
+        return this;
+    }
+
+    /**
+     * Reconcile sections already in memory, counting the outcome only
+     */
+    public ReconciliationResult reconcile(Collection<DocumentSection> left, Collection<DocumentSection> right) {
+        return reconcile(left, right, COUNT_ONLY);
+    }
+
+    /**
+     * Reconcile sections already in memory, reporting pairs and unmatched sections to the listener
+     */
+    public ReconciliationResult reconcile(Collection<DocumentSection> left, Collection<DocumentSection> right,
+                                          ReconciliationListener listener) {
+        try (Join join = new Join(parallelism * 4, Long.MAX_VALUE)) {
+            for (DocumentSection section : left) {
+                join.add(0, section);
+            }
+            for (DocumentSection section : right) {
+                join.add(1, section);
+            }
+            return join.run(listener);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // nothing is spilled for in-memory inputs
+        }
+    }
+
+    /**
+     * Reconcile two UTF-8 statement files, counting the outcome only
+     * @throws ParseException if either file fails to parse
+     * @throws IOException if reading or spilling fails
+     */
+    public ReconciliationResult reconcile(Path left, Path right) throws ParseException, IOException {
+        return reconcile(left, right, COUNT_ONLY);
+    }
+
+    /**
+     * Reconcile two UTF-8 statement files, streaming them into partitions and spilling
+     * partitions to disk beyond the memory budget
+     * @param listener Receives pairs and unmatched sections as partitions are joined
+     * @throws ParseException if either file fails to parse
+     * @throws IOException if reading or spilling fails
+     */
+    public ReconciliationResult reconcile(Path left, Path right, ReconciliationListener listener)
+            throws ParseException, IOException {
+        double estimate = (double) MEMORY_PER_FILE_BYTE * (Files.size(left) + Files.size(right));
+        int partitions = (int) Math.min(MAX_PARTITIONS,
+                Math.max(parallelism * 4L, (long) Math.ceil(parallelism * estimate / memoryBudget)));
+        try (Join join = new Join(partitions, memoryBudget)) {
+            join.read(0, left);
+            join.read(1, right);
+            return join.run(listener);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private String key(DocumentSection section) {
+        StringBuilder key = new StringBuilder();
+        for (String name : keys) {
+            String value = value(section, name);
+            key.append(value == null ? "" : value).append('\u0000');
+        }
+        return key.toString();
+    }
+
+    private List<String> differences(DocumentSection left, DocumentSection right) {
+        List<String> differences = new ArrayList<>(0);
+        for (String key : comparedKeys) {
+            String a = value(left, key);
+            String b = value(right, key);
+            if (a == null ? b != null : !a.equals(b)) {
+                differences.add(key);
+            }
+        }
+        amountTolerances.forEach((key, tolerance) -> {
+            if (!withinAmount(value(left, key), value(right, key), tolerance)) {
+                differences.add(key);
+            }
+        });
+        dateTolerances.forEach((key, days) -> {
+            if (!withinDays(value(left, key), value(right, key), days)) {
+                differences.add(key);
+            }
+        });
+        return differences;
+    }
+
+    private static boolean withinAmount(String a, String b, BigDecimal tolerance) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        try {
+            BigDecimal difference = new BigDecimal(a.replace(',', '.')).subtract(new BigDecimal(b.replace(',', '.')));
+            return difference.abs().compareTo(tolerance) <= 0;
+        } catch (NumberFormatException e) {
+            return a.equals(b);
+        }
+    }
+
+    private static boolean withinDays(String a, String b, int days) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        try {
+            return Math.abs(ChronoUnit.DAYS.between(LocalDate.parse(a, DATE_FORMAT), LocalDate.parse(b, DATE_FORMAT))) <= days;
+        } catch (DateTimeParseException e) {
+            return a.equals(b);
+        }
+    }
+
+    private static String value(DocumentSection section, String key) {
+        for (Item item : section.getItems()) {
+            if (key.equals(item.getKey())) {
+                return item.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static long estimate(DocumentSection section) {
+        long bytes = 64;
+        for (Item item : section.getItems()) {
+            bytes += 96 + 2L * (item.getKey().length() + item.getValue().length());
+        }
+        return bytes;
+    }
+
+    /**
+     * State of one reconciliation: both inputs split into partitions
+     */
+    private final class Join implements Closeable {
+        private final Partition[][] partitions;
+        private final long budget;
+        private long retained;
+        private Path directory;
+
+        Join(int count, long budget) {
+            this.budget = budget;
+            partitions = new Partition[2][count];
+            for (Partition[] side : partitions) {
+                for (int i = 0; i < count; i++) {
+                    side[i] = new Partition();
+                }
+            }
+        }
+
+        void add(int side, DocumentSection section) throws IOException {
+            int h = key(section).hashCode();
+            partitions[side][((h ^ (h >>> 16)) & 0x7fffffff) % partitions[side].length].add(section);
+            if (directory == null) {
+                retained += estimate(section);
+                if (retained > budget) {
+                    spill();
+                }
+            }
+        }
+
+        void read(int side, Path file) throws ParseException, IOException {
+            try (Reader reader = Files.newBufferedReader(file)) {
+                new StreamingDocumentParser().parse(reader, new DocumentHandler() {
+                    private DocumentSection section;
+
+                    @Override
+                    public void startSection(String name) {
+                        section = new DocumentSection();
+                        section.setSectionName(name);
+                    }
+
+                    @Override
+                    public void sectionItem(String key, String value) {
+                        Item item = new Item();
+                        item.setKey(key);
+                        item.setValue(value);
+                        section.getItems().add(item);
+                    }
+
+                    @Override
+                    public void endSection() {
+                        try {
+                            add(side, section);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                });
+            }
+        }
+
+        // Grace hash join: once over budget every partition moves to disk
+        private void spill() throws IOException {
+            directory = spillDirectory == null
+                    ? Files.createTempDirectory("reconcile")
+                    : Files.createTempDirectory(spillDirectory, "reconcile");
+            for (int side = 0; side < 2; side++) {
+                for (int i = 0; i < partitions[side].length; i++) {
+                    partitions[side][i].spill(directory.resolve(side + "-" + i + ".bin"));
+                }
+            }
+        }
+
+        ReconciliationResult run(ReconciliationListener listener) throws IOException {
+            ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, parallelism));
+            Object reporting = new Object();
+            try {
+                List<Future<ReconciliationResult>> futures = new ArrayList<>(partitions[0].length);
+                for (int i = 0; i < partitions[0].length; i++) {
+                    Partition left = partitions[0][i];
+                    Partition right = partitions[1][i];
+                    futures.add(executor.submit(() -> {
+                        Outcome outcome = join(left.load(), right.load());
+                        synchronized (reporting) {
+                            outcome.report(listener);
+                        }
+                        return outcome.totals();
+                    }));
+                }
+                ReconciliationResult result = new ReconciliationResult(0, 0, 0, 0);
+                for (Future<ReconciliationResult> future : futures) {
+                    result = result.plus(await(future));
+                }
+                return result;
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (Partition[] side : partitions) {
+                for (Partition partition : side) {
+                    partition.close();
+                }
+            }
+            if (directory != null) {
+                Files.deleteIfExists(directory);
+            }
+        }
+    }
+
+    /**
+     * Outcome of one partition, held only until it is reported
+     */
+    private record Outcome(List<SectionPair> matched, List<SectionPair> mismatched,
+                           List<DocumentSection> missingInRight, List<DocumentSection> missingInLeft) {
+        void report(ReconciliationListener listener) {
+            matched.forEach(listener::matched);
+            mismatched.forEach(listener::mismatched);
+            missingInRight.forEach(listener::missingInRight);
+            missingInLeft.forEach(listener::missingInLeft);
+        }
+
+        ReconciliationResult totals() {
+            return new ReconciliationResult(matched.size(), mismatched.size(), missingInRight.size(), missingInLeft.size());
+        }
+    }
+
+    // Builds a hash table over the right side and probes it with the left side
+    private Outcome join(List<DocumentSection> left, List<DocumentSection> right) {
+        Map<String, List<Integer>> table = new HashMap<>();
+        for (int i = 0; i < right.size(); i++) {
+            table.computeIfAbsent(key(right.get(i)), key -> new ArrayList<>(1)).add(i);
+        }
+        boolean[] used = new boolean[right.size()];
+        List<SectionPair> matched = new ArrayList<>();
+        List<SectionPair> mismatched = new ArrayList<>();
+        List<DocumentSection> missingInRight = new ArrayList<>();
+        List<Integer> unpaired = new ArrayList<>();
+
+        for (int i = 0; i < left.size(); i++) {
+            DocumentSection section = left.get(i);
+            List<Integer> candidates = table.get(key(section));
+            boolean paired = false;
+            if (candidates != null) {
+                for (int candidate : candidates) {
+                    if (!used[candidate] && differences(section, right.get(candidate)).isEmpty()) {
+                        used[candidate] = true;
+                        matched.add(new SectionPair(section, right.get(candidate), List.of()));
+                        paired = true;
+                        break;
+                    }
+                }
+            }
+            if (!paired) {
+                unpaired.add(i);
+            }
+        }
+        // same key but no agreeing partner: pair up with what is left of the bucket
+        for (int i : unpaired) {
+            DocumentSection section = left.get(i);
+            List<Integer> candidates = table.get(key(section));
+            boolean paired = false;
+            if (candidates != null) {
+                for (int candidate : candidates) {
+                    if (!used[candidate]) {
+                        used[candidate] = true;
+                        mismatched.add(new SectionPair(section, right.get(candidate),
+                                differences(section, right.get(candidate))));
+                        paired = true;
+                        break;
+                    }
+                }
+            }
+            if (!paired) {
+                missingInRight.add(section);
+            }
+        }
+        List<DocumentSection> missingInLeft = new ArrayList<>();
+        for (int i = 0; i < right.size(); i++) {
+            if (!used[i]) {
+                missingInLeft.add(right.get(i));
+            }
+        }
+        return new Outcome(matched, mismatched, missingInRight, missingInLeft);
+    }
+
+    private static ReconciliationResult await(Future<ReconciliationResult> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reconciling");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
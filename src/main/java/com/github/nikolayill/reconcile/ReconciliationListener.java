@@ -0,0 +1,28 @@
+package com.github.nikolayill.reconcile;
+
+import com.github.nikolayill.dto.DocumentSection;
+
+/**
+ * Receives the outcome of a reconciliation partition by partition, so that pairs and unmatched
+ * sections are never collected for the whole input. Calls are made from worker threads but never
+ * concurrently; the calls for one partition are consecutive, partitions arrive in completion order.
+ */
+public interface ReconciliationListener {
+    default void matched(SectionPair pair) {
+    }
+
+    default void mismatched(SectionPair pair) {
+    }
+
+    /**
+     * A left section with no partner in the right input
+     */
+    default void missingInRight(DocumentSection section) {
+    }
+
+    /**
+     * A right section with no partner in the left input
+     */
+    default void missingInLeft(DocumentSection section) {
+    }
+}
@@ -0,0 +1,46 @@
+package com.github.nikolayill.reconcile;
+
+/**
+ * Totals of a reconciliation. The pairs and sections themselves go to the
+ * {@link ReconciliationListener} passed to the reconciler.
+ */
+public class ReconciliationResult {
+    private final long matched;
+    private final long mismatched;
+    private final long missingInRight;
+    private final long missingInLeft;
+
+    public ReconciliationResult(long matched, long mismatched, long missingInRight, long missingInLeft) {
+        this.matched = matched;
+        this.mismatched = mismatched;
+        this.missingInRight = missingInRight;
+        this.missingInLeft = missingInLeft;
+    }
+
+    public long getMatched() {
+        return matched;
+    }
+
+    public long getMismatched() {
+        return mismatched;
+    }
+
+    // Left sections with no partner in the right input
+    public long getMissingInRight() {
+        return missingInRight;
+    }
+
+    // Right sections with no partner in the left input
+    public long getMissingInLeft() {
+        return missingInLeft;
+    }
+
+    public boolean isReconciled() {
+        return mismatched == 0 && missingInRight == 0 && missingInLeft == 0;
+    }
+
+    ReconciliationResult plus(ReconciliationResult other) {
+        return new ReconciliationResult(matched + other.matched, mismatched + other.mismatched,
+                missingInRight + other.missingInRight, missingInLeft + other.missingInLeft);
+    }
+}
@@ -0,0 +1,37 @@
+package com.github.nikolayill.reconcile;
+
+import com.github.nikolayill.dto.DocumentSection;
+
+import java.util.List;
+
+/**
+ * Sections of both sides joined on the same key. Differences name the compared keys whose
+ * values did not agree, empty for a match.
+ */
+public class SectionPair {
+    private final DocumentSection left;
+    private final DocumentSection right;
+    private final List<String> differences;
+
+    public SectionPair(DocumentSection left, DocumentSection right, List<String> differences) {
+        this.left = left;
+        this.right = right;
+        this.differences = differences;
+    }
+
+    public DocumentSection getLeft() {
+        return left;
+    }
+
+    public DocumentSection getRight() {
+        return right;
+    }
+
+    public List<String> getDifferences() {
+        return differences;
+    }
+
+    public boolean isMatch() {
+        return differences.isEmpty();
+    }
+}
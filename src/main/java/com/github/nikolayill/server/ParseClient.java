@@ -0,0 +1,139 @@
+package com.github.nikolayill.server;
+
+import com.github.nikolayill.export.JsonExporter;
+import com.github.nikolayill.parser.ParboiledDocumentParserService;
+import com.github.nikolayill.parser.ParboiledDocumentParserService.ParseException;
+import com.github.nikolayill.parser.stream.ParseOptions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Thin command line client of {@link ParseServer}. Each file is sent to the server on localhost
+ * and the JSON answer copied to the output; when no server is listening the file is parsed in
+ * process instead, with the same output.
+ */
+public class ParseClient {
+    private static final Duration CONNECT_TIMEOUT = Duration.ofMillis(250);
+
+    private final int port;
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(CONNECT_TIMEOUT).build();
+    private ParboiledDocumentParserService localService;
+
+    public ParseClient(int port) {
+        this.port = port;
+    }
+
+    /**
+     * Write a file as JSON
+     * @param filePath Statement file, .gz files are sent compressed
+     * @param out Receives the UTF-8 JSON
+     * @param mode Single JSON document or one line per section
+     * @return true if the server parsed the file, false if it was parsed in process
+     * @throws ParseException if the file is not a valid document
+     * @throws IOException if reading, writing or the exchange with the server fails
+     */
+    public boolean export(Path filePath, OutputStream out, JsonExporter.Mode mode) throws ParseException, IOException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/parse"
+                        + (mode == JsonExporter.Mode.NDJSON ? "?mode=ndjson" : "")))
+                .POST(HttpRequest.BodyPublishers.ofFile(filePath));
+        if (filePath.toString().toLowerCase(Locale.ROOT).endsWith(".gz")) {
+            request.header("Content-Encoding", "gzip");
+        }
+        HttpResponse<InputStream> response;
+        try {
+            response = client.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (ConnectException | HttpConnectTimeoutException e) {
+            exportLocally(filePath, out, mode);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the parse server", e);
+        }
+        try (InputStream body = response.body()) {
+            if (response.statusCode() == 422) {
+                throw new ParseException(errorMessage(body));
+            }
+            if (response.statusCode() != 200) {
+                throw new IOException("Parse server answered " + response.statusCode() + ": " + errorMessage(body));
+            }
+            body.transferTo(out);
+            out.flush();
+        }
+        return true;
+    }
+
+    private void exportLocally(Path filePath, OutputStream out, JsonExporter.Mode mode) throws ParseException, IOException {
+        if (localService == null) {
+            localService = new ParboiledDocumentParserService();
+        }
+        localService.exportJson(filePath, out, mode, new ParseOptions());
+    }
+
+    // The message of an {"error":".."} answer
+    private static String errorMessage(InputStream body) throws IOException {
+        String json = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        String prefix = "{\"error\":\"";
+        if (!json.startsWith(prefix) || !json.endsWith("\"}")) {
+            return json;
+        }
+        StringBuilder message = new StringBuilder();
+        for (int i = prefix.length(); i < json.length() - 2; i++) {
+            char c = json.charAt(i);
+            if (c == '\\' && json.charAt(i + 1) == 'u') {
+                message.append((char) Integer.parseInt(json.substring(i + 2, i + 6), 16));
+                i += 5;
+            } else if (c == '\\') {
+                message.append(json.charAt(++i));
+            } else {
+                message.append(c);
+            }
+        }
+        return message.toString();
+    }
+
+    public static void main(String[] args) {
+        int port = ParseServer.DEFAULT_PORT;
+        JsonExporter.Mode mode = JsonExporter.Mode.DOCUMENT;
+        int first = 0;
+        while (first < args.length && args[first].startsWith("--")) {
+            if ("--ndjson".equals(args[first])) {
+                mode = JsonExporter.Mode.NDJSON;
+                first++;
+            } else if ("--port".equals(args[first]) && first + 1 < args.length) {
+                port = Integer.parseInt(args[first + 1]);
+                first += 2;
+            } else {
+                break;
+            }
+        }
+        if (first == args.length) {
+            System.out.println("Usage: java ParseClient [--port <port>] [--ndjson] <input-file>...");
+            System.exit(1);
+        }
+
+        ParseClient client = new ParseClient(port);
+        try {
+            for (int i = first; i < args.length; i++) {
+                client.export(Path.of(args[i]), System.out, mode);
+                if (mode == JsonExporter.Mode.DOCUMENT) {
+                    System.out.println();
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Error parsing document: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
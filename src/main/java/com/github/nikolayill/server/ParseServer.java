@@ -0,0 +1,300 @@
+package com.github.nikolayill.server;
+
+import com.github.nikolayill.export.JsonExporter;
+import com.github.nikolayill.parser.ParboiledDocumentParserService.ParseException;
+import com.github.nikolayill.parser.stream.LimitExceededException;
+import com.github.nikolayill.parser.stream.ParseOptions;
+import com.github.nikolayill.parser.stream.StreamingDocumentParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Resident parser behind a localhost HTTP endpoint, so shell pipelines do not pay JVM startup
+ * and JIT warm-up for every file. The server is warmed up before it starts accepting requests.
+ * <p>
+ * {@code POST /parse} takes the document as the request body and answers with the JSON written by
+ * {@link JsonExporter}. Query parameters: {@code mode=json|ndjson} (default json) and
+ * {@code charset=<name>} (default UTF-8, a single-byte charset such as windows-1251 otherwise).
+ * A {@code Content-Encoding: gzip} body is decompressed. Parse errors are answered with
+ * 422 and {@code {"error":".."}}, bodies over the size limit with 413 and a body that is not
+ * valid gzip with 400.
+ * {@code GET /health} answers {@code ok}.
+ * <p>
+ * The request body is read into memory whole, since the byte path parses from an array, so it is
+ * capped by {@link #withMaxBodySize(long)} even when the options set no file size limit. The JSON
+ * is buffered up to {@value #RESPONSE_BUFFER_SIZE} bytes so that a parse error can still be answered
+ * with 422; larger answers are streamed as a chunked 200 response, and a parse error after that point
+ * drops the connection, leaving the client with a truncated body.
+ * <pre>
+ * curl --data-binary @statement.kl_to_1c http://127.0.0.1:8765/parse
+ * </pre>
+ */
+public class ParseServer implements AutoCloseable {
+    public static final int DEFAULT_PORT = 8765;
+    public static final long DEFAULT_MAX_BODY_SIZE = 64L * 1024 * 1024;
+    static final int RESPONSE_BUFFER_SIZE = 1024 * 1024;
+    private static final int WARMUP_RUNS = 200;
+
+    private int port = DEFAULT_PORT;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private ParseOptions options = new ParseOptions();
+    private long maxBodySize = DEFAULT_MAX_BODY_SIZE;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Port on the loopback interface, 0 for any free port
+     */
+    public ParseServer withPort(int port) {
+        this.port = port;
+        return this;
+    }
+
+    /**
+     * Number of requests parsed concurrently
+     */
+    public ParseServer withThreads(int threads) {
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * Section filter, projection and limits applied to every request
+     */
+    public ParseServer withOptions(ParseOptions options) {
+        this.options = options;
+        return this;
+    }
+
+    /**
+     * Maximum request body size in bytes, after decompression. The file size limit of the options
+     * applies instead when it is lower.
+     */
+    public ParseServer withMaxBodySize(long maxBodySize) {
+        this.maxBodySize = maxBodySize;
+        return this;
+    }
+
+    /**
+     * Warm up the parser and start accepting requests
+     * @return this server
+     * @throws IOException if the port cannot be bound
+     */
+    public ParseServer start() throws IOException {
+        warmUp();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        executor = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+        server.createContext("/parse", this::parse);
+        server.createContext("/health", exchange -> respond(exchange, 200, "text/plain", "ok".getBytes(StandardCharsets.US_ASCII)));
+        server.start();
+        return this;
+    }
+
+    /**
+     * @return The bound port, useful when started on port 0
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdown();
+        }
+    }
+
+    // An exception leaves the exchange open, the server then drops the connection
+    private void parse(HttpExchange exchange) throws IOException {
+        serve(exchange);
+        exchange.close();
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().set("Allow", "POST");
+            respond(exchange, 405, "text/plain", new byte[0]);
+            return;
+        }
+        Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+        JsonExporter.Mode mode = "ndjson".equals(query.get("mode")) ? JsonExporter.Mode.NDJSON : JsonExporter.Mode.DOCUMENT;
+        Charset charset;
+        try {
+            charset = Charset.forName(query.getOrDefault("charset", "UTF-8"));
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, "application/json", error("unsupported charset"));
+            return;
+        }
+
+        byte[] content;
+        try {
+            content = readBody(exchange);
+        } catch (LimitExceededException e) {
+            respond(exchange, 413, "application/json", error(e.getMessage()));
+            return;
+        } catch (ZipException | EOFException e) {
+            // only the gzip stream throws these, a plain body is read up to its end
+            respond(exchange, 400, "application/json", error("invalid gzip body: " + e.getMessage()));
+            return;
+        }
+        ResponseBody json = new ResponseBody(exchange,
+                mode == JsonExporter.Mode.NDJSON ? "application/x-ndjson" : "application/json");
+        String failure = null;
+        try {
+            new StreamingDocumentParser(options).parse(content, 0, content.length, charset, new JsonExporter(json, mode));
+        } catch (ParseException | IOException | IllegalArgumentException e) {
+            failure = e.getMessage();
+        } catch (UncheckedIOException e) {
+            failure = e.getCause().getMessage();
+        }
+        if (failure == null) {
+            json.finish();
+        } else if (json.committed) {
+            throw new IOException("Parse failed after the response was started: " + failure);
+        } else {
+            respond(exchange, 422, "application/json", error(failure));
+        }
+    }
+
+    // The body, decompressed when gzip encoded, rejected past the file size limit
+    private byte[] readBody(HttpExchange exchange) throws IOException, LimitExceededException {
+        long maxFileSize = Math.min(options.getLimits().getMaxFileSize(), maxBodySize);
+        InputStream in = exchange.getRequestBody();
+        if ("gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+            in = new GZIPInputStream(in);
+        }
+        byte[] content = in.readNBytes(maxFileSize < Integer.MAX_VALUE - 8 ? (int) maxFileSize + 1 : Integer.MAX_VALUE - 8);
+        if (content.length > maxFileSize || in.read() >= 0) {
+            throw new LimitExceededException("Failed to parse document: input larger than " + maxFileSize + " bytes");
+        }
+        return content;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    /**
+     * Holds the answer in memory up to {@link #RESPONSE_BUFFER_SIZE}, then starts a chunked 200
+     * response and writes through
+     */
+    private static final class ResponseBody extends OutputStream {
+        private final HttpExchange exchange;
+        private final String contentType;
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream(8192);
+        private OutputStream out;
+        private boolean committed;
+
+        ResponseBody(HttpExchange exchange, String contentType) {
+            this.exchange = exchange;
+            this.contentType = contentType;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (!committed && buffer.size() + len > RESPONSE_BUFFER_SIZE) {
+                exchange.getResponseHeaders().set("Content-Type", contentType);
+                exchange.sendResponseHeaders(200, 0);
+                out = exchange.getResponseBody();
+                buffer.writeTo(out);
+                buffer = null;
+                committed = true;
+            }
+            if (committed) {
+                out.write(b, off, len);
+            } else {
+                buffer.write(b, off, len);
+            }
+        }
+
+        // Sends a buffered answer with its length, or ends the chunked one
+        void finish() throws IOException {
+            if (committed) {
+                out.close();
+            } else {
+                respond(exchange, 200, contentType, buffer.toByteArray());
+            }
+        }
+    }
+
+    private static byte[] error(String message) {
+        StringBuilder json = new StringBuilder("{\"error\":\"");
+        for (int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append("\"}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery != null) {
+            for (String parameter : rawQuery.split("&")) {
+                int eq = parameter.indexOf('=');
+                if (eq > 0) {
+                    parameters.put(URLDecoder.decode(parameter.substring(0, eq), StandardCharsets.UTF_8),
+                            URLDecoder.decode(parameter.substring(eq + 1), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return parameters;
+    }
+
+    // Runs the request path on a sample statement until the JIT has compiled it
+    private void warmUp() {
+        StringBuilder sample = new StringBuilder("1CClientBankExchange\nКодировка=Windows\nСекцияРасчСчет\n"
+                + "РасчСчет=40702810000000000001\nКонецРасчСчет\n");
+        for (int i = 1; i <= 50; i++) {
+            sample.append("СекцияДокумент=Платежное поручение\nНомер=").append(i)
+                    .append("\nСумма=").append(i * 100).append(".00\nНазначениеПлатежа=Оплата по счету №")
+                    .append(i).append("\nКонецДокумента\n");
+        }
+        byte[] content = sample.append("КонецФайла\n").toString().getBytes(StandardCharsets.UTF_8);
+        StreamingDocumentParser parser = new StreamingDocumentParser();
+        try {
+            for (int i = 0; i < WARMUP_RUNS; i++) {
+                parser.parse(content, 0, content.length, StandardCharsets.UTF_8,
+                        new JsonExporter(OutputStream.nullOutputStream()));
+            }
+        } catch (ParseException | IOException e) {
+            throw new IllegalStateException("Warm-up sample failed to parse", e);
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.github.nikolayill.store;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.function.LongConsumer;
+
+/**
+ * Immutable sorted run of index entries in a file: (value, section id) pairs in value, then id
+ * order, cut into blocks of about {@value #BLOCK_SIZE} bytes. Only the first value and the offset
+ * of each block are held on the heap, so a lookup reads the few blocks that can hold its range.
+ * Layout: blocks of (value length, UTF-8 value, id) entries, a footer with the entry count and
+ * the first value and offset of every block, and a trailer with the footer offset and a magic number.
+ */
+final class IndexRun implements Closeable {
+    static final int BLOCK_SIZE = 4096;
+    private static final int MAGIC = 0x4e555249; // "IRUN"
+    private static final int TRAILER_SIZE = Long.BYTES + Integer.BYTES;
+
+    record Entry(String value, long id) implements Comparable<Entry> {
+        @Override
+        public int compareTo(Entry other) {
+            int order = value.compareTo(other.value);
+            return order != 0 ? order : Long.compare(id, other.id);
+        }
+    }
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long entries;
+    private final String[] firstValues;
+    // Offsets of the blocks followed by the footer offset, so block i spans offsets[i]..offsets[i + 1]
+    private final long[] offsets;
+
+    private IndexRun(Path path, FileChannel channel, long entries, String[] firstValues, long[] offsets) {
+        this.path = path;
+        this.channel = channel;
+        this.entries = entries;
+        this.firstValues = firstValues;
+        this.offsets = offsets;
+    }
+
+    // Current entry of a merged source
+    private static final class Head {
+        private Entry entry;
+        private final Iterator<Entry> source;
+
+        private Head(Entry entry, Iterator<Entry> source) {
+            this.entry = entry;
+            this.source = source;
+        }
+    }
+
+    /**
+     * Write entries, which must come in ascending order, to a new run file and force it to disk
+     */
+    static IndexRun write(Path path, Iterator<Entry> source) throws IOException {
+        List<String> firstValues = new ArrayList<>();
+        List<Long> offsets = new ArrayList<>();
+        long count = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 65536));
+            long position = 0;
+            long blockStart = -BLOCK_SIZE;
+            while (source.hasNext()) {
+                Entry entry = source.next();
+                byte[] value = entry.value().getBytes(StandardCharsets.UTF_8);
+                if (position - blockStart >= BLOCK_SIZE) {
+                    blockStart = position;
+                    firstValues.add(entry.value());
+                    offsets.add(position);
+                }
+                out.writeInt(value.length);
+                out.write(value);
+                out.writeLong(entry.id());
+                position += Integer.BYTES + value.length + Long.BYTES;
+                count++;
+            }
+            long footer = position;
+            out.writeLong(count);
+            out.writeInt(firstValues.size());
+            for (int i = 0; i < firstValues.size(); i++) {
+                byte[] value = firstValues.get(i).getBytes(StandardCharsets.UTF_8);
+                out.writeInt(value.length);
+                out.write(value);
+                out.writeLong(offsets.get(i));
+            }
+            out.writeLong(footer);
+            out.writeInt(MAGIC);
+            out.flush();
+            channel.force(true);
+        } catch (UncheckedIOException e) {
+            throw e.getCause(); // from a source reading other runs
+        }
+        return open(path);
+    }
+
+    /**
+     * Merge sorted sources into one sorted sequence, dropping repeated entries
+     */
+    static Iterator<Entry> merge(List<Iterator<Entry>> sources) {
+        PriorityQueue<Head> heads = new PriorityQueue<>(sources.size(), Comparator.comparing(head -> head.entry));
+        for (Iterator<Entry> source : sources) {
+            if (source.hasNext()) {
+                heads.add(new Head(source.next(), source));
+            }
+        }
+        return new Iterator<>() {
+            private Entry last;
+
+            @Override
+            public boolean hasNext() {
+                while (!heads.isEmpty() && heads.peek().entry.equals(last)) {
+                    advance();
+                }
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public Entry next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                last = advance();
+                return last;
+            }
+
+            private Entry advance() {
+                Head head = heads.poll();
+                Entry entry = head.entry;
+                if (head.source.hasNext()) {
+                    head.entry = head.source.next();
+                    heads.add(head);
+                }
+                return entry;
+            }
+        };
+    }
+
+    /**
+     * @throws IOException if the file cannot be read or is not a complete run
+     */
+    static IndexRun open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+            if (size < TRAILER_SIZE || !readFully(channel, trailer, size - TRAILER_SIZE)
+                    || trailer.getInt(Long.BYTES) != MAGIC) {
+                throw new IOException("Not an index run: " + path);
+            }
+            long footer = trailer.getLong(0);
+            if (footer < 0 || footer > size - TRAILER_SIZE) {
+                throw new IOException("Not an index run: " + path);
+            }
+            InputStream in = new BufferedInputStream(Channels.newInputStream(channel.position(footer)));
+            DataInputStream data = new DataInputStream(in);
+            long entries = data.readLong();
+            int blocks = data.readInt();
+            String[] firstValues = new String[blocks];
+            long[] offsets = new long[blocks + 1];
+            for (int i = 0; i < blocks; i++) {
+                firstValues[i] = string(data);
+                offsets[i] = data.readLong();
+            }
+            offsets[blocks] = footer;
+            return new IndexRun(path, channel, entries, firstValues, offsets);
+        } catch (EOFException e) {
+            channel.close();
+            throw new IOException("Not an index run: " + path, e);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    long getEntryCount() {
+        return entries;
+    }
+
+    /**
+     * Report the ids of the entries with values in from..to, both inclusive
+     */
+    void scan(String from, String to, LongConsumer ids) throws IOException {
+        // entries equal to from may start in the block before the first block beginning with from
+        int block = Arrays.binarySearch(firstValues, from);
+        block = block >= 0 ? block : -block - 2;
+        while (block > 0 && firstValues[block].compareTo(from) >= 0) {
+            block--;
+        }
+        for (block = Math.max(block, 0); block < firstValues.length; block++) {
+            if (firstValues[block].compareTo(to) > 0) {
+                return;
+            }
+            ByteBuffer buffer = readBlock(block);
+            while (buffer.hasRemaining()) {
+                String value = string(buffer);
+                long id = buffer.getLong();
+                int order = value.compareTo(from);
+                if (order >= 0) {
+                    if (value.compareTo(to) > 0) {
+                        return;
+                    }
+                    ids.accept(id);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return All entries in order, read block by block
+     */
+    Iterator<Entry> iterator() {
+        return new Iterator<>() {
+            private int block;
+            private ByteBuffer buffer = ByteBuffer.allocate(0);
+
+            @Override
+            public boolean hasNext() {
+                while (!buffer.hasRemaining() && block < firstValues.length) {
+                    try {
+                        buffer = readBlock(block++);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return buffer.hasRemaining();
+            }
+
+            @Override
+            public Entry next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                String value = string(buffer);
+                return new Entry(value, buffer.getLong());
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private ByteBuffer readBlock(int block) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) (offsets[block + 1] - offsets[block]));
+        if (!readFully(channel, buffer, offsets[block])) {
+            throw new IOException("Truncated index run: " + path);
+        }
+        return buffer.flip();
+    }
+
+    private static String string(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String string(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position);
+            if (n < 0) {
+                return false;
+            }
+            position += n;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,113 @@
+package com.github.nikolayill.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Section locations in a file indexed by section id: slot {@code id} holds the segment number
+ * and the record offset, segment 0 marking a missing or deleted section. Ids are dense, so the
+ * table is a plain array on disk and nothing of it is kept on the heap.
+ */
+final class LocationTable implements Closeable {
+    private static final int SLOT_SIZE = Integer.BYTES + Long.BYTES;
+    private static final int SCAN_SLOTS = 4096;
+
+    /**
+     * Place of a section record: segment number, from 1, and offset of the record in the segment
+     */
+    record Location(int segment, long offset) {
+    }
+
+    /**
+     * Receives the live slots of a scan in id order
+     */
+    @FunctionalInterface
+    interface Visitor {
+        void visit(long id, Location location) throws IOException;
+    }
+
+    private final FileChannel channel;
+    private final ByteBuffer slot = ByteBuffer.allocate(SLOT_SIZE);
+
+    LocationTable(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * @return Location of the section, or null when it does not exist or was deleted
+     */
+    Location get(long id) throws IOException {
+        slot.clear();
+        long position = id * SLOT_SIZE;
+        while (slot.hasRemaining()) {
+            if (channel.read(slot, position + slot.position()) < 0) {
+                return null;
+            }
+        }
+        int segment = slot.getInt(0);
+        return segment == 0 ? null : new Location(segment, slot.getLong(Integer.BYTES));
+    }
+
+    void put(long id, Location location) throws IOException {
+        write(id, location.segment(), location.offset());
+    }
+
+    void remove(long id) throws IOException {
+        if (id * SLOT_SIZE < channel.size()) {
+            write(id, 0, 0);
+        }
+    }
+
+    /**
+     * Forget every id from the given one on
+     */
+    void truncate(long id) throws IOException {
+        if (channel.size() > id * SLOT_SIZE) {
+            channel.truncate(id * SLOT_SIZE);
+        }
+    }
+
+    /**
+     * Visit the live slots in id order, reading the table in large chunks
+     */
+    void scan(Visitor visitor) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(SCAN_SLOTS * SLOT_SIZE);
+        long size = channel.size() / SLOT_SIZE;
+        for (long first = 0; first < size; first += SCAN_SLOTS) {
+            chunk.clear().limit((int) Math.min(SCAN_SLOTS, size - first) * SLOT_SIZE);
+            long position = first * SLOT_SIZE;
+            while (chunk.hasRemaining() && channel.read(chunk, position + chunk.position()) >= 0) {
+                // read until the chunk is full
+            }
+            chunk.flip();
+            for (long id = first; chunk.remaining() >= SLOT_SIZE; id++) {
+                int segment = chunk.getInt();
+                long offset = chunk.getLong();
+                if (segment != 0) {
+                    visitor.visit(id, new Location(segment, offset));
+                }
+            }
+        }
+    }
+
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void write(long id, int segment, long offset) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SLOT_SIZE).putInt(segment).putLong(offset).flip();
+        long position = id * SLOT_SIZE;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
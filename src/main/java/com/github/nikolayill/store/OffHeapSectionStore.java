@@ -0,0 +1,258 @@
+package com.github.nikolayill.store;
+
+import com.github.nikolayill.dto.DocumentSection;
+import com.github.nikolayill.dto.Item;
+import com.github.nikolayill.parser.stream.DocumentHandler;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Append-only store of document sections kept outside the Java heap. Section names and keys are
+ * dictionary-encoded, values are stored as raw UTF-8 bytes in large direct or memory-mapped
+ * chunks, and section offsets live off-heap too, so the heap holds a few objects per chunk
+ * instead of an object graph per item.
+ * <p>
+ * The store is a {@link DocumentHandler}: pass it to the streaming parser to append sections as
+ * they are parsed. Record layout: name code (char), item count (int), then per item key code
+ * (char), value length (int) and the value bytes.
+ * <p>
+ * Appending is single-threaded. Once appending is done, sections may be read from any number
+ * of threads.
+ */
+public class OffHeapSectionStore implements DocumentHandler, Iterable<StoredSection>, Closeable {
+    static final int DEFAULT_CHUNK_SIZE = 64 * 1024 * 1024;
+    private static final int OFFSETS_SHIFT = 17;
+    private static final int OFFSETS_PER_CHUNK = 1 << OFFSETS_SHIFT;
+    private static final int MAX_CODES = Character.MAX_VALUE + 1;
+
+    private final int chunkSize;
+    private final FileChannel file;
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private final List<LongBuffer> offsets = new ArrayList<>();
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> dictionary = new ArrayList<>();
+    private ByteBuffer current;
+    private long mappedSize;
+    private long size;
+
+    // Section being appended, copied into a chunk once complete
+    private ByteBuffer scratch = ByteBuffer.allocateDirect(4096);
+    private int itemCount;
+
+    /**
+     * Store backed by direct buffers
+     */
+    public OffHeapSectionStore() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    OffHeapSectionStore(int chunkSize) {
+        this.chunkSize = chunkSize;
+        this.file = null;
+    }
+
+    /**
+     * Store backed by a memory-mapped file, for batches larger than physical memory.
+     * The file is truncated and grows one chunk at a time.
+     * @param path File holding the section records
+     * @throws IOException if the file cannot be opened
+     */
+    public OffHeapSectionStore(Path path) throws IOException {
+        this(path, DEFAULT_CHUNK_SIZE);
+    }
+
+    OffHeapSectionStore(Path path, int chunkSize) throws IOException {
+        this.chunkSize = chunkSize;
+        this.file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    @Override
+    public void startSection(String name) {
+        scratch.clear();
+        scratch.putChar(code(name));
+        scratch.putInt(0);
+        itemCount = 0;
+    }
+
+    @Override
+    public void sectionItem(String key, String value) {
+        ensureScratch(6 + 3 * value.length());
+        scratch.putChar(code(key));
+        int lengthPosition = scratch.position();
+        scratch.putInt(0);
+        encode(value);
+        scratch.putInt(lengthPosition, scratch.position() - lengthPosition - 4);
+        itemCount++;
+    }
+
+    @Override
+    public void endSection() {
+        scratch.putInt(2, itemCount);
+        scratch.flip();
+        ByteBuffer chunk = chunkFor(scratch.remaining());
+        long offset = ((long) (chunks.size() - 1) << 32) | chunk.position();
+        chunk.put(scratch);
+        appendOffset(offset);
+    }
+
+    /**
+     * Append a section of the mutable model
+     */
+    public void append(DocumentSection section) {
+        startSection(section.getName());
+        for (Item item : section.getItems()) {
+            sectionItem(item.getKey(), item.getValue());
+        }
+        endSection();
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @param index Position of the section in append order
+     * @return View of the stored section, values are decoded on access
+     */
+    public StoredSection get(long index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Section " + index + " of " + size);
+        }
+        long offset = offsets.get((int) (index >>> OFFSETS_SHIFT)).get((int) (index & (OFFSETS_PER_CHUNK - 1)));
+        return new StoredSection(this, chunks.get((int) (offset >>> 32)), (int) offset);
+    }
+
+    @Override
+    public Iterator<StoredSection> iterator() {
+        return new Iterator<>() {
+            private long next;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public StoredSection next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                return get(next++);
+            }
+        };
+    }
+
+    /**
+     * Release the buffers. Direct memory is returned once the buffers are collected.
+     */
+    @Override
+    public void close() throws IOException {
+        chunks.clear();
+        offsets.clear();
+        current = null;
+        size = 0;
+        if (file != null) {
+            file.close();
+        }
+    }
+
+    String decode(int code) {
+        return dictionary.get(code);
+    }
+
+    // -1 when the key was never stored, so no section can contain it
+    int lookup(String key) {
+        Integer code = codes.get(key);
+        return code == null ? -1 : code;
+    }
+
+    private char code(String value) {
+        Integer code = codes.get(value);
+        if (code == null) {
+            if (dictionary.size() == MAX_CODES) {
+                throw new IllegalStateException("More than " + MAX_CODES + " distinct keys and section names");
+            }
+            code = dictionary.size();
+            codes.put(value, code);
+            dictionary.add(value);
+        }
+        return (char) code.intValue();
+    }
+
+    private void encode(String value) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                scratch.put((byte) c);
+            } else if (c < 0x800) {
+                scratch.put((byte) (0xC0 | (c >> 6)));
+                scratch.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                scratch.put((byte) (0xF0 | (codePoint >> 18)));
+                scratch.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                scratch.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                scratch.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                scratch.put((byte) '?'); // unpaired surrogate has no UTF-8 encoding
+            } else {
+                scratch.put((byte) (0xE0 | (c >> 12)));
+                scratch.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                scratch.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    private void ensureScratch(int needed) {
+        if (scratch.remaining() < needed) {
+            ByteBuffer grown = ByteBuffer.allocateDirect(Math.max(scratch.capacity() * 2, scratch.position() + needed));
+            scratch.flip();
+            grown.put(scratch);
+            scratch = grown;
+        }
+    }
+
+    // A record never spans chunks, records larger than a chunk get a chunk of their own
+    private ByteBuffer chunkFor(int length) {
+        if (current != null && current.remaining() >= length) {
+            return current;
+        }
+        int capacity = Math.max(chunkSize, length);
+        if (file == null) {
+            current = ByteBuffer.allocateDirect(capacity);
+        } else {
+            try {
+                current = file.map(FileChannel.MapMode.READ_WRITE, mappedSize, capacity);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            mappedSize += capacity;
+        }
+        chunks.add(current);
+        return current;
+    }
+
+    private void appendOffset(long offset) {
+        int slot = (int) (size & (OFFSETS_PER_CHUNK - 1));
+        if (slot == 0) {
+            offsets.add(ByteBuffer.allocateDirect(OFFSETS_PER_CHUNK * Long.BYTES).asLongBuffer());
+        }
+        offsets.get(offsets.size() - 1).put(slot, offset);
+        size++;
+    }
+}
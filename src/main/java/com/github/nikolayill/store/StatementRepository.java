@@ -0,0 +1,777 @@
+package com.github.nikolayill.store;
+
+import com.github.nikolayill.dto.Document;
+import com.github.nikolayill.dto.DocumentSection;
+import com.github.nikolayill.dto.Item;
+import com.github.nikolayill.store.LocationTable.Location;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Embedded, file-based repository of document sections. Sections are appended to segment files
+ * as CRC-checked records and looked up through indexes by date, account, counterparty INN and
+ * document number, without re-parsing the source statements.
+ * <p>
+ * Indexes and section locations live on disk, so the repository is bounded by the disk rather
+ * than by the heap. Locations are a file of fixed-size slots addressed by section id. Each index
+ * is a small in-memory table of recent entries, spilled to a sorted run file once it grows past a
+ * limit, and runs of similar size are merged so that a lookup reads a few of them. Only the first
+ * value of every 4 KB block of a run stays on the heap. Deleted sections are dropped from the
+ * indexes by {@link #compact()}; until then queries skip them through the location table.
+ * <p>
+ * {@link #flush()} and {@link #close()} spill the in-memory entries and checkpoint the list of
+ * runs and the log position to {@value #SNAPSHOT_FILE}. On open the snapshot is loaded and records
+ * appended after the checkpoint are replayed; a torn record at the end of the last segment, left
+ * by a crash, is truncated. Without a usable snapshot the indexes are rebuilt from the segments.
+ * Appends become durable on the next flush.
+ * <p>
+ * {@link #compact()} rewrites live sections into fresh segments and removes the old ones, reclaiming
+ * the space of deleted sections. A crash at any point of compaction leaves a readable repository.
+ */
+public class StatementRepository implements Closeable {
+
+    /**
+     * Indexed fields and the section keys they are taken from
+     */
+    public enum Index {
+        DATE("Дата"),
+        ACCOUNT("ПлательщикСчет", "ПолучательСчет"),
+        INN("ПлательщикИНН", "ПолучательИНН"),
+        NUMBER("Номер");
+
+        private final String[] keys;
+
+        Index(String... keys) {
+            this.keys = keys;
+        }
+    }
+
+    static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+    static final int DEFAULT_MEMTABLE_LIMIT = 100_000;
+    static final String SNAPSHOT_FILE = "indexes.snapshot";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String LOCATIONS_PREFIX = "locations-";
+    private static final String LOCATIONS_SUFFIX = ".dat";
+    private static final String RUN_PREFIX = "index-";
+    private static final String RUN_SUFFIX = ".run";
+    private static final int SNAPSHOT_MAGIC = 0x31435352;
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final int RECORD_HEADER_SIZE = 8; // body length, CRC32 of the body
+    private static final byte SECTION = 1;
+    private static final byte TOMBSTONE = 2;
+
+    private final Path directory;
+    private final long segmentSize;
+    private final int memtableLimit;
+    private final TreeMap<Integer, FileChannel> segments = new TreeMap<>();
+    private final Map<Index, TreeMap<String, TreeSet<Long>>> memtables = new EnumMap<>(Index.class);
+    private final Map<Index, List<IndexRun>> runs = new EnumMap<>(Index.class);
+    // Runs replaced by merges, deleted once a snapshot no longer refers to them
+    private final List<Path> obsoleteRuns = new ArrayList<>();
+    private LocationTable locations;
+    private FileChannel active;
+    private int activeNumber;
+    private long activeSize;
+    private int firstSegment = 1;
+    private long nextId = 1;
+    private long size;
+    private int memtableEntries;
+    private int nextRun = 1;
+
+    /**
+     * Open the repository in a directory, creating it if missing, and recover after a crash
+     * @param directory Directory holding segment files, index files and the snapshot
+     * @throws IOException if the repository cannot be read or a record before the last
+     * segment's end is corrupt
+     */
+    public StatementRepository(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    StatementRepository(Path directory, long segmentSize) throws IOException {
+        this(directory, segmentSize, DEFAULT_MEMTABLE_LIMIT);
+    }
+
+    StatementRepository(Path directory, long segmentSize, int memtableLimit) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.memtableLimit = memtableLimit;
+        for (Index index : Index.values()) {
+            memtables.put(index, new TreeMap<>());
+            runs.put(index, new ArrayList<>());
+        }
+        Files.createDirectories(directory);
+        try {
+            open();
+        } catch (IOException | RuntimeException e) {
+            closeAll();
+            throw e;
+        }
+    }
+
+    /**
+     * Append a section
+     * @return Identifier of the stored section
+     */
+    public synchronized long append(DocumentSection section) throws IOException {
+        long id = nextId++;
+        ByteBuffer record = encode(SECTION, id, section);
+        Location location = write(record);
+        locations.put(id, location);
+        size++;
+        index(id, section);
+        return id;
+    }
+
+    /**
+     * Append every section of a parsed document
+     * @return Identifiers of the stored sections, in document order
+     */
+    public synchronized List<Long> appendAll(Document document) throws IOException {
+        List<Long> ids = new ArrayList<>(document.getSections().size());
+        for (DocumentSection section : document.getSections()) {
+            ids.add(append(section));
+        }
+        return ids;
+    }
+
+    /**
+     * @return The stored section, or null when it does not exist or was deleted
+     */
+    public synchronized DocumentSection get(long id) throws IOException {
+        Location location = id > 0 ? locations.get(id) : null;
+        return location == null ? null : read(location);
+    }
+
+    /**
+     * Delete a section. Its space and index entries are reclaimed by the next compaction.
+     * @return false if the section did not exist
+     */
+    public synchronized boolean delete(long id) throws IOException {
+        if (id <= 0 || locations.get(id) == null) {
+            return false;
+        }
+        write(encode(TOMBSTONE, id, null));
+        locations.remove(id);
+        size--;
+        return true;
+    }
+
+    public synchronized long size() {
+        return size;
+    }
+
+    /**
+     * Point query
+     * @return Identifiers of the sections whose indexed field equals the value, ascending
+     */
+    public synchronized SortedSet<Long> findIds(Index index, String value) throws IOException {
+        String key = indexValue(index, value);
+        return lookup(index, key, key);
+    }
+
+    /**
+     * Range query over index values, both bounds inclusive. Dates are compared as dates.
+     * @return Identifiers of the matching sections, ascending; empty when from is after to
+     */
+    public synchronized SortedSet<Long> findIds(Index index, String from, String to) throws IOException {
+        return lookup(index, indexValue(index, from), indexValue(index, to));
+    }
+
+    public synchronized List<DocumentSection> find(Index index, String value) throws IOException {
+        return read(findIds(index, value));
+    }
+
+    public synchronized List<DocumentSection> find(Index index, String from, String to) throws IOException {
+        return read(findIds(index, from, to));
+    }
+
+    /**
+     * Sections dated within the range, both bounds inclusive
+     */
+    public synchronized List<DocumentSection> findByDate(LocalDate from, LocalDate to) throws IOException {
+        return read(lookup(Index.DATE, dateKey(from), dateKey(to)));
+    }
+
+    /**
+     * Rewrite live sections into new segments and a new location table, drop deleted sections
+     * from the indexes and delete the old files
+     */
+    public synchronized void compact() throws IOException {
+        active.force(false);
+        spill();
+        Map<Integer, FileChannel> old = new TreeMap<>(segments);
+        int previousFirst = firstSegment;
+        int first = activeNumber + 1;
+        Files.deleteIfExists(locationsPath(first));
+        LocationTable compacted = new LocationTable(locationsPath(first));
+        Map<Index, IndexRun> merged = new EnumMap<>(Index.class);
+        try {
+            openSegment(first);
+            locations.scan((id, location) -> compacted.put(id, write(readRecord(location))));
+            for (FileChannel segment : segments.tailMap(first).values()) {
+                segment.force(false);
+            }
+            compacted.force();
+            for (Index index : Index.values()) {
+                List<Iterator<IndexRun.Entry>> sources = new ArrayList<>();
+                runs.get(index).forEach(run -> sources.add(run.iterator()));
+                Iterator<IndexRun.Entry> live = stream(IndexRun.merge(sources))
+                        .filter(entry -> exists(compacted, entry.id()))
+                        .iterator();
+                merged.put(index, IndexRun.write(runPath(index), live));
+            }
+        } catch (IOException | RuntimeException e) {
+            for (IndexRun run : merged.values()) {
+                run.close();
+                obsoleteRuns.add(run.getPath());
+            }
+            compacted.close();
+            throw e;
+        }
+        for (Index index : Index.values()) {
+            for (IndexRun run : runs.get(index)) {
+                retire(run);
+            }
+            runs.get(index).clear();
+            runs.get(index).add(merged.get(index));
+        }
+        LocationTable previous = locations;
+        locations = compacted;
+        firstSegment = first;
+        writeSnapshot();
+        previous.close();
+        Files.deleteIfExists(locationsPath(previousFirst));
+        for (Map.Entry<Integer, FileChannel> entry : old.entrySet()) {
+            entry.getValue().close();
+            segments.remove(entry.getKey());
+            Files.deleteIfExists(segmentPath(entry.getKey()));
+        }
+        deleteObsoleteRuns();
+    }
+
+    /**
+     * Make appended records durable and checkpoint the indexes
+     */
+    public synchronized void flush() throws IOException {
+        active.force(false);
+        spill();
+        locations.force();
+        writeSnapshot();
+        deleteObsoleteRuns();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            closeAll();
+        }
+    }
+
+    private void open() throws IOException {
+        List<Integer> numbers;
+        try (Stream<Path> files = Files.list(directory)) {
+            numbers = files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+        for (int number : numbers) {
+            segments.put(number, FileChannel.open(segmentPath(number), StandardOpenOption.READ, StandardOpenOption.WRITE));
+        }
+
+        Location checkpoint = readSnapshot();
+        if (checkpoint == null) {
+            closeRuns();
+            nextId = 1;
+            size = 0;
+            nextRun = 1;
+            firstSegment = numbers.isEmpty() ? 1 : numbers.get(0);
+            checkpoint = new Location(firstSegment, 0);
+            Files.deleteIfExists(locationsPath(firstSegment));
+        }
+        locations = new LocationTable(locationsPath(firstSegment));
+        // segments left behind by a compaction that crashed before deleting them
+        while (!segments.isEmpty() && segments.firstKey() < firstSegment) {
+            int number = segments.firstKey();
+            segments.remove(number).close();
+            Files.deleteIfExists(segmentPath(number));
+        }
+        deleteUnusedFiles();
+
+        // slots past the checkpoint may point at records lost in a crash; replay puts back the rest
+        long checkpointId = nextId;
+        locations.truncate(checkpointId);
+        boolean replayed = false;
+        for (int number : segments.keySet()) {
+            if (number >= checkpoint.segment()) {
+                long offset = number == checkpoint.segment() ? checkpoint.offset() : 0;
+                replayed |= replay(number, offset, number == segments.lastKey(), checkpointId);
+            }
+        }
+        if (replayed) {
+            long[] live = new long[1];
+            locations.scan((id, location) -> live[0]++);
+            size = live[0];
+        }
+
+        if (segments.isEmpty()) {
+            openSegment(firstSegment);
+        } else {
+            activeNumber = segments.lastKey();
+            active = segments.get(activeNumber);
+            activeSize = active.size();
+        }
+    }
+
+    // Returns whether any record was replayed
+    private boolean replay(int number, long offset, boolean last, long checkpointId) throws IOException {
+        FileChannel channel = segments.get(number);
+        long end = channel.size();
+        boolean replayed = false;
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        while (offset < end) {
+            ByteBuffer body = null;
+            header.clear();
+            if (readFully(channel, header, offset)) {
+                int length = header.getInt(0);
+                if (length > 0 && offset + RECORD_HEADER_SIZE + length <= end) {
+                    body = ByteBuffer.allocate(length);
+                    if (!readFully(channel, body, offset + RECORD_HEADER_SIZE) || crc(body) != header.getInt(4)) {
+                        body = null;
+                    }
+                }
+            }
+            if (body == null) {
+                if (!last) {
+                    throw new IOException("Corrupt record in " + segmentPath(number) + " at offset " + offset);
+                }
+                // torn write at the end of the log
+                channel.truncate(offset);
+                channel.force(true);
+                return replayed;
+            }
+            apply(body, new Location(number, offset), checkpointId);
+            replayed = true;
+            offset += RECORD_HEADER_SIZE + body.capacity();
+        }
+        return replayed;
+    }
+
+    // Sections below the checkpoint id are already in the index runs, later ones are indexed once
+    private void apply(ByteBuffer body, Location location, long checkpointId) throws IOException {
+        byte type = body.get(0);
+        long id = body.getLong(1);
+        nextId = Math.max(nextId, id + 1);
+        if (type == TOMBSTONE) {
+            locations.remove(id);
+        } else {
+            if (id >= checkpointId && locations.get(id) == null) {
+                index(id, decode(body));
+            }
+            locations.put(id, location);
+        }
+    }
+
+    private Location write(ByteBuffer record) throws IOException {
+        if (activeSize > 0 && activeSize + record.remaining() > segmentSize) {
+            openSegment(activeNumber + 1);
+        }
+        Location location = new Location(activeNumber, activeSize);
+        long position = activeSize;
+        while (record.hasRemaining()) {
+            position += active.write(record, position);
+        }
+        activeSize = position;
+        return location;
+    }
+
+    private void openSegment(int number) throws IOException {
+        active = FileChannel.open(segmentPath(number), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        segments.put(number, active);
+        activeNumber = number;
+        activeSize = 0;
+    }
+
+    private ByteBuffer readRecord(Location location) throws IOException {
+        FileChannel channel = segments.get(location.segment());
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        if (!readFully(channel, header, location.offset())) {
+            throw new IOException("Truncated record in " + segmentPath(location.segment()));
+        }
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + header.getInt(0));
+        if (!readFully(channel, record, location.offset())) {
+            throw new IOException("Truncated record in " + segmentPath(location.segment()));
+        }
+        record.flip();
+        return record;
+    }
+
+    private DocumentSection read(Location location) throws IOException {
+        ByteBuffer record = readRecord(location);
+        return decode(record.position(RECORD_HEADER_SIZE).slice());
+    }
+
+    private List<DocumentSection> read(Collection<Long> ids) throws IOException {
+        List<DocumentSection> sections = new ArrayList<>(ids.size());
+        for (long id : ids) {
+            sections.add(read(locations.get(id)));
+        }
+        return sections;
+    }
+
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position);
+            if (n < 0) {
+                return false;
+            }
+            position += n;
+        }
+        return true;
+    }
+
+    // Record body: type, id, then for sections the name and the items as length-prefixed UTF-8
+    private static ByteBuffer encode(byte type, long id, DocumentSection section) {
+        List<byte[]> strings = new ArrayList<>();
+        int length = 1 + Long.BYTES;
+        if (section != null) {
+            strings.add(section.getName().getBytes(StandardCharsets.UTF_8));
+            for (Item item : section.getItems()) {
+                strings.add(item.getKey().getBytes(StandardCharsets.UTF_8));
+                strings.add(item.getValue().getBytes(StandardCharsets.UTF_8));
+            }
+            length += Integer.BYTES;
+            for (byte[] string : strings) {
+                length += Integer.BYTES + string.length;
+            }
+        }
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + length);
+        record.putInt(length).putInt(0).put(type).putLong(id);
+        if (section != null) {
+            record.putInt(section.getItems().size());
+            for (byte[] string : strings) {
+                record.putInt(string.length).put(string);
+            }
+        }
+        record.putInt(4, crc(record.duplicate().position(RECORD_HEADER_SIZE).slice()));
+        return record.flip();
+    }
+
+    private static DocumentSection decode(ByteBuffer body) {
+        ByteBuffer in = body.duplicate().position(1 + Long.BYTES);
+        int count = in.getInt();
+        DocumentSection section = new DocumentSection();
+        section.setSectionName(string(in));
+        List<Item> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Item item = new Item();
+            item.setKey(string(in));
+            item.setValue(string(in));
+            items.add(item);
+        }
+        section.setItems(items);
+        return section;
+    }
+
+    private static String string(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int crc(ByteBuffer buffer) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().rewind());
+        return (int) crc.getValue();
+    }
+
+    private void index(long id, DocumentSection section) throws IOException {
+        for (Index index : Index.values()) {
+            for (String value : indexValues(index, section)) {
+                if (memtables.get(index).computeIfAbsent(value, key -> new TreeSet<>()).add(id)) {
+                    memtableEntries++;
+                }
+            }
+        }
+        if (memtableEntries >= memtableLimit) {
+            spill();
+        }
+    }
+
+    // Write the in-memory entries of every index to new runs and merge runs of similar size
+    private void spill() throws IOException {
+        for (Index index : Index.values()) {
+            TreeMap<String, TreeSet<Long>> memtable = memtables.get(index);
+            if (memtable.isEmpty()) {
+                continue;
+            }
+            Iterator<IndexRun.Entry> entries = memtable.entrySet().stream()
+                    .flatMap(entry -> entry.getValue().stream().map(id -> new IndexRun.Entry(entry.getKey(), id)))
+                    .iterator();
+            List<IndexRun> indexRuns = runs.get(index);
+            indexRuns.add(IndexRun.write(runPath(index), entries));
+            memtable.clear();
+            // the newest run absorbs older ones until it is much smaller than the one before it
+            int last = indexRuns.size() - 1;
+            while (last > 0 && indexRuns.get(last - 1).getEntryCount() <= 2 * indexRuns.get(last).getEntryCount()) {
+                IndexRun newer = indexRuns.remove(last);
+                IndexRun older = indexRuns.remove(last - 1);
+                indexRuns.add(IndexRun.write(runPath(index), IndexRun.merge(List.of(older.iterator(), newer.iterator()))));
+                retire(older);
+                retire(newer);
+                last--;
+            }
+        }
+        memtableEntries = 0;
+    }
+
+    // Ids of live sections with index values in from..to
+    private SortedSet<Long> lookup(Index index, String from, String to) throws IOException {
+        TreeSet<Long> ids = new TreeSet<>();
+        if (from.compareTo(to) > 0) {
+            return ids;
+        }
+        memtables.get(index).subMap(from, true, to, true).values().forEach(ids::addAll);
+        for (IndexRun run : runs.get(index)) {
+            run.scan(from, to, ids::add);
+        }
+        // deleted sections stay in the indexes until the next compaction
+        for (Iterator<Long> iterator = ids.iterator(); iterator.hasNext(); ) {
+            if (locations.get(iterator.next()) == null) {
+                iterator.remove();
+            }
+        }
+        return ids;
+    }
+
+    private void retire(IndexRun run) throws IOException {
+        run.close();
+        obsoleteRuns.add(run.getPath());
+    }
+
+    private void deleteObsoleteRuns() throws IOException {
+        for (Path path : obsoleteRuns) {
+            Files.deleteIfExists(path);
+        }
+        obsoleteRuns.clear();
+    }
+
+    // Location tables of other generations and runs the snapshot does not list, left by a crash
+    private void deleteUnusedFiles() throws IOException {
+        Set<Path> used = new HashSet<>();
+        used.add(locationsPath(firstSegment));
+        runs.values().forEach(indexRuns -> indexRuns.forEach(run -> used.add(run.getPath())));
+        List<Path> unused;
+        try (Stream<Path> files = Files.list(directory)) {
+            unused = files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(LOCATIONS_PREFIX) && name.endsWith(LOCATIONS_SUFFIX)
+                        || name.startsWith(RUN_PREFIX) && name.endsWith(RUN_SUFFIX);
+            }).filter(path -> !used.contains(path)).toList();
+        }
+        for (Path path : unused) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private static boolean exists(LocationTable table, long id) {
+        try {
+            return table.get(id) != null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static <T> Stream<T> stream(Iterator<T> iterator) {
+        Iterable<T> iterable = () -> iterator;
+        return StreamSupport.stream(iterable.spliterator(), false);
+    }
+
+    private static List<String> indexValues(Index index, DocumentSection section) {
+        List<String> values = new ArrayList<>(index.keys.length);
+        for (Item item : section.getItems()) {
+            for (String key : index.keys) {
+                if (key.equals(item.getKey()) && !item.getValue().isEmpty()) {
+                    String value = indexValue(index, item.getValue());
+                    if (value != null && !values.contains(value)) {
+                        values.add(value);
+                    }
+                }
+            }
+        }
+        return values;
+    }
+
+    // Dates dd.MM.yyyy are indexed as yyyyMMdd so that ranges follow calendar order
+    private static String indexValue(Index index, String value) {
+        if (index != Index.DATE) {
+            return value;
+        }
+        if (value.length() != 10 || value.charAt(2) != '.' || value.charAt(5) != '.') {
+            return value;
+        }
+        return value.substring(6) + value.substring(3, 5) + value.substring(0, 2);
+    }
+
+    private static String dateKey(LocalDate date) {
+        return String.format("%04d%02d%02d", date.getYear(), date.getMonthValue(), date.getDayOfMonth());
+    }
+
+    private Path segmentPath(int number) {
+        return directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    private Path locationsPath(int generation) {
+        return directory.resolve(String.format("%s%06d%s", LOCATIONS_PREFIX, generation, LOCATIONS_SUFFIX));
+    }
+
+    private Path runPath(Index index) {
+        return directory.resolve(String.format("%s%s-%06d%s", RUN_PREFIX, index.name().toLowerCase(), nextRun++, RUN_SUFFIX));
+    }
+
+    private void closeRuns() throws IOException {
+        for (List<IndexRun> indexRuns : runs.values()) {
+            for (IndexRun run : indexRuns) {
+                run.close();
+            }
+            indexRuns.clear();
+        }
+    }
+
+    private void closeAll() throws IOException {
+        IOException failure = null;
+        List<Closeable> files = new ArrayList<>(segments.values());
+        runs.values().forEach(files::addAll);
+        if (locations != null) {
+            files.add(locations);
+        }
+        for (Closeable file : files) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        segments.clear();
+        runs.values().forEach(List::clear);
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // Snapshot: header, checkpoint, counters and the run files of every index, followed by their CRC32
+    private void writeSnapshot() throws IOException {
+        Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream raw = Channels.newOutputStream(channel);
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(raw), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeInt(firstSegment);
+            out.writeInt(activeNumber);
+            out.writeLong(activeSize);
+            out.writeLong(nextId);
+            out.writeLong(size);
+            out.writeInt(nextRun);
+            for (Index index : Index.values()) {
+                out.writeInt(runs.get(index).size());
+                for (IndexRun run : runs.get(index)) {
+                    out.writeUTF(run.getPath().getFileName().toString());
+                }
+            }
+            out.writeInt((int) checked.getChecksum().getValue());
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, directory.resolve(SNAPSHOT_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Returns the checkpoint to replay from, or null when the indexes must be rebuilt
+    private Location readSnapshot() {
+        try (InputStream raw = Files.newInputStream(directory.resolve(SNAPSHOT_FILE))) {
+            CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(raw), new CRC32());
+            DataInputStream in = new DataInputStream(checked);
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                return null;
+            }
+            int first = in.readInt();
+            Location checkpoint = new Location(in.readInt(), in.readLong());
+            long next = in.readLong();
+            long count = in.readLong();
+            int run = in.readInt();
+            Map<Index, List<String>> files = new EnumMap<>(Index.class);
+            for (Index index : Index.values()) {
+                List<String> names = new ArrayList<>();
+                for (int i = in.readInt(); i > 0; i--) {
+                    names.add(in.readUTF());
+                }
+                files.put(index, names);
+            }
+            int expected = (int) checked.getChecksum().getValue();
+            if (in.readInt() != expected) {
+                return null;
+            }
+            FileChannel segment = segments.get(checkpoint.segment());
+            if (segment == null || segment.size() < checkpoint.offset() || !Files.exists(locationsPath(first))) {
+                return null;
+            }
+            for (Index index : Index.values()) {
+                for (String name : files.get(index)) {
+                    runs.get(index).add(IndexRun.open(directory.resolve(name)));
+                }
+            }
+            firstSegment = first;
+            nextId = next;
+            size = count;
+            nextRun = run;
+            return checkpoint;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            return null; // unreadable snapshot or index run, the segments are the source of truth
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.github.nikolayill.store;
+
+import com.github.nikolayill.dto.DocumentSection;
+import com.github.nikolayill.dto.Item;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * View of a section record in an {@link OffHeapSectionStore}. Accessors mirror
+ * {@link DocumentSection}; values are decoded from the off-heap bytes on every call.
+ */
+public class StoredSection {
+    private static final int HEADER_SIZE = 6;
+    private static final int ITEM_HEADER_SIZE = 6;
+
+    private final OffHeapSectionStore store;
+    private final ByteBuffer chunk;
+    private final int position;
+
+    StoredSection(OffHeapSectionStore store, ByteBuffer chunk, int position) {
+        this.store = store;
+        this.chunk = chunk;
+        this.position = position;
+    }
+
+    public String getName() {
+        return store.decode(chunk.getChar(position));
+    }
+
+    // Alias for compatibility with DocumentSection
+    public String getSectionName() {
+        return getName();
+    }
+
+    public int getItemCount() {
+        return chunk.getInt(position + 2);
+    }
+
+    /**
+     * @return Value of the first item with the given key, or null
+     */
+    public String getValue(String key) {
+        int code = store.lookup(key);
+        if (code < 0) {
+            return null;
+        }
+        int count = getItemCount();
+        int p = position + HEADER_SIZE;
+        for (int i = 0; i < count; i++) {
+            int length = chunk.getInt(p + 2);
+            if (chunk.getChar(p) == code) {
+                return string(p + ITEM_HEADER_SIZE, length);
+            }
+            p += ITEM_HEADER_SIZE + length;
+        }
+        return null;
+    }
+
+    public List<Item> getItems() {
+        int count = getItemCount();
+        List<Item> items = new ArrayList<>(count);
+        int p = position + HEADER_SIZE;
+        for (int i = 0; i < count; i++) {
+            int length = chunk.getInt(p + 2);
+            Item item = new Item();
+            item.setKey(store.decode(chunk.getChar(p)));
+            item.setValue(string(p + ITEM_HEADER_SIZE, length));
+            items.add(item);
+            p += ITEM_HEADER_SIZE + length;
+        }
+        return items;
+    }
+
+    /**
+     * Copy the section back onto the heap
+     */
+    public DocumentSection toDocumentSection() {
+        DocumentSection section = new DocumentSection();
+        section.setSectionName(getName());
+        section.setItems(getItems());
+        return section;
+    }
+
+    private String string(int offset, int length) {
+        byte[] bytes = new byte[length];
+        chunk.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.nikolayill.validation;
+
+/**
+ * Value formats used by the 1C bank exchange format. Checks are hand-written
+ * char loops so they can run for every item without regex overhead.
+ */
+public enum FieldFormat {
+    /** Decimal amount with an optional fraction of up to two digits after a dot or a comma, e.g. 1500.25 */
+    AMOUNT {
+        @Override
+        public boolean matches(String value) {
+            int length = value.length();
+            int dot = value.indexOf('.');
+            if (dot < 0) {
+                dot = value.indexOf(',');
+            }
+            int integerEnd = dot < 0 ? length : dot;
+            if (integerEnd == 0 || !allDigits(value, 0, integerEnd)) {
+                return false;
+            }
+            return dot < 0 || (length - dot - 1 >= 1 && length - dot - 1 <= 2 && allDigits(value, dot + 1, length));
+        }
+    },
+    /** Date as dd.MM.yyyy */
+    DATE {
+        @Override
+        public boolean matches(String value) {
+            if (value.length() != 10 || value.charAt(2) != '.' || value.charAt(5) != '.'
+                    || !allDigits(value, 0, 2) || !allDigits(value, 3, 5) || !allDigits(value, 6, 10)) {
+                return false;
+            }
+            int day = (value.charAt(0) - '0') * 10 + (value.charAt(1) - '0');
+            int month = (value.charAt(3) - '0') * 10 + (value.charAt(4) - '0');
+            return day >= 1 && day <= 31 && month >= 1 && month <= 12;
+        }
+    },
+    /** Settlement account number, 20 digits */
+    ACCOUNT {
+        @Override
+        public boolean matches(String value) {
+            return value.length() == 20 && allDigits(value, 0, 20);
+        }
+    },
+    /** Taxpayer number, 10 digits for organizations or 12 for individuals */
+    INN {
+        @Override
+        public boolean matches(String value) {
+            return (value.length() == 10 || value.length() == 12) && allDigits(value, 0, value.length());
+        }
+    };
+
+    public abstract boolean matches(String value);
+
+    private static boolean allDigits(String value, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,28 @@
+package com.github.nikolayill.validation;
+
+/**
+ * Declarative rule for one key of a document section
+ */
+public class FieldRule {
+    private final String key;
+    private final boolean required;
+    private final FieldFormat format;
+
+    public FieldRule(String key, boolean required, FieldFormat format) {
+        this.key = key;
+        this.required = required;
+        this.format = format;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public boolean isRequired() {
+        return required;
+    }
+
+    public FieldFormat getFormat() {
+        return format;
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.nikolayill.validation;
+
+import java.util.*;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Validation rules per section name, compiled once into slot tables so that checking
+ * an item costs a single hash lookup and checking a section end a single mask compare.
+ * A profile is immutable and can be shared between parsers.
+ */
+public class ValidationProfile {
+    // Required keys are tracked in a long bit mask
+    static final int MAX_FIELDS_PER_SECTION = 64;
+
+    private final Map<String, CompiledSection> sections;
+
+    private ValidationProfile(Map<String, CompiledSection> sections) {
+        this.sections = sections;
+    }
+
+    public static ValidationProfile compile(Map<String, ? extends Collection<FieldRule>> rulesBySection) {
+        Map<String, CompiledSection> compiled = new HashMap<>();
+        rulesBySection.forEach((sectionName, rules) -> compiled.put(sectionName, new CompiledSection(rules)));
+        return new ValidationProfile(compiled);
+    }
+
+    /**
+     * Start validating one parse
+     * @param lineOfIndex Resolves an input index to its line number, only called for violations
+     */
+    public ValidationSession newSession(IntUnaryOperator lineOfIndex) {
+        return new ValidationSession(this, lineOfIndex);
+    }
+
+    CompiledSection sectionRules(String sectionName) {
+        return sections.get(sectionName);
+    }
+
+    static class CompiledSection {
+        final Map<String, Integer> slots = new HashMap<>();
+        final String[] keys;
+        final FieldFormat[] formats;
+        final long requiredMask;
+
+        CompiledSection(Collection<FieldRule> rules) {
+            if (rules.size() > MAX_FIELDS_PER_SECTION) {
+                throw new IllegalArgumentException("At most " + MAX_FIELDS_PER_SECTION + " fields per section are supported");
+            }
+            keys = new String[rules.size()];
+            formats = new FieldFormat[rules.size()];
+            long mask = 0;
+            int slot = 0;
+            for (FieldRule rule : rules) {
+                if (slots.putIfAbsent(rule.getKey(), slot) != null) {
+                    throw new IllegalArgumentException("Duplicate rule for key " + rule.getKey());
+                }
+                keys[slot] = rule.getKey();
+                formats[slot] = rule.getFormat();
+                if (rule.isRequired()) {
+                    mask |= 1L << slot;
+                }
+                slot++;
+            }
+            requiredMask = mask;
+        }
+    }
+}
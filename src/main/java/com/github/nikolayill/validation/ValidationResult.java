@@ -0,0 +1,27 @@
+package com.github.nikolayill.validation;
+
+import com.github.nikolayill.dto.Document;
+
+import java.util.List;
+
+public class ValidationResult {
+    private final Document document;
+    private final List<Violation> violations;
+
+    public ValidationResult(Document document, List<Violation> violations) {
+        this.document = document;
+        this.violations = violations;
+    }
+
+    public Document getDocument() {
+        return document;
+    }
+
+    public List<Violation> getViolations() {
+        return violations;
+    }
+
+    public boolean isValid() {
+        return violations.isEmpty();
+    }
+}
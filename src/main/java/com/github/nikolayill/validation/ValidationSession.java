@@ -0,0 +1,67 @@
+package com.github.nikolayill.validation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Per-parse validation state, fed by the parser while it builds each document section.
+ * Not thread-safe: use one session per parse.
+ */
+public class ValidationSession {
+    private final ValidationProfile profile;
+    private final IntUnaryOperator lineOfIndex;
+    private final List<Violation> violations = new ArrayList<>();
+
+    private ValidationProfile.CompiledSection current;
+    private String sectionName;
+    private int sectionIndex;
+    private long seen;
+
+    ValidationSession(ValidationProfile profile, IntUnaryOperator lineOfIndex) {
+        this.profile = profile;
+        this.lineOfIndex = lineOfIndex;
+    }
+
+    public void startSection(String name, int index) {
+        current = profile.sectionRules(name);
+        sectionName = name;
+        sectionIndex = index;
+        seen = 0;
+    }
+
+    public void item(String key, String value, int index) {
+        if (current == null) {
+            return;
+        }
+        Integer slot = current.slots.get(key);
+        if (slot == null || value.isBlank()) {
+            return; // a blank value counts as missing
+        }
+        seen |= 1L << slot;
+        FieldFormat format = current.formats[slot];
+        if (format != null && !format.matches(value)) {
+            violations.add(new Violation(lineOfIndex.applyAsInt(index), sectionName, key,
+                    "Invalid " + format + " value '" + value + "' for " + key));
+        }
+    }
+
+    public void endSection() {
+        if (current == null) {
+            return;
+        }
+        long missing = current.requiredMask & ~seen;
+        while (missing != 0) {
+            int slot = Long.numberOfTrailingZeros(missing);
+            String key = current.keys[slot];
+            violations.add(new Violation(lineOfIndex.applyAsInt(sectionIndex), sectionName, key,
+                    "Missing required field " + key));
+            missing &= missing - 1;
+        }
+        current = null;
+    }
+
+    public List<Violation> getViolations() {
+        return violations;
+    }
+}
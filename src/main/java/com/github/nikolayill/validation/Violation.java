@@ -0,0 +1,36 @@
+package com.github.nikolayill.validation;
+
+public class Violation {
+    private final int line;
+    private final String sectionName;
+    private final String key;
+    private final String message;
+
+    public Violation(int line, String sectionName, String key, String message) {
+        this.line = line;
+        this.sectionName = sectionName;
+        this.key = key;
+        this.message = message;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public String getSectionName() {
+        return sectionName;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return "line " + line + ", " + sectionName + ": " + message;
+    }
+}
@@ -0,0 +1,147 @@
+package com.github.nikolayill.dedup;
+
+import com.github.nikolayill.dto.Document;
+import com.github.nikolayill.dto.DocumentSection;
+import com.github.nikolayill.dto.Item;
+import com.github.nikolayill.parser.stream.DocumentCollector;
+import com.github.nikolayill.parser.stream.StreamingDocumentParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DedupTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static DocumentSection section(String name, String... keyValues) {
+        DocumentSection section = new DocumentSection();
+        section.setName(name);
+        for (int i = 0; i < keyValues.length; i += 2) {
+            Item item = new Item();
+            item.setKey(keyValues[i]);
+            item.setValue(keyValues[i + 1]);
+            section.getItems().add(item);
+        }
+        return section;
+    }
+
+    private static String statement(int firstNumber, int lastNumber) {
+        StringBuilder content = new StringBuilder("1CClientBankExchange\nСекцияРасчСчет\n"
+                + "РасчСчет=40702810000000000001\nКонецРасчСчет\n");
+        for (int i = firstNumber; i <= lastNumber; i++) {
+            content.append("СекцияДокумент=Платежное поручение\nНомер=").append(i)
+                    .append("\nСумма=").append(i * 100).append(".00\nКонецДокумента\n");
+        }
+        return content.append("КонецФайла\n").toString();
+    }
+
+    @Test
+    public void testFingerprintIsCanonical() {
+        SectionFingerprint fingerprint = SectionFingerprint.of(
+                section("Платежное поручение", "Номер", "1", "НазначениеПлатежа", "Оплата по  счету"));
+
+        assertEquals(fingerprint, SectionFingerprint.of(
+                section("Платежное поручение", "НазначениеПлатежа", " Оплата\tпо счету ", "Номер", "1")));
+        assertNotEquals(fingerprint, SectionFingerprint.of(
+                section("Платежное поручение", "Номер", "1", "НазначениеПлатежа", "Оплата по счёту")));
+        assertNotEquals(fingerprint, SectionFingerprint.of(
+                section("Платежное требование", "Номер", "1", "НазначениеПлатежа", "Оплата по счету")));
+        assertNotEquals(fingerprint, SectionFingerprint.of(
+                section("Платежное поручение", "Номер", "1", "НазначениеПлатежа", "Оплата по счету", "Номер", "1")));
+        assertNotEquals(SectionFingerprint.of(section("A", "ab", "c")), SectionFingerprint.of(section("A", "a", "bc")));
+        assertEquals(fingerprint, SectionFingerprint.parse(fingerprint.toString()));
+    }
+
+    @Test
+    public void testSeenSetPersistsAndGrows() throws Exception {
+        Path file = tempDir.resolve("seen.bin");
+        try (SeenSet seen = new SeenSet(file)) {
+            for (long i = 1; i <= 100_000; i++) {
+                assertTrue(seen.add(new SectionFingerprint(i * 31, i)));
+            }
+            assertFalse(seen.add(new SectionFingerprint(31, 1)));
+            assertEquals(100_000, seen.size());
+        }
+
+        try (SeenSet seen = new SeenSet(file)) {
+            assertEquals(100_000, seen.size());
+            assertTrue(seen.contains(new SectionFingerprint(31 * 99_999L, 99_999)));
+            assertFalse(seen.contains(new SectionFingerprint(1, 1)));
+            assertFalse(seen.contains(new SectionFingerprint(0, 0)));
+            assertThrows(IllegalArgumentException.class, () -> seen.add(new SectionFingerprint(0, 0)));
+            assertEquals(100_000, seen.size());
+        }
+
+        // a file that was not closed cleanly is rescanned, whatever count it holds
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, 7), 4);
+            channel.write(ByteBuffer.allocate(4), 16);
+        }
+        try (SeenSet seen = new SeenSet(file)) {
+            assertEquals(100_000, seen.size());
+        }
+    }
+
+    @Test
+    public void testFullTableDoesNotHang() throws Exception {
+        Path file = tempDir.resolve("seen.bin");
+        new SeenSet(file).close();
+        long capacity = 1 << 16;
+        // every slot taken behind a count of one and a clean flag
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ByteBuffer slots = ByteBuffer.allocate((int) capacity * 16);
+            while (slots.hasRemaining()) {
+                slots.put((byte) 1);
+            }
+            channel.write(slots.flip(), 32);
+            channel.write(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, 1), 4);
+        }
+        try (SeenSet seen = new SeenSet(file)) {
+            assertThrows(IllegalStateException.class, () -> seen.contains(new SectionFingerprint(2, 2)));
+        }
+
+        // rescanned when not closed cleanly, then grown to have room again
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4), 16);
+        }
+        try (SeenSet seen = new SeenSet(file)) {
+            assertEquals(capacity, seen.size());
+            assertTrue(seen.add(new SectionFingerprint(2, 2)));
+        }
+    }
+
+    @Test
+    public void testRedeliveryParsesOnlyNewSections() throws Exception {
+        StreamingDocumentParser parser = new StreamingDocumentParser();
+        try (SeenSet seen = new SeenSet(tempDir.resolve("seen.bin"))) {
+            DocumentCollector first = new DocumentCollector();
+            DedupHandler firstDay = new DedupHandler(first, seen);
+            parser.parse(statement(1, 3), firstDay);
+            assertEquals(3, first.getDocument().getSections().size());
+            assertEquals(3, firstDay.commit());
+
+            // cumulative re-delivery, not committed
+            DocumentCollector second = new DocumentCollector();
+            DedupHandler secondDay = new DedupHandler(second, seen);
+            parser.parse(statement(1, 5), secondDay);
+            Document document = second.getDocument();
+            assertEquals(List.of("4", "5"), document.getSections().stream()
+                    .map(section -> section.getItems().get(0).getValue()).toList());
+            assertEquals("40702810000000000001", document.getAccount().getItems().get(0).getValue());
+            assertEquals(3, secondDay.getSkippedCount());
+
+            DocumentCollector retry = new DocumentCollector();
+            parser.parse(statement(1, 5), new DedupHandler(retry, seen));
+            assertEquals(2, retry.getDocument().getSections().size());
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.github.nikolayill.dto.immutable;
+
+import com.github.nikolayill.dto.Document;
+import com.github.nikolayill.parser.ParboiledDocumentParserService;
+import com.github.nikolayill.parser.stream.ParseOptions;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ImmutableDocumentTest {
+
+    private static final String CONTENT = """
+        1CClientBankExchange
+        ВерсияФормата=1.02
+        Кодировка=Windows
+        СекцияРасчСчет
+        РасчСчет=40702810000000000001
+        НачальныйОстаток=100.00
+        КонецРасчСчет
+        СекцияДокумент=Платежное поручение
+        Номер=1
+        Сумма=10.00
+        КонецДокумента
+        СекцияДокумент=Банковский ордер
+        Номер=2
+        КонецДокумента
+        КонецФайла
+        """;
+
+    private final ParboiledDocumentParserService parserService = new ParboiledDocumentParserService();
+
+    @Test
+    public void testParseImmutableMatchesConversion() throws Exception {
+        ImmutableDocument parsed = parserService.parseImmutable(new StringReader(CONTENT), new ParseOptions());
+        ImmutableDocument converted = ImmutableDocument.of(parserService.parseFromString(CONTENT));
+
+        assertEquals(converted, parsed);
+        assertEquals(2, parsed.heading().size());
+        assertEquals("40702810000000000001", parsed.account().getValue("РасчСчет"));
+        assertEquals("Банковский ордер", parsed.sections().get(1).name());
+        assertEquals("10.00", parsed.sections().get(0).getValue("Сумма"));
+    }
+
+    @Test
+    public void testConversionSharesStrings() throws Exception {
+        Document document = parserService.parseFromString(CONTENT);
+
+        ImmutableDocument immutable = ImmutableDocument.of(document);
+
+        assertSame(document.getSections().get(0).getItems().get(1).getValue(),
+                immutable.sections().get(0).items().get(1).value());
+        assertSame(document.getSections().get(0).getName(), immutable.sections().get(0).name());
+    }
+
+    @Test
+    public void testListsAreUnmodifiable() throws Exception {
+        ImmutableDocument document = parserService.parseImmutable(new StringReader(CONTENT), new ParseOptions());
+
+        assertThrows(UnsupportedOperationException.class, () -> document.sections().clear());
+        assertThrows(UnsupportedOperationException.class,
+                () -> document.account().items().add(new ImmutableItem("БИК", "044525225")));
+        assertThrows(UnsupportedOperationException.class, () -> document.heading().remove(0));
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.nikolayill.dto.standard;
+
+import com.github.nikolayill.dto.Document;
+import com.github.nikolayill.parser.ParboiledDocumentParserService;
+import com.github.nikolayill.parser.stream.ParseOptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StandardSectionTest {
+
+    private static final String CONTENT = """
+        1CClientBankExchange
+        Кодировка=Windows
+        СекцияРасчСчет
+        РасчСчет=40702810000000000001
+        КонецРасчСчет
+        СекцияДокумент=Платежное поручение
+        Номер=17
+        Дата=05.02.2024
+        Сумма=1500,50
+        ПлательщикСчет=40702810000000000001
+        ПлательщикИНН=7701234567
+        ПолучательСчет=40702810000000000002
+        НазначениеПлатежа=Оплата по счету №5
+        ДатаСписано=
+        КодНазПлатежа=1
+        ИдентификаторПлатежа=abc
+        КонецДокумента
+        КонецФайла
+        """;
+
+    private final ParboiledDocumentParserService parserService = new ParboiledDocumentParserService();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testTypedGetters() throws Exception {
+        Path file = tempDir.resolve("statement.kl_to_1c");
+        Files.writeString(file, CONTENT);
+
+        List<StandardSection> sections = parserService.parseStandardSections(file, new ParseOptions());
+
+        assertEquals(1, sections.size());
+        StandardSection section = sections.get(0);
+        assertEquals("Платежное поручение", section.getName());
+        assertEquals("17", section.getNumber());
+        assertEquals(LocalDate.of(2024, 2, 5), section.getDate());
+        assertEquals(new BigDecimal("1500.50"), section.getAmount());
+        assertEquals("40702810000000000001", section.getPayerAccount());
+        assertEquals("7701234567", section.get(StandardKey.PAYER_INN));
+        assertEquals("40702810000000000002", section.getValue("ПолучательСчет"));
+        assertEquals("Оплата по счету №5", section.getPurpose());
+        assertNull(section.getWrittenOffDate());
+        assertNull(section.getPayee());
+        assertEquals(Map.of("КодНазПлатежа", "1", "ИдентификаторПлатежа", "abc"), section.getOverflow());
+        assertEquals("abc", section.getValue("ИдентификаторПлатежа"));
+        assertNull(section.getValue("Нет"));
+    }
+
+    @Test
+    public void testFromDocumentSection() throws Exception {
+        Document document = parserService.parseFromString(CONTENT, new ParseOptions());
+
+        StandardSection section = StandardSection.of(document.getSections().get(0));
+
+        assertEquals("17", section.getNumber());
+        assertEquals(2, section.getOverflow().size());
+    }
+
+    @Test
+    public void testKeyLookup() {
+        assertSame(StandardKey.AMOUNT, StandardKey.of("Сумма"));
+        assertNull(StandardKey.of("Сумма2"));
+        for (StandardKey key : StandardKey.values()) {
+            assertSame(key, StandardKey.of(key.key()));
+        }
+    }
+}
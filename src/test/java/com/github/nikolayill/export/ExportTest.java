@@ -0,0 +1,117 @@
+package com.github.nikolayill.export;
+
+import com.github.nikolayill.parser.ParboiledDocumentParserService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExportTest {
+
+    private static final String CONTENT = """
+        1CClientBankExchange
+        ДатаНачала=01.02.2024
+        СекцияРасчСчет
+        РасчСчет=40702810000000000001
+        КонецРасчСчет
+        СекцияДокумент=Платежное поручение
+        Номер=1
+        Сумма=100.00
+        НазначениеПлатежа=Оплата по счету "17", без НДС
+        КонецДокумента
+        СекцияДокумент=Банковский ордер
+        Номер=2
+        Ignored=value
+        КонецДокумента
+        КонецФайла
+        """;
+
+    private static final ColumnMapping MAPPING = new ColumnMapping()
+            .withHeadingColumn("ДатаНачала", "period_start")
+            .withAccountColumn("РасчСчет", "account")
+            .withSectionNameColumn("type")
+            .withSectionColumn("Номер", "number")
+            .withSectionColumn("Сумма", "amount")
+            .withSectionColumn("НазначениеПлатежа", "purpose");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testCsvExport() throws Exception {
+        Path input = Files.writeString(tempDir.resolve("statement.kl_to_1c"), CONTENT);
+        Path csv = tempDir.resolve("statement.csv");
+
+        long rows = new ParboiledDocumentParserService().exportCsv(input, csv, MAPPING);
+
+        assertEquals(2, rows);
+        List<String> lines = Files.readAllLines(csv);
+        assertEquals("period_start,account,type,number,amount,purpose", lines.get(0));
+        assertEquals("01.02.2024,40702810000000000001,Платежное поручение,1,100.00,\"Оплата по счету \"\"17\"\", без НДС\"", lines.get(1));
+        assertEquals("01.02.2024,40702810000000000001,Банковский ордер,2,,", lines.get(2));
+    }
+
+    @Test
+    public void testConsolidatedStatementRowsTakeTheirAccount() throws Exception {
+        Path input = Files.writeString(tempDir.resolve("statement.kl_to_1c"), """
+            1CClientBankExchange
+            СекцияРасчСчет
+            РасчСчет=40702810000000000001
+            НачальныйОстаток=100.00
+            КонецРасчСчет
+            СекцияРасчСчет
+            РасчСчет=40702810000000000002
+            НачальныйОстаток=200.00
+            КонецРасчСчет
+            СекцияДокумент=Платежное поручение
+            Номер=1
+            ПлательщикСчет=40702810000000000001
+            ПолучательСчет=40702810999999999999
+            КонецДокумента
+            СекцияДокумент=Платежное поручение
+            Номер=2
+            ПлательщикСчет=40702810999999999999
+            ПолучательСчет=40702810000000000002
+            КонецДокумента
+            СекцияДокумент=Платежное поручение
+            Номер=3
+            ПлательщикСчет=40702810999999999999
+            КонецДокумента
+            КонецФайла
+            """);
+        Path csv = tempDir.resolve("statement.csv");
+        ColumnMapping mapping = new ColumnMapping()
+                .withAccountColumn("НачальныйОстаток", "opening")
+                .withSectionColumn("Номер", "number");
+
+        assertEquals(3, new ParboiledDocumentParserService().exportCsv(input, csv, mapping));
+        assertEquals(List.of("opening,number", "100.00,1", "200.00,2", ",3"), Files.readAllLines(csv));
+    }
+
+    @Test
+    public void testColumnarExport() throws Exception {
+        Path input = Files.writeString(tempDir.resolve("statement.kl_to_1c"), CONTENT);
+        Path columns = tempDir.resolve("columns");
+
+        long rows = new ParboiledDocumentParserService().exportColumnar(input, columns, MAPPING);
+
+        assertEquals(2, rows);
+        assertEquals(List.of("period_start", "account", "type", "number", "amount", "purpose", "2"),
+                Files.readAllLines(columns.resolve(ColumnarExporter.SCHEMA_FILE)));
+        try (InputStream in = Files.newInputStream(ColumnarExporter.columnFile(columns, 4));
+             DataInputStream data = new DataInputStream(in)) {
+            byte[] first = new byte[data.readInt()];
+            data.readFully(first);
+            assertEquals("100.00", new String(first, StandardCharsets.UTF_8));
+            assertEquals(-1, data.readInt());
+            assertEquals(-1, data.read());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.github.nikolayill.export;
+
+import com.github.nikolayill.parser.stream.ParseOptions;
+import com.github.nikolayill.parser.stream.StreamingDocumentParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonExporterTest {
+
+    private static final String CONTENT = """
+        1CClientBankExchange
+        Отправитель=Бухгалтерия
+        СекцияРасчСчет
+        РасчСчет=40702810000000000001
+        КонецРасчСчет
+        СекцияДокумент=Платежное поручение
+        Номер=1
+        НазначениеПлатежа=Оплата "по счету" C:\\temp 😀
+        КонецДокумента
+        СекцияДокумент=Банковский ордер
+        Номер=2
+        КонецДокумента
+        КонецФайла
+        """;
+
+    @Test
+    public void testDocumentMode() throws Exception {
+        String json = export(JsonExporter.Mode.DOCUMENT, new ParseOptions());
+
+        assertEquals("{\"heading\":{\"Отправитель\":\"Бухгалтерия\"},"
+                + "\"accounts\":[{\"РасчСчет\":\"40702810000000000001\"}],"
+                + "\"sections\":[{\"name\":\"Платежное поручение\",\"items\":{\"Номер\":\"1\","
+                + "\"НазначениеПлатежа\":\"Оплата \\\"по счету\\\" C:\\\\temp 😀\"}},"
+                + "{\"name\":\"Банковский ордер\",\"items\":{\"Номер\":\"2\"}}]}", json);
+    }
+
+    @Test
+    public void testNdjsonMode() throws Exception {
+        String json = export(JsonExporter.Mode.NDJSON, new ParseOptions().withSectionProjection(List.of("Номер")));
+
+        String[] lines = json.split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("{\"heading\":{\"Отправитель\":\"Бухгалтерия\"},\"accounts\":[{\"РасчСчет\":\"40702810000000000001\"}]}", lines[0]);
+        assertEquals("{\"name\":\"Платежное поручение\",\"items\":{\"Номер\":\"1\"}}", lines[1]);
+        assertEquals("{\"name\":\"Банковский ордер\",\"items\":{\"Номер\":\"2\"}}", lines[2]);
+    }
+
+    private static String export(JsonExporter.Mode mode, ParseOptions options) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new StreamingDocumentParser(options).parse(CONTENT, new JsonExporter(out, mode));
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
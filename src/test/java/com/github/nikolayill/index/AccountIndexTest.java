@@ -0,0 +1,96 @@
+package com.github.nikolayill.index;
+
+import com.github.nikolayill.dto.Document;
+import com.github.nikolayill.dto.DocumentSection;
+import com.github.nikolayill.parser.ParboiledDocumentParserService;
+import com.github.nikolayill.parser.ResilientParseResult;
+import com.github.nikolayill.parser.stream.ParseOptions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccountIndexTest {
+
+    private static final String CONSOLIDATED = """
+        1CClientBankExchange
+        ВерсияФормата=1.02
+        СекцияРасчСчет
+        РасчСчет=40702810000000000001
+        НачальныйОстаток=100.00
+        КонецРасчСчет
+        СекцияРасчСчет
+        РасчСчет=40702810000000000002
+        НачальныйОстаток=200.00
+        КонецРасчСчет
+        СекцияДокумент=Платежное поручение
+        Номер=1
+        ПлательщикСчет=40702810000000000001
+        ПолучательСчет=40817810000000000099
+        КонецДокумента
+        СекцияДокумент=Платежное поручение
+        Номер=2
+        ПлательщикСчет=40702810000000000001
+        ПолучательСчет=40702810000000000002
+        КонецДокумента
+        СекцияДокумент=Платежное поручение
+        Номер=3
+        ПлательщикСчет=40817810000000000099
+        ПолучательСчет=40702810000000000002
+        КонецДокумента
+        КонецФайла
+        """;
+
+    private final ParboiledDocumentParserService parserService = new ParboiledDocumentParserService();
+
+    private static List<String> numbers(List<DocumentSection> sections) {
+        return sections.stream()
+                .map(section -> section.getItems().get(0).getValue())
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testParseMultipleAccountSections() throws Exception {
+        Document parsed = parserService.parseFromString(CONSOLIDATED);
+        Document streamed = parserService.parseFromString(CONSOLIDATED, new ParseOptions());
+        ResilientParseResult resilient = parserService.parseResilient(CONSOLIDATED);
+
+        for (Document document : List.of(parsed, streamed, resilient.getDocument())) {
+            assertEquals(2, document.getAccounts().size());
+            assertSame(document.getAccounts().get(0), document.getAccount());
+            assertEquals("200.00", document.getAccounts().get(1).getItems().get(1).getValue());
+            assertEquals(3, document.getSections().size());
+        }
+        assertTrue(resilient.isComplete());
+    }
+
+    @Test
+    public void testIndexDebitsAndCredits() throws Exception {
+        AccountIndex index = AccountIndex.of(parserService.parseFromString(CONSOLIDATED, new ParseOptions()));
+
+        assertEquals(List.of("40702810000000000001", "40702810000000000002"), List.copyOf(index.getAccountNumbers()));
+
+        AccountIndex.Entry first = index.get("40702810000000000001");
+        assertEquals("100.00", first.getAccount().getItems().get(1).getValue());
+        assertEquals(List.of("1", "2"), numbers(first.getDebits()));
+        assertTrue(first.getCredits().isEmpty());
+
+        AccountIndex.Entry second = index.get("40702810000000000002");
+        assertTrue(second.getDebits().isEmpty());
+        assertEquals(List.of("2", "3"), numbers(second.getCredits()));
+
+        assertNull(index.get("40817810000000000099"));
+    }
+
+    @Test
+    public void testAccountSectionAfterDocumentSectionIsRejected() {
+        String content = CONSOLIDATED.replace("КонецФайла", "СекцияРасчСчет\nРасчСчет=1\nКонецРасчСчет\nКонецФайла");
+
+        assertThrows(ParboiledDocumentParserService.ParseException.class,
+                () -> parserService.parseFromString(content, new ParseOptions()));
+        assertThrows(ParboiledDocumentParserService.ParseException.class,
+                () -> parserService.parseFromString(content));
+    }
+}
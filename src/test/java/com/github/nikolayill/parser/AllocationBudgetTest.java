@@ -0,0 +1,154 @@
+package com.github.nikolayill.parser;
+
+import com.github.nikolayill.dto.Document;
+import com.github.nikolayill.parser.stream.ParseContext;
+import com.github.nikolayill.parser.stream.ParseOptions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Allocation regression suite, run with {@code mvn test -P allocation-budgets}. Parses reference
+ * corpora through the service and fails when the bytes allocated per document exceed the budgets
+ * in {@code allocation-budgets.properties}. After an intended change, update the budgets from the
+ * printed table.
+ */
+@Tag("allocation")
+public class AllocationBudgetTest {
+    private static final int WARMUP_RUNS = 5;
+    private static final int MEASURED_RUNS = 5;
+
+    private final ParboiledDocumentParserService parserService = new ParboiledDocumentParserService();
+    private final ParseContext context = new ParseContext();
+
+    @FunctionalInterface
+    private interface Scenario {
+        Document parse(String content, byte[] bytes) throws Exception;
+    }
+
+    private Map<String, Scenario> scenarios() {
+        Map<String, Scenario> scenarios = new LinkedHashMap<>();
+        scenarios.put("parboiled", (content, bytes) -> parserService.parseFromString(content));
+        scenarios.put("streaming-string", (content, bytes) -> parserService.parseFromString(content, new ParseOptions()));
+        scenarios.put("streaming-reader", (content, bytes) -> parserService.parse(new StringReader(content), new ParseOptions()));
+        scenarios.put("streaming-bytes", (content, bytes) -> parserService.parse(bytes, StandardCharsets.UTF_8, new ParseOptions()));
+        scenarios.put("streaming-context", (content, bytes) -> parserService.parse(new StringReader(content), new ParseOptions(), context));
+        return scenarios;
+    }
+
+    private static Map<String, String> corpora() throws Exception {
+        Map<String, String> corpora = new LinkedHashMap<>();
+        corpora.put("example", Files.readString(Path.of("example.kl_to_1c")));
+        corpora.put("statement-200", statement(200));
+        return corpora;
+    }
+
+    // Deterministic statement shaped like a bank export: 14 items per payment order
+    private static String statement(int sections) {
+        StringBuilder content = new StringBuilder("""
+            1CClientBankExchange
+            ВерсияФормата=1.03
+            Кодировка=Windows
+            Отправитель=Бухгалтерия предприятия
+            ДатаНачала=01.01.2024
+            ДатаКонца=31.01.2024
+            СекцияРасчСчет
+            ДатаНачала=01.01.2024
+            ДатаКонца=31.01.2024
+            РасчСчет=40702810000000000001
+            НачальныйОстаток=1000000.00
+            КонецРасчСчет
+            """);
+        for (int i = 1; i <= sections; i++) {
+            content.append("СекцияДокумент=Платежное поручение\n")
+                    .append("Номер=").append(i).append('\n')
+                    .append("Дата=").append(String.format("%02d.01.2024", i % 28 + 1)).append('\n')
+                    .append("Сумма=").append(i * 137 % 100000).append(".00\n")
+                    .append("ПлательщикСчет=40702810000000000001\n")
+                    .append("Плательщик=ООО \"Ромашка\"\n")
+                    .append("ПлательщикИНН=7701234567\n")
+                    .append("ПлательщикКПП=770101001\n")
+                    .append("ПолучательСчет=4070281000000000").append(String.format("%04d", i % 50)).append('\n')
+                    .append("Получатель=ООО \"Поставщик ").append(i % 50).append("\"\n")
+                    .append("ПолучательИНН=77").append(String.format("%08d", i % 50)).append('\n')
+                    .append("ВидПлатежа=электронно\n")
+                    .append("ВидОплаты=01\n")
+                    .append("Очередность=5\n")
+                    .append("НазначениеПлатежа=Оплата по счету №").append(i).append(" без НДС\n")
+                    .append("КонецДокумента\n");
+        }
+        return content.append("КонецФайла\n").toString();
+    }
+
+    @Test
+    public void testAllocationWithinBudgets() throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported(), "thread allocation accounting not supported");
+        threads.setThreadAllocatedMemoryEnabled(true);
+        long threadId = Thread.currentThread().getId();
+
+        Properties budgets = new Properties();
+        try (InputStream in = getClass().getResourceAsStream("/allocation-budgets.properties")) {
+            assertNotNull(in, "allocation-budgets.properties is missing");
+            budgets.load(in);
+        }
+
+        List<String> failures = new ArrayList<>();
+        StringBuilder table = new StringBuilder(String.format("%-15s %-17s %7s %14s %10s %14s %5s%n",
+                "corpus", "scenario", "items", "bytes/doc", "bytes/item", "budget", "used"));
+        for (Map.Entry<String, String> corpus : corpora().entrySet()) {
+            String content = corpus.getValue();
+            byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+            for (Map.Entry<String, Scenario> scenario : scenarios().entrySet()) {
+                Document document = null;
+                for (int i = 0; i < WARMUP_RUNS; i++) {
+                    document = scenario.getValue().parse(content, bytes);
+                }
+                // the smallest run is the least disturbed by JIT compilation and other noise
+                long allocated = Long.MAX_VALUE;
+                for (int i = 0; i < MEASURED_RUNS; i++) {
+                    long before = threads.getThreadAllocatedBytes(threadId);
+                    document = scenario.getValue().parse(content, bytes);
+                    allocated = Math.min(allocated, threads.getThreadAllocatedBytes(threadId) - before);
+                }
+                int items = itemCount(document);
+
+                String key = corpus.getKey() + "." + scenario.getKey();
+                String budgetValue = budgets.getProperty(key);
+                long budget = budgetValue == null ? -1 : Long.parseLong(budgetValue.trim());
+                table.append(String.format("%-15s %-17s %7d %14d %10d %14s %5s%n",
+                        corpus.getKey(), scenario.getKey(), items, allocated, allocated / Math.max(items, 1),
+                        budget < 0 ? "-" : Long.toString(budget),
+                        budget <= 0 ? "-" : allocated * 100 / budget + "%"));
+                if (budget < 0) {
+                    failures.add(key + ": no budget");
+                } else if (allocated > budget) {
+                    failures.add(key + ": " + allocated + " bytes allocated, budget " + budget);
+                }
+            }
+        }
+        System.out.print(table);
+        assertTrue(failures.isEmpty(), String.join("\n", failures));
+    }
+
+    private static int itemCount(Document document) {
+        int items = document.getHeading().size();
+        items += document.getAccounts().stream().mapToInt(account -> account.getItems().size()).sum();
+        items += document.getSections().stream().mapToInt(section -> section.getItems().size()).sum();
+        return items;
+    }
+}
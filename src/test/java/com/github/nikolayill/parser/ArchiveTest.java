@@ -0,0 +1,102 @@
+package com.github.nikolayill.parser;
+
+import com.github.nikolayill.dto.Document;
+import com.github.nikolayill.parser.stream.ParseOptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ArchiveTest {
+
+    private final ParboiledDocumentParserService parserService = new ParboiledDocumentParserService();
+
+    @TempDir
+    Path tempDir;
+
+    private static String statement(String account, int sections) {
+        StringBuilder content = new StringBuilder("""
+            1CClientBankExchange
+            Кодировка=Windows
+            СекцияРасчСчет
+            """);
+        content.append("РасчСчет=").append(account).append('\n');
+        content.append("КонецРасчСчет\n");
+        for (int i = 1; i <= sections; i++) {
+            content.append("СекцияДокумент=Платежное поручение\n");
+            content.append("Номер=").append(i).append('\n');
+            content.append("КонецДокумента\n");
+        }
+        return content.append("КонецФайла\n").toString();
+    }
+
+    private static byte[] gzip(String content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    @Test
+    public void testParseGzipFile() throws Exception {
+        Path file = tempDir.resolve("statement.kl_to_1c.gz");
+        Files.write(file, gzip(statement("40702810000000000001", 3)));
+
+        Document parsed = parserService.parseFromFile(file);
+        Document streamed = parserService.parseFromFile(file, new ParseOptions());
+
+        assertEquals(3, parsed.getSections().size());
+        assertEquals(3, streamed.getSections().size());
+        assertEquals("40702810000000000001", streamed.getAccount().getItems().get(0).getValue());
+    }
+
+    @Test
+    public void testParseZipEntries() throws Exception {
+        Path zip = tempDir.resolve("statements.zip");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zip))) {
+            out.putNextEntry(new ZipEntry("2024-01/"));
+            out.putNextEntry(new ZipEntry("2024-01/first.kl_to_1c"));
+            out.write(statement("40702810000000000001", 1).getBytes(StandardCharsets.UTF_8));
+            out.putNextEntry(new ZipEntry("2024-01/second.kl_to_1c"));
+            out.write(statement("40702810000000000002", 2).getBytes(StandardCharsets.UTF_8));
+            out.putNextEntry(new ZipEntry("2024-01/third.kl_to_1c.gz"));
+            out.write(gzip(statement("40702810000000000003", 3)));
+        }
+
+        Map<String, Document> documents = parserService.parseZip(zip);
+
+        assertEquals(List.of("2024-01/first.kl_to_1c", "2024-01/second.kl_to_1c", "2024-01/third.kl_to_1c.gz"),
+                List.copyOf(documents.keySet()));
+        assertEquals(2, documents.get("2024-01/second.kl_to_1c").getSections().size());
+        assertEquals("40702810000000000003",
+                documents.get("2024-01/third.kl_to_1c.gz").getAccount().getItems().get(0).getValue());
+    }
+
+    @Test
+    public void testZipEntryErrorNamesEntry() throws Exception {
+        Path zip = tempDir.resolve("broken.zip");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zip))) {
+            out.putNextEntry(new ZipEntry("good.kl_to_1c"));
+            out.write(statement("40702810000000000001", 1).getBytes(StandardCharsets.UTF_8));
+            out.putNextEntry(new ZipEntry("bad.kl_to_1c"));
+            out.write("1CClientBankExchange\nКонецФайла\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        ParboiledDocumentParserService.ParseException e = assertThrows(
+                ParboiledDocumentParserService.ParseException.class, () -> parserService.parseZip(zip));
+        assertTrue(e.getMessage().startsWith("bad.kl_to_1c: "), e.getMessage());
+    }
+}
@@ -0,0 +1,100 @@
+package com.github.nikolayill.parser;
+
+import com.github.nikolayill.dto.Document;
+import com.github.nikolayill.parser.stream.ParseOptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncParseTest {
+
+    private final ParboiledDocumentParserService parserService = new ParboiledDocumentParserService();
+
+    @TempDir
+    Path tempDir;
+
+    private Path statement(String name, int sections) throws Exception {
+        StringBuilder content = new StringBuilder("""
+            1CClientBankExchange
+            СекцияРасчСчет
+            РасчСчет=40702810000000000001
+            КонецРасчСчет
+            """);
+        for (int i = 0; i < sections; i++) {
+            content.append("СекцияДокумент=Платежное поручение\nНомер=").append(i).append("\nКонецДокумента\n");
+        }
+        content.append("КонецФайла\n");
+        return Files.writeString(tempDir.resolve(name), content);
+    }
+
+    @Test
+    public void testParseAsync() throws Exception {
+        Path file = statement("statement.kl_to_1c", 1000);
+
+        Document document = parserService.parseAsync(file).get(10, TimeUnit.SECONDS);
+
+        assertEquals(1000, document.getSections().size());
+        assertEquals("999", document.getSections().get(999).getItems().get(0).getValue());
+    }
+
+    @Test
+    public void testParseAllAsyncKeepsOrder() throws Exception {
+        List<Path> files = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            files.add(statement("statement-" + i + ".kl_to_1c", i));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Document> documents = parserService.parseAllAsync(files, new ParseOptions(), executor)
+                    .get(10, TimeUnit.SECONDS);
+
+            assertEquals(20, documents.size());
+            for (int i = 0; i < 20; i++) {
+                assertEquals(i + 1, documents.get(i).getSections().size());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testParseAllAsyncWithOneFileInFlight() throws Exception {
+        List<Path> files = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            files.add(statement("statement-" + i + ".kl_to_1c", i));
+        }
+
+        List<Document> documents = parserService.parseAllAsync(files, new ParseOptions(), Runnable::run, 1)
+                .get(10, TimeUnit.SECONDS);
+
+        assertEquals(List.of(1, 2, 3, 4, 5), documents.stream().map(document -> document.getSections().size()).toList());
+        assertTrue(parserService.parseAllAsync(List.of(), new ParseOptions(), Runnable::run, 1).get().isEmpty());
+        assertThrows(IllegalArgumentException.class,
+                () -> parserService.parseAllAsync(files, new ParseOptions(), Runnable::run, 0));
+    }
+
+    @Test
+    public void testFailuresCompleteExceptionally() throws Exception {
+        Path broken = Files.writeString(tempDir.resolve("broken.kl_to_1c"), "1CClientBankExchange\nКонецФайла\n");
+        Path missing = tempDir.resolve("missing.kl_to_1c");
+
+        ExecutionException parseError = assertThrows(ExecutionException.class,
+                () -> parserService.parseAsync(broken).get(10, TimeUnit.SECONDS));
+        assertInstanceOf(ParboiledDocumentParserService.ParseException.class, parseError.getCause());
+
+        ExecutionException ioError = assertThrows(ExecutionException.class,
+                () -> parserService.parseAllAsync(List.of(statement("ok.kl_to_1c", 1), missing)).get(10, TimeUnit.SECONDS));
+        assertInstanceOf(NoSuchFileException.class, ioError.getCause());
+    }
+}
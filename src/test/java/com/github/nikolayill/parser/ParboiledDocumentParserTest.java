@@ -1,8 +1,10 @@
 package com.github.nikolayill.parser;
 
 import com.github.nikolayill.dto.*;
+import com.github.nikolayill.parser.stream.ParseOptions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.parboiled.parserunners.ProfilingParseRunner;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -176,4 +178,38 @@ public class ParboiledDocumentParserTest {
         assertEquals("TabKey", document.getHeading().get(1).getKey());
         assertEquals("TabValue", document.getHeading().get(1).getValue());
     }
+    
+    @Test
+    public void testProfileGrammar() {
+        String content = """
+            1CClientBankExchange
+            HeaderKey=HeaderValue
+            СекцияРасчСчет
+            AccountKey=AccountValue
+            КонецРасчСчет
+            СекцияДокумент=TestSection
+            DocKey=DocValue
+            КонецДокумента
+            КонецФайла
+            """;
+        
+        ProfilingParseRunner.Report report = parserService.profileGrammar(content);
+        
+        assertEquals(1, report.totalRuns);
+        assertTrue(report.totalInvocations > 0);
+        assertTrue(report.ruleReports.stream()
+                .anyMatch(rule -> rule.getMatcher().getLabel().equals("Key") && rule.getInvocations() == 3));
+        assertTrue(report.print().contains("Re-Matches"));
+    }
+    
+    @Test
+    public void testParseFileWithSectionFilter() throws Exception {
+        Path examplePath = Paths.get("example.kl_to_1c");
+        if (Files.exists(examplePath)) {
+            Document document = parserService.parseFromFile(examplePath, new ParseOptions().withSections("Other"));
+            assertEquals(2, document.getHeading().size());
+            assertEquals(2, document.getAccount().getItems().size());
+            assertTrue(document.getSections().isEmpty());
+        }
+    }
 }
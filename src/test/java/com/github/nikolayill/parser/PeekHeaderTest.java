@@ -0,0 +1,91 @@
+package com.github.nikolayill.parser;
+
+import com.github.nikolayill.dto.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PeekHeaderTest {
+
+    private static final String HEADER = """
+        1CClientBankExchange
+        ВерсияФормата=1.03
+        Отправитель=Бухгалтерия предприятия
+        ДатаНачала=01.01.2024
+        ДатаКонца=31.01.2024
+        СекцияРасчСчет
+        РасчСчет=40702810000000000001
+        КонецРасчСчет
+
+        СекцияРасчСчет
+        РасчСчет=40702810000000000002
+        КонецРасчСчет
+        """;
+
+    private final ParboiledDocumentParserService parserService = new ParboiledDocumentParserService();
+
+    @TempDir
+    Path tempDir;
+
+    // A valid header followed by a large body that is not even a valid document
+    private static void writeStatement(Writer out) throws Exception {
+        out.write(HEADER);
+        out.write("СекцияДокумент=Платежное поручение\n");
+        for (int i = 0; i < 200_000; i++) {
+            out.write("не ключ и не значение\n");
+        }
+    }
+
+    @Test
+    public void testPeekStopsAfterAccounts() throws Exception {
+        Path file = tempDir.resolve("statement.kl_to_1c");
+        try (Writer out = Files.newBufferedWriter(file)) {
+            writeStatement(out);
+        }
+        Path gzipFile = tempDir.resolve("statement.kl_to_1c.gz");
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(gzipFile)), StandardCharsets.UTF_8))) {
+            writeStatement(out);
+        }
+
+        for (Path path : new Path[] {file, gzipFile}) {
+            Document header = parserService.peekHeader(path);
+
+            assertEquals(4, header.getHeading().size());
+            assertEquals("01.01.2024", header.getHeading().get(2).getValue());
+            assertEquals(2, header.getAccounts().size());
+            assertEquals("40702810000000000002", header.getAccounts().get(1).getItems().get(0).getValue());
+            assertTrue(header.getSections().isEmpty());
+        }
+    }
+
+    @Test
+    public void testPeekDocumentWithoutSections() throws Exception {
+        Path file = tempDir.resolve("empty.kl_to_1c");
+        Files.writeString(file, HEADER + "КонецФайла\n");
+
+        assertEquals(2, parserService.peekHeader(file).getAccounts().size());
+    }
+
+    @Test
+    public void testPeekTruncatedHeader() throws Exception {
+        Path file = tempDir.resolve("truncated.kl_to_1c");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            out.write("1CClientBankExchange\nСекцияРасчСчет\nРасчСчет=1\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        ParboiledDocumentParserService.ParseException e = assertThrows(ParboiledDocumentParserService.ParseException.class,
+                () -> parserService.peekHeader(file));
+        assertTrue(e.getMessage().contains("unexpected end of input"), e.getMessage());
+    }
+}
@@ -0,0 +1,140 @@
+package com.github.nikolayill.parser;
+
+import com.github.nikolayill.dto.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResilientParseTest {
+
+    private ParboiledDocumentParserService parserService;
+
+    @BeforeEach
+    public void setUp() {
+        parserService = new ParboiledDocumentParserService();
+    }
+
+    @Test
+    public void testCleanDocumentMatchesRegularParse() throws Exception {
+        String content = """
+            1CClientBankExchange
+            HeaderKey=HeaderValue
+            СекцияРасчСчет
+            AccountKey=AccountValue
+            КонецРасчСчет
+            СекцияДокумент=Section1
+            Key1=Value1
+            КонецДокумента
+            СекцияДокумент=Section2
+            Key2=Value2
+            КонецДокумента
+            КонецФайла
+            """;
+
+        ResilientParseResult result = parserService.parseResilient(content);
+
+        assertTrue(result.isComplete());
+        Document document = result.getDocument();
+        assertEquals(1, document.getHeading().size());
+        assertEquals("AccountValue", document.getAccount().getItems().get(0).getValue());
+        assertEquals(2, document.getSections().size());
+        assertEquals("Section2", document.getSections().get(1).getName());
+        assertEquals("Value2", document.getSections().get(1).getItems().get(0).getValue());
+    }
+
+    @Test
+    public void testBrokenSectionIsQuarantined() throws Exception {
+        String prefix = """
+            1CClientBankExchange
+            СекцияРасчСчет
+            AccountKey=AccountValue
+            КонецРасчСчет
+            СекцияДокумент=Good1
+            Key1=Value1
+            КонецДокумента
+            """;
+        String broken = """
+            СекцияДокумент=Broken
+            KeyWithoutValue
+            КонецДокумента
+            """;
+        String content = prefix + broken + """
+            СекцияДокумент=Good2
+            Key2=Value2
+            КонецДокумента
+            КонецФайла
+            """;
+
+        ResilientParseResult result = parserService.parseResilient(content);
+
+        assertEquals(2, result.getDocument().getSections().size());
+        assertEquals("Good1", result.getDocument().getSections().get(0).getName());
+        assertEquals("Good2", result.getDocument().getSections().get(1).getName());
+        assertEquals(1, result.getQuarantinedSections().size());
+        QuarantinedSection quarantined = result.getQuarantinedSections().get(0);
+        assertEquals(8, quarantined.getLine());
+        assertEquals(prefix.getBytes(StandardCharsets.UTF_8).length, quarantined.getStartOffset());
+        assertEquals(broken.getBytes(StandardCharsets.UTF_8).length, quarantined.getEndOffset() - quarantined.getStartOffset());
+        assertFalse(quarantined.getError().isEmpty());
+    }
+
+    @Test
+    public void testUnterminatedSectionResynchronizesAtNextSection() throws Exception {
+        String content = """
+            1CClientBankExchange
+            СекцияРасчСчет
+            AccountKey=AccountValue
+            КонецРасчСчет
+            СекцияДокумент=Unterminated
+            Key1=Value1
+            СекцияДокумент=Good
+            Key2=Value2
+            КонецДокумента
+            КонецФайла
+            """;
+
+        ResilientParseResult result = parserService.parseResilient(content);
+
+        assertEquals(1, result.getDocument().getSections().size());
+        assertEquals("Good", result.getDocument().getSections().get(0).getName());
+        assertEquals(1, result.getQuarantinedSections().size());
+        assertEquals(5, result.getQuarantinedSections().get(0).getLine());
+    }
+
+    @Test
+    public void testMissingFileEndIsReported() throws Exception {
+        String content = """
+            1CClientBankExchange
+            СекцияРасчСчет
+            AccountKey=AccountValue
+            КонецРасчСчет
+            СекцияДокумент=Good
+            Key=Value
+            КонецДокумента
+            """;
+
+        ResilientParseResult result = parserService.parseResilient(content);
+
+        assertEquals(1, result.getDocument().getSections().size());
+        assertEquals(1, result.getQuarantinedSections().size());
+        assertTrue(result.getQuarantinedSections().get(0).getError().contains("КонецФайла"));
+    }
+
+    @Test
+    public void testBrokenAccountSectionFails() {
+        String content = """
+            1CClientBankExchange
+            СекцияРасчСчет
+            AccountKeyWithoutValue
+            КонецРасчСчет
+            КонецФайла
+            """;
+
+        assertThrows(ParboiledDocumentParserService.ParseException.class, () -> {
+            parserService.parseResilient(content);
+        });
+    }
+}
@@ -0,0 +1,92 @@
+package com.github.nikolayill.parser;
+
+import com.github.nikolayill.dto.Document;
+import com.github.nikolayill.parser.stream.DocumentHandler;
+import com.github.nikolayill.parser.stream.StreamingDocumentParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StreamInputTest {
+
+    private static final String PROLOGUE = """
+        1CClientBankExchange
+        Кодировка=Windows
+        СекцияРасчСчет
+        РасчСчет=40702810000000000001
+        КонецРасчСчет
+        СекцияДокумент=Платежное поручение
+        Номер=1
+        КонецДокумента
+        """;
+    private static final String EPILOGUE = """
+        СекцияДокумент=Платежное поручение
+        Номер=2
+        КонецДокумента
+        КонецФайла
+        """;
+
+    private final ParboiledDocumentParserService parserService = new ParboiledDocumentParserService();
+
+    @Test
+    public void testParseInputStreamWithCharset() throws Exception {
+        Charset windows1251 = Charset.forName("windows-1251");
+        InputStream in = new ByteArrayInputStream((PROLOGUE + EPILOGUE).getBytes(windows1251));
+
+        Document document = parserService.parse(in, windows1251);
+
+        assertEquals("Windows", document.getHeading().get(0).getValue());
+        assertEquals(2, document.getSections().size());
+    }
+
+    @Test
+    public void testParseChannelAndReader() throws Exception {
+        byte[] bytes = (PROLOGUE + EPILOGUE).getBytes(StandardCharsets.UTF_8);
+
+        Document fromChannel = parserService.parse(Channels.newChannel(new ByteArrayInputStream(bytes)));
+        Document fromReader = parserService.parse(new StringReader(PROLOGUE + EPILOGUE));
+
+        assertEquals("Платежное поручение", fromChannel.getSections().get(1).getName());
+        assertEquals("2", fromReader.getSections().get(1).getItems().get(0).getValue());
+    }
+
+    @Test
+    public void testSectionsAreParsedBeforeInputIsComplete() throws Exception {
+        PipedOutputStream upload = new PipedOutputStream();
+        PipedInputStream in = new PipedInputStream(upload);
+        CountDownLatch firstSection = new CountDownLatch(1);
+
+        Thread sender = new Thread(() -> {
+            try (upload) {
+                upload.write(PROLOGUE.getBytes(StandardCharsets.UTF_8));
+                upload.flush();
+                // the rest is only sent once the parser has seen the first section
+                if (firstSection.await(10, TimeUnit.SECONDS)) {
+                    upload.write(EPILOGUE.getBytes(StandardCharsets.UTF_8));
+                }
+            } catch (IOException | InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        sender.start();
+
+        int[] sections = new int[1];
+        new StreamingDocumentParser().parse(new InputStreamReader(in, StandardCharsets.UTF_8), new DocumentHandler() {
+            @Override
+            public void endSection() {
+                sections[0]++;
+                firstSection.countDown();
+            }
+        });
+        sender.join();
+
+        assertEquals(2, sections[0]);
+    }
+}
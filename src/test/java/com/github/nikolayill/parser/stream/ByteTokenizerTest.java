@@ -0,0 +1,143 @@
+package com.github.nikolayill.parser.stream;
+
+import com.github.nikolayill.dto.Document;
+import com.github.nikolayill.dto.Item;
+import com.github.nikolayill.parser.ParboiledDocumentParserService;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.Charset;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.UnmappableCharacterException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ByteTokenizerTest {
+
+    private static final String CONTENT = """
+        ﻿1CClientBankExchange
+        Кодировка=Windows
+        СекцияРасчСчет
+        РасчСчет=40702810000000000001
+        КонецРасчСчет
+        СекцияДокумент=Платежное поручение
+        Номер = 1
+        НазначениеПлатежа=Оплата по счету №5 = аванс 🙂
+        КонецДокумента
+        КонецФайла""";
+
+    private final ParboiledDocumentParserService parserService = new ParboiledDocumentParserService();
+
+    @Test
+    public void testIndexOfMatchesLinearScan() {
+        Random random = new Random(42);
+        byte[] data = new byte[200];
+        for (int round = 0; round < 200; round++) {
+            for (int i = 0; i < data.length; i++) {
+                data[i] = (byte) (random.nextInt(8) == 0 ? "\n\r=".charAt(random.nextInt(3)) : random.nextInt(256));
+            }
+            int from = random.nextInt(data.length);
+            int to = from + random.nextInt(data.length - from + 1);
+            int line = from;
+            while (line < to && data[line] != '\n' && data[line] != '\r') {
+                line++;
+            }
+            int eq = from;
+            while (eq < to && data[eq] != '=') {
+                eq++;
+            }
+            assertEquals(line, ByteTokenizer.indexOfLineEnd(data, from, to));
+            assertEquals(eq, ByteTokenizer.indexOf(data, from, to, (byte) '='));
+        }
+    }
+
+    @Test
+    public void testLinesAndDelimiters() {
+        byte[] data = "a=1\r\nbb\rccc=3==\n\nd=".getBytes(StandardCharsets.US_ASCII);
+        ByteTokenizer tokenizer = new ByteTokenizer(data, 0, data.length);
+        List<String> lines = new ArrayList<>();
+        while (tokenizer.next()) {
+            int start = tokenizer.lineStart();
+            lines.add(new String(data, start, tokenizer.lineEnd() - start, StandardCharsets.US_ASCII)
+                    + "@" + (tokenizer.delimiter() < 0 ? -1 : tokenizer.delimiter() - start));
+        }
+        assertEquals(List.of("a=1@1", "bb@-1", "ccc=3==@3", "@-1", "d=@1"), lines);
+    }
+
+    @Test
+    public void testParseBytesMatchesParseString() throws Exception {
+        Document expected = parserService.parseFromString(CONTENT, new ParseOptions());
+
+        assertDocumentsEqual(expected,
+                parserService.parse(CONTENT.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8, new ParseOptions()));
+
+        // windows-1251 has no BOM and no emoji
+        String cyrillic = CONTENT.replace("﻿", "").replace(" 🙂", "");
+        Charset windows1251 = Charset.forName("windows-1251");
+        Document parsed = parserService.parse(cyrillic.getBytes(windows1251), windows1251, new ParseOptions());
+        assertDocumentsEqual(parserService.parseFromString(cyrillic, new ParseOptions()), parsed);
+        assertEquals("Оплата по счету №5 = аванс", parsed.getSections().get(0).getItems().get(1).getValue());
+    }
+
+    @Test
+    public void testMalformedUtf8() {
+        byte[] data = "1CClientBankExchange\nКлюч=ÿ\n".getBytes(StandardCharsets.ISO_8859_1);
+        assertThrows(MalformedInputException.class,
+                () -> parserService.parse(data, StandardCharsets.UTF_8, new ParseOptions()));
+    }
+
+    @Test
+    public void testUnmappableSingleByte() {
+        // 0x98 has no character in windows-1251
+        byte[] data = "1CClientBankExchange\nКлюч=?\n".getBytes(StandardCharsets.US_ASCII);
+        data[data.length - 2] = (byte) 0x98;
+        assertThrows(UnmappableCharacterException.class,
+                () -> parserService.parse(data, Charset.forName("windows-1251"), new ParseOptions()));
+    }
+
+    @Test
+    public void testLongLineRejectedBeforeDecoding() {
+        byte[] data = new byte[10_000_000];
+        Arrays.fill(data, (byte) 'a');
+        char[] buffer = new char[64];
+        ByteLineReader utf8 = new ByteLineReader(data, 0, data.length, buffer, null, 100);
+        ByteLineReader cp1251 = new ByteLineReader(data, 0, data.length, buffer,
+                ByteLineReader.singleByteTable(Charset.forName("windows-1251")), 100);
+
+        assertThrows(LimitExceededException.class, utf8::nextLine);
+        assertThrows(LimitExceededException.class, cp1251::nextLine);
+        assertSame(buffer, utf8.buf);
+        assertSame(buffer, cp1251.buf);
+    }
+
+    @Test
+    public void testMultiByteCharsetRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> parserService.parse(new byte[0], Charset.forName("UTF-16"), new ParseOptions()));
+    }
+
+    private static void assertDocumentsEqual(Document expected, Document actual) {
+        assertItemsEqual(expected.getHeading(), actual.getHeading());
+        assertEquals(expected.getAccounts().size(), actual.getAccounts().size());
+        for (int i = 0; i < expected.getAccounts().size(); i++) {
+            assertItemsEqual(expected.getAccounts().get(i).getItems(), actual.getAccounts().get(i).getItems());
+        }
+        assertEquals(expected.getSections().size(), actual.getSections().size());
+        for (int i = 0; i < expected.getSections().size(); i++) {
+            assertEquals(expected.getSections().get(i).getName(), actual.getSections().get(i).getName());
+            assertItemsEqual(expected.getSections().get(i).getItems(), actual.getSections().get(i).getItems());
+        }
+    }
+
+    private static void assertItemsEqual(List<Item> expected, List<Item> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getKey(), actual.get(i).getKey());
+            assertEquals(expected.get(i).getValue(), actual.get(i).getValue());
+        }
+    }
+}
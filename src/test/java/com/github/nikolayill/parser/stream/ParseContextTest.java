@@ -0,0 +1,78 @@
+package com.github.nikolayill.parser.stream;
+
+import com.github.nikolayill.dto.Document;
+import com.github.nikolayill.parser.ParboiledDocumentParserService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParseContextTest {
+
+    private final ParboiledDocumentParserService parserService = new ParboiledDocumentParserService();
+
+    @TempDir
+    Path tempDir;
+
+    private static String statement(int number, String purpose) {
+        return "1CClientBankExchange\n"
+                + "Кодировка=Windows\n"
+                + "СекцияРасчСчет\n"
+                + "РасчСчет=40702810000000000001\n"
+                + "КонецРасчСчет\n"
+                + "СекцияДокумент=Платежное поручение\n"
+                + "Номер=" + number + "\n"
+                + "НазначениеПлатежа=" + purpose + "\n"
+                + "КонецДокумента\n"
+                + "КонецФайла\n";
+    }
+
+    @Test
+    public void testBatchSharesKeys() throws Exception {
+        Path first = tempDir.resolve("first.kl_to_1c");
+        Files.writeString(first, statement(1, "Оплата"));
+        Path second = tempDir.resolve("second.kl_to_1c.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(second))) {
+            out.write(statement(2, "x".repeat(100_000)).getBytes(StandardCharsets.UTF_8));
+        }
+
+        try (ParseContext context = new ParseContext()) {
+            Document a = parserService.parseFromFile(first, new ParseOptions(), context);
+            Document b = parserService.parseFromFile(second, new ParseOptions(), context);
+            Document c = parserService.parse(new StringReader(statement(3, "Аванс")), new ParseOptions(), context);
+
+            assertEquals("1", a.getSections().get(0).getItems().get(0).getValue());
+            assertEquals(100_000, b.getSections().get(0).getItems().get(1).getValue().length());
+            assertEquals("Аванс", c.getSections().get(0).getItems().get(1).getValue());
+            assertSame(a.getSections().get(0).getItems().get(0).getKey(), c.getSections().get(0).getItems().get(0).getKey());
+            assertSame(a.getSections().get(0).getName(), b.getSections().get(0).getName());
+            // 4 keys and one section name
+            assertEquals(5, context.getKeyCount());
+        }
+    }
+
+    @Test
+    public void testErrorLeavesContextUsable() throws Exception {
+        try (ParseContext context = new ParseContext()) {
+            assertThrows(ParboiledDocumentParserService.ParseException.class,
+                    () -> parserService.parse(new StringReader("1CClientBankExchange\nКонецФайла\n"), new ParseOptions(), context));
+            Document document = parserService.parse(new StringReader(statement(1, "Оплата")), new ParseOptions(), context);
+            assertEquals(1, document.getSections().size());
+        }
+    }
+
+    @Test
+    public void testClosedContextRejected() {
+        ParseContext context = new ParseContext();
+        context.close();
+        assertThrows(IllegalStateException.class,
+                () -> parserService.parse(new StringReader(statement(1, "Оплата")), new ParseOptions(), context));
+    }
+}
@@ -0,0 +1,151 @@
+package com.github.nikolayill.parser.stream;
+
+import com.github.nikolayill.dto.Document;
+import com.github.nikolayill.parser.ParboiledDocumentParserService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParseLimitsTest {
+
+    private final ParboiledDocumentParserService parserService = new ParboiledDocumentParserService();
+
+    @TempDir
+    Path tempDir;
+
+    private static String statement(int sections, int items, String value) {
+        StringBuilder content = new StringBuilder("""
+            1CClientBankExchange
+            Кодировка=Windows
+            СекцияРасчСчет
+            РасчСчет=40702810000000000001
+            КонецРасчСчет
+            """);
+        for (int i = 1; i <= sections; i++) {
+            content.append("СекцияДокумент=Платежное поручение\n");
+            for (int j = 1; j <= items; j++) {
+                content.append("Поле").append(j).append('=').append(value).append('\n');
+            }
+            content.append("КонецДокумента\n");
+        }
+        return content.append("КонецФайла\n").toString();
+    }
+
+    private Document parse(String content, ParseLimits limits) throws Exception {
+        return parserService.parse(new StringReader(content), new ParseOptions().withLimits(limits));
+    }
+
+    @Test
+    public void testWithinLimits() throws Exception {
+        ParseLimits limits = new ParseLimits()
+                .withMaxFileSize(10_000)
+                .withMaxValueLength(20)
+                .withMaxItemsPerSection(3)
+                .withMaxSections(3)
+                .withMaxRetainedBytes(10_000);
+
+        Document document = parse(statement(3, 3, "1234567890"), limits);
+
+        assertEquals(3, document.getSections().size());
+        assertEquals(3, document.getSections().get(2).getItems().size());
+    }
+
+    @Test
+    public void testValueLength() {
+        LimitExceededException e = assertThrows(LimitExceededException.class,
+                () -> parse(statement(1, 1, "123456789012345678901"), new ParseLimits().withMaxValueLength(20)));
+        assertEquals("Failed to parse document: line 7: value longer than 20 characters", e.getMessage());
+    }
+
+    @Test
+    public void testLongLineRejectedBeforeBuffering() {
+        // no line terminator: the reader would otherwise keep growing its buffer
+        Reader endless = new Reader() {
+            @Override
+            public int read(char[] cbuf, int off, int len) {
+                Arrays.fill(cbuf, off, off + len, 'x');
+                return len;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        StreamingDocumentParser parser = new StreamingDocumentParser(
+                new ParseOptions().withLimits(new ParseLimits().withMaxValueLength(100)), 64);
+
+        LimitExceededException e = assertThrows(LimitExceededException.class,
+                () -> parser.parse(endless, new DocumentCollector()));
+        assertEquals("Failed to parse document: line 1: line longer than " + (100 + ParseLimits.KEY_ALLOWANCE)
+                + " characters", e.getMessage());
+    }
+
+    @Test
+    public void testItemsPerSection() {
+        LimitExceededException e = assertThrows(LimitExceededException.class,
+                () -> parse(statement(1, 4, "1"), new ParseLimits().withMaxItemsPerSection(3)));
+        assertEquals("Failed to parse document: line 10: more than 3 items in a section", e.getMessage());
+    }
+
+    @Test
+    public void testSkippedSectionsCount() {
+        ParseOptions options = new ParseOptions()
+                .withSectionFilter(name -> false)
+                .withLimits(new ParseLimits().withMaxSections(2).withMaxItemsPerSection(2));
+
+        assertThrows(LimitExceededException.class,
+                () -> parserService.parse(new StringReader(statement(3, 1, "1")), options));
+        assertThrows(LimitExceededException.class,
+                () -> parserService.parse(new StringReader(statement(1, 3, "1")), options));
+    }
+
+    @Test
+    public void testRetainedBytes() throws Exception {
+        String content = statement(100, 10, "0123456789");
+        parse(content, new ParseLimits().withMaxRetainedBytes(1_000_000));
+
+        LimitExceededException e = assertThrows(LimitExceededException.class,
+                () -> parse(content, new ParseLimits().withMaxRetainedBytes(10_000)));
+        assertTrue(e.getMessage().endsWith("more than 10000 bytes retained"), e.getMessage());
+    }
+
+    @Test
+    public void testFileSize() throws Exception {
+        String content = statement(10, 1, "1");
+        Path file = tempDir.resolve("statement.kl_to_1c");
+        Files.writeString(file, content);
+        ParseOptions options = new ParseOptions().withLimits(new ParseLimits().withMaxFileSize(100));
+
+        assertThrows(LimitExceededException.class, () -> parserService.parseFromFile(file, options));
+        assertThrows(LimitExceededException.class, () -> parserService.parseFromString(content, options));
+        assertThrows(LimitExceededException.class, () -> parserService.parse(new StringReader(content), options));
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> parserService.parseAsync(file, options, Runnable::run).join());
+        assertInstanceOf(LimitExceededException.class, e.getCause());
+    }
+
+    @Test
+    public void testFileSizeCountsEncodedBytes() throws Exception {
+        String content = statement(2, 2, "Оплата по счету");
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        assertTrue(content.length() < bytes.length);
+        ParseOptions exact = new ParseOptions().withLimits(new ParseLimits().withMaxFileSize(bytes.length));
+        ParseOptions chars = new ParseOptions().withLimits(new ParseLimits().withMaxFileSize(content.length()));
+
+        assertEquals(2, parserService.parseFromString(content, exact).getSections().size());
+        assertEquals(2, parserService.parse(bytes, StandardCharsets.UTF_8, exact).getSections().size());
+        assertThrows(LimitExceededException.class, () -> parserService.parseFromString(content, chars));
+        assertThrows(LimitExceededException.class, () -> parserService.parse(bytes, StandardCharsets.UTF_8, chars));
+        assertEquals(bytes.length, StreamingDocumentParser.utf8Length(content, bytes.length));
+        assertEquals(5, StreamingDocumentParser.utf8Length("a\uD83D\uDE00", 4));
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.nikolayill.parser.stream;
+
+import com.github.nikolayill.dto.Document;
+import com.github.nikolayill.dto.DocumentSection;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProjectionTest {
+
+    private static final String CONTENT = """
+        1CClientBankExchange
+        ВерсияФормата=1.03
+        Отправитель=Бухгалтерия
+        СекцияРасчСчет
+        РасчСчет=40702810000000000001
+        НачальныйОстаток=100.00
+        КонецРасчСчет
+        СекцияДокумент=Платежное поручение
+        Номер=1
+        Дата=01.02.2024
+        Сумма=100.00
+        НазначениеПлатежа=Оплата
+        КонецДокумента
+        СекцияДокумент=Платежное поручение
+        Сумма=200.00
+        Номер=2
+        КонецДокумента
+        КонецФайла
+        """;
+
+    @Test
+    public void testProjectionKeepsOnlyRequestedKeys() throws Exception {
+        ParseOptions options = new ParseOptions().withProjection("Номер", "Сумма", "РасчСчет", "Отправитель");
+        DocumentCollector collector = new DocumentCollector();
+
+        new StreamingDocumentParser(options).parse(CONTENT, collector);
+
+        Document document = collector.getDocument();
+        assertEquals(1, document.getHeading().size());
+        assertEquals("Отправитель", document.getHeading().get(0).getKey());
+        assertEquals(1, document.getAccount().getItems().size());
+        assertEquals("40702810000000000001", document.getAccount().getItems().get(0).getValue());
+        DocumentSection first = document.getSections().get(0);
+        assertEquals(2, first.getItems().size());
+        assertEquals("Номер", first.getItems().get(0).getKey());
+        assertEquals("Сумма", first.getItems().get(1).getKey());
+    }
+
+    @Test
+    public void testDenseSectionValues() throws Exception {
+        ParseOptions options = new ParseOptions().withSectionProjection(List.of("Сумма", "Номер", "Дата"));
+        ProjectedSectionCollector collector = new ProjectedSectionCollector(options);
+
+        new StreamingDocumentParser(options).parse(CONTENT, collector);
+
+        List<ProjectedSection> sections = collector.getSections();
+        assertEquals(2, sections.size());
+        assertArrayEquals(new String[]{"100.00", "1", "01.02.2024"}, sections.get(0).getValues());
+        assertArrayEquals(new String[]{"200.00", "2", null}, sections.get(1).getValues());
+        assertEquals("2", sections.get(1).getValue("Номер"));
+        assertNull(sections.get(1).getValue("Unknown"));
+    }
+
+    @Test
+    public void testKeyTableLookupOnCharRange() {
+        KeyTable table = KeyTable.of("Номер", "Сумма", "Номер");
+        char[] line = "xxСуммаyy".toCharArray();
+
+        assertEquals(2, table.size());
+        assertEquals(1, table.indexOf(line, 2, 7));
+        assertEquals(-1, table.indexOf(line, 2, 6));
+        assertEquals(0, table.indexOf("Номер"));
+        assertSame(table.key(1), table.key(table.indexOf(line, 2, 7)));
+    }
+}
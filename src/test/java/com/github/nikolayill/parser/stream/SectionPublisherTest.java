@@ -0,0 +1,140 @@
+package com.github.nikolayill.parser.stream;
+
+import com.github.nikolayill.dto.Document;
+import com.github.nikolayill.dto.DocumentSection;
+import com.github.nikolayill.parser.ParboiledDocumentParserService;
+import org.junit.jupiter.api.Test;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SectionPublisherTest {
+
+    private static final Executor DIRECT = Runnable::run;
+
+    private static String statement(int sections) {
+        StringBuilder content = new StringBuilder("""
+            1CClientBankExchange
+            Кодировка=Windows
+            СекцияРасчСчет
+            РасчСчет=40702810000000000001
+            КонецРасчСчет
+            """);
+        for (int i = 0; i < sections; i++) {
+            content.append("СекцияДокумент=Платежное поручение\nНомер=").append(i).append("\nКонецДокумента\n");
+        }
+        return content.append("КонецФайла\n").toString();
+    }
+
+    // Counts characters read and records closing
+    private static class TrackingReader extends FilterReader {
+        long read;
+        boolean closed;
+
+        TrackingReader(String content) {
+            super(new StringReader(content));
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            read += Math.max(n, 0);
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            super.close();
+        }
+    }
+
+    private static class RecordingSubscriber implements SectionSubscriber {
+        final List<String> signals = new ArrayList<>();
+        Flow.Subscription subscription;
+        Document header;
+        Throwable error;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onHeader(Document header) {
+            this.header = header;
+            signals.add("header");
+        }
+
+        @Override
+        public void onNext(DocumentSection section) {
+            signals.add(section.getItems().get(0).getValue());
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            this.error = error;
+            signals.add("error");
+        }
+
+        @Override
+        public void onComplete() {
+            signals.add("complete");
+        }
+    }
+
+    @Test
+    public void testDemandDrivenDelivery() {
+        TrackingReader reader = new TrackingReader(statement(3));
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        new SectionPublisher(() -> reader, new ParseOptions(), DIRECT).subscribe(subscriber);
+
+        assertEquals(0, reader.read);
+        subscriber.subscription.request(2);
+        assertEquals(List.of("header", "0", "1"), subscriber.signals);
+        assertEquals("40702810000000000001", subscriber.header.getAccount().getItems().get(0).getValue());
+        assertTrue(subscriber.header.getSections().isEmpty());
+
+        subscriber.subscription.request(5);
+        assertEquals(List.of("header", "0", "1", "2", "complete"), subscriber.signals);
+        assertTrue(reader.closed);
+    }
+
+    @Test
+    public void testCancelStopsReadingAndClosesInput() {
+        String content = statement(20_000);
+        TrackingReader reader = new TrackingReader(content);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        new SectionPublisher(() -> reader, new ParseOptions(), DIRECT).subscribe(subscriber);
+
+        subscriber.subscription.request(1);
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(1);
+
+        assertEquals(List.of("header", "0"), subscriber.signals);
+        assertTrue(reader.closed);
+        assertTrue(reader.read < content.length() / 10, "read " + reader.read + " of " + content.length());
+    }
+
+    @Test
+    public void testParseErrorAndInvalidRequest() {
+        RecordingSubscriber broken = new RecordingSubscriber();
+        new SectionPublisher(() -> new StringReader("1CClientBankExchange\nКонецФайла\n"), new ParseOptions(), DIRECT)
+                .subscribe(broken);
+        broken.subscription.request(1);
+        assertInstanceOf(ParboiledDocumentParserService.ParseException.class, broken.error);
+
+        RecordingSubscriber invalid = new RecordingSubscriber();
+        new SectionPublisher(() -> new StringReader(statement(1)), new ParseOptions(), DIRECT).subscribe(invalid);
+        invalid.subscription.request(0);
+        assertInstanceOf(IllegalArgumentException.class, invalid.error);
+    }
+}
@@ -0,0 +1,152 @@
+package com.github.nikolayill.parser.stream;
+
+import com.github.nikolayill.dto.Document;
+import com.github.nikolayill.dto.DocumentSection;
+import com.github.nikolayill.dto.Item;
+import com.github.nikolayill.parser.ParboiledDocumentParserService;
+import com.github.nikolayill.parser.ParboiledDocumentParserService.ParseException;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StreamingDocumentParserTest {
+
+    private static final String CONTENT = """
+        1CClientBankExchange
+          HeaderKey  =  HeaderValue \s
+        СекцияРасчСчет
+        AccountKey=AccountValue
+        КонецРасчСчет
+        СекцияДокумент=Платежное поручение
+        Номер=1
+        Сумма=100.00
+        КонецДокумента
+
+        СекцияДокумент=Банковский ордер
+        Номер=2
+        КонецДокумента
+        СекцияДокумент=Платежное поручение
+        Номер=3
+        EmptyValue=
+        КонецДокумента
+        КонецФайла
+        """;
+
+    @Test
+    public void testMatchesParboiledParser() throws Exception {
+        // the grammar lets whitespace after '=' run into the next line, so empty values are left out here
+        String content = CONTENT.replace("EmptyValue=\n", "");
+        Document expected = new ParboiledDocumentParserService().parseFromString(content);
+
+        Document actual = parse(content, new ParseOptions());
+
+        assertItemsEqual(expected.getHeading(), actual.getHeading());
+        assertItemsEqual(expected.getAccount().getItems(), actual.getAccount().getItems());
+        assertEquals(expected.getSections().size(), actual.getSections().size());
+        for (int i = 0; i < expected.getSections().size(); i++) {
+            DocumentSection expectedSection = expected.getSections().get(i);
+            DocumentSection actualSection = actual.getSections().get(i);
+            assertEquals(expectedSection.getName(), actualSection.getName());
+            assertItemsEqual(expectedSection.getItems(), actualSection.getItems());
+        }
+    }
+
+    @Test
+    public void testSectionFilter() throws Exception {
+        Document document = parse(CONTENT, new ParseOptions().withSections("Платежное поручение"));
+
+        assertEquals(1, document.getHeading().size());
+        assertEquals(2, document.getSections().size());
+        assertEquals("1", document.getSections().get(0).getItems().get(0).getValue());
+        assertEquals("3", document.getSections().get(1).getItems().get(0).getValue());
+    }
+
+    @Test
+    public void testSkippedSectionsDoNotReachHandler() throws Exception {
+        List<String> events = new ArrayList<>();
+        DocumentHandler handler = new DocumentHandler() {
+            @Override
+            public void startSection(String name) {
+                events.add("start " + name);
+            }
+
+            @Override
+            public void sectionItem(String key, String value) {
+                events.add(key);
+            }
+        };
+
+        new StreamingDocumentParser(new ParseOptions().withSectionFilter(name -> name.startsWith("Банк")))
+                .parse(CONTENT, handler);
+
+        assertEquals(List.of("start Банковский ордер", "Номер"), events);
+    }
+
+    @Test
+    public void testReaderInputWithCrLfAcrossBufferBoundaries() throws Exception {
+        String content = CONTENT.replace("\n", "\r\n");
+        DocumentCollector collector = new DocumentCollector();
+
+        new StreamingDocumentParser(new ParseOptions(), 7).parse(new StringReader(content), collector);
+
+        Document document = collector.getDocument();
+        assertEquals("HeaderValue", document.getHeading().get(0).getValue());
+        assertEquals(3, document.getSections().size());
+        assertEquals("", document.getSections().get(2).getItems().get(1).getValue());
+    }
+
+    @Test
+    public void testInvalidDocuments() {
+        assertParseError("""
+            InvalidHeader
+            Key=Value
+            КонецФайла
+            """, "line 1");
+        assertParseError("""
+            1CClientBankExchange
+            Key=Value
+            СекцияРасчСчет
+            AccountKey=AccountValue
+            КонецРасчСчет
+            """, "unexpected end of input");
+        assertParseError("""
+            1CClientBankExchange
+            СекцияРасчСчет
+            КонецРасчСчет
+            СекцияДокумент=Section
+            KeyWithoutValue
+            КонецДокумента
+            КонецФайла
+            """, "line 5");
+        assertParseError("""
+            1CClientBankExchange
+            СекцияРасчСчет
+            КонецРасчСчет
+            КонецФайла
+            Trailing=Content
+            """, "line 5");
+    }
+
+    private static Document parse(String content, ParseOptions options) throws ParseException {
+        DocumentCollector collector = new DocumentCollector();
+        new StreamingDocumentParser(options).parse(content, collector);
+        return collector.getDocument();
+    }
+
+    private static void assertParseError(String content, String expectedMessagePart) {
+        ParseException e = assertThrows(ParseException.class, () -> parse(content, new ParseOptions()));
+        assertTrue(e.getMessage().contains(expectedMessagePart), e.getMessage());
+    }
+
+    private static void assertItemsEqual(List<Item> expected, List<Item> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getKey(), actual.get(i).getKey());
+            assertEquals(expected.get(i).getValue(), actual.get(i).getValue());
+        }
+    }
+}
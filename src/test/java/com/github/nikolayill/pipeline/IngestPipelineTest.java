@@ -0,0 +1,214 @@
+package com.github.nikolayill.pipeline;
+
+import com.github.nikolayill.builder.ValidationProfileBuilder;
+import com.github.nikolayill.parser.stream.LimitExceededException;
+import com.github.nikolayill.parser.stream.ParseLimits;
+import com.github.nikolayill.parser.stream.ParseOptions;
+import com.github.nikolayill.validation.FieldFormat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IngestPipelineTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path statement(int number, String amount) throws Exception {
+        Path file = tempDir.resolve("statement-" + number + ".kl_to_1c");
+        Files.writeString(file, "1CClientBankExchange\n"
+                + "СекцияРасчСчет\n"
+                + "РасчСчет=40702810000000000001\n"
+                + "КонецРасчСчет\n"
+                + "СекцияДокумент=Платежное поручение\n"
+                + "Номер=" + number + "\n"
+                + "Сумма=" + amount + "\n"
+                + "КонецДокумента\n"
+                + "КонецФайла\n");
+        return file;
+    }
+
+    @Test
+    public void testAllFilesReachSink() throws Exception {
+        Map<Path, IngestedFile> sunk = new ConcurrentHashMap<>();
+        Map<Path, Exception> errors = new ConcurrentHashMap<>();
+        IngestPipeline pipeline = new IngestPipeline()
+                .withReaders(2)
+                .withParsers(3)
+                .withEnrichers(2)
+                .withSinks(2)
+                .withQueueCapacity(4)
+                .withValidation(new ValidationProfileBuilder()
+                        .withSection("Платежное поручение")
+                            .withFormat("Сумма", FieldFormat.AMOUNT)
+                        .endSection()
+                        .build())
+                .withEnricher(file -> file.getDocument().getHeading().clear())
+                .withSink(file -> sunk.put(file.getPath(), file))
+                .withErrorHandler(errors::put)
+                .start();
+
+        for (int i = 1; i <= 100; i++) {
+            pipeline.submit(statement(i, i % 10 == 0 ? "много" : i + ".00"));
+        }
+        Path broken = tempDir.resolve("broken.kl_to_1c");
+        Files.writeString(broken, "1CClientBankExchange\nКонецФайла\n");
+        pipeline.submit(broken);
+        pipeline.submit(tempDir.resolve("missing.kl_to_1c"));
+        pipeline.close();
+
+        assertEquals(100, sunk.size());
+        assertEquals(2, errors.size());
+        assertEquals(10, sunk.values().stream().filter(file -> !file.getViolations().isEmpty()).count());
+        IngestedFile file = sunk.get(tempDir.resolve("statement-7.kl_to_1c"));
+        assertEquals("7", file.getDocument().getSections().get(0).getItems().get(0).getValue());
+
+        List<StageMetrics> metrics = pipeline.getMetrics();
+        assertEquals(List.of("read", "parse", "validate", "sink"), metrics.stream().map(StageMetrics::getName).toList());
+        assertEquals(101, metrics.get(0).getProcessed());
+        assertEquals(1, metrics.get(0).getFailed());
+        assertEquals(100, metrics.get(1).getProcessed());
+        assertEquals(1, metrics.get(1).getFailed());
+        assertEquals(100, metrics.get(3).getProcessed());
+        metrics.forEach(stage -> assertEquals(0, stage.getQueueDepth()));
+        assertThrows(IllegalStateException.class, () -> pipeline.submit(broken));
+    }
+
+    @Test
+    public void testCloseReturnsAfterWorkerError() throws Exception {
+        Map<Path, IngestedFile> sunk = new ConcurrentHashMap<>();
+        IngestPipeline pipeline = new IngestPipeline()
+                .withEnrichers(1)
+                .withEnricher(file -> {
+                    throw new LinkageError("enricher crashed");
+                })
+                .withSink(file -> sunk.put(file.getPath(), file))
+                .start();
+        Thread.UncaughtExceptionHandler handler = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((thread, error) -> { });
+        try {
+            pipeline.submit(statement(1, "1.00"));
+            assertTimeoutPreemptively(Duration.ofSeconds(10), pipeline::close);
+        } finally {
+            Thread.setDefaultUncaughtExceptionHandler(handler);
+        }
+
+        assertTrue(sunk.isEmpty());
+        assertEquals(1, pipeline.getMetrics().get(1).getProcessed());
+    }
+
+    @Test
+    public void testOversizedFileRejectedBeforeReading() throws Exception {
+        Map<Path, Exception> errors = new ConcurrentHashMap<>();
+        IngestPipeline pipeline = new IngestPipeline()
+                .withOptions(new ParseOptions().withLimits(new ParseLimits().withMaxFileSize(100)))
+                .withSink(file -> { })
+                .withErrorHandler(errors::put)
+                .start();
+        Path file = statement(1, "1.00");
+        pipeline.submit(file);
+        pipeline.close();
+
+        assertInstanceOf(LimitExceededException.class, errors.get(file));
+    }
+
+    @Test
+    public void testFileSubmittedWhileClosingIsProcessed() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Set<Path> sunk = ConcurrentHashMap.newKeySet();
+        IngestPipeline pipeline = new IngestPipeline()
+                .withParsers(1)
+                .withQueueCapacity(1)
+                .withSink(file -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    sunk.add(file.getPath());
+                })
+                .start();
+        List<Path> files = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            files.add(statement(i, "1.00"));
+        }
+        Set<Path> accepted = ConcurrentHashMap.newKeySet();
+        Thread producer = new Thread(() -> {
+            try {
+                for (Path file : files) {
+                    pipeline.submit(file);
+                    accepted.add(file);
+                }
+            } catch (IllegalStateException e) {
+                // closed while the producer waited
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        while (producer.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+
+        Thread closer = new Thread(pipeline::close);
+        closer.start();
+        while (closer.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+        closer.join();
+        producer.join();
+
+        assertEquals(accepted, sunk);
+        assertTrue(accepted.size() < files.size());
+    }
+
+    @Test
+    public void testSlowSinkAppliesBackpressure() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        IngestPipeline pipeline = new IngestPipeline()
+                .withParsers(1)
+                .withQueueCapacity(2)
+                .withSink(file -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                })
+                .start();
+        Path file = statement(1, "1.00");
+
+        Thread producer = new Thread(() -> {
+            try {
+                for (int i = 0; i < 100; i++) {
+                    pipeline.submit(file);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        producer.join(500);
+
+        // four queues of two plus one file in each stage at most
+        assertTrue(producer.isAlive());
+        assertEquals(2, pipeline.getMetrics().get(0).getQueueDepth());
+
+        release.countDown();
+        producer.join();
+        pipeline.close();
+        assertEquals(100, pipeline.getMetrics().get(3).getProcessed());
+    }
+}
@@ -0,0 +1,173 @@
+package com.github.nikolayill.reconcile;
+
+import com.github.nikolayill.dto.DocumentSection;
+import com.github.nikolayill.dto.Item;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReconcilerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static DocumentSection payment(String number, String date, String amount, String inn) {
+        DocumentSection section = new DocumentSection();
+        section.setName("Платежное поручение");
+        section.setItems(new ArrayList<>());
+        add(section, "Номер", number);
+        add(section, "Дата", date);
+        add(section, "Сумма", amount);
+        add(section, "ПолучательИНН", inn);
+        return section;
+    }
+
+    private static void add(DocumentSection section, String key, String value) {
+        Item item = new Item();
+        item.setKey(key);
+        item.setValue(value);
+        section.getItems().add(item);
+    }
+
+    private static String statement(List<DocumentSection> sections) {
+        StringBuilder content = new StringBuilder("""
+            1CClientBankExchange
+            СекцияРасчСчет
+            РасчСчет=40702810000000000001
+            КонецРасчСчет
+            """);
+        for (DocumentSection section : sections) {
+            content.append("СекцияДокумент=").append(section.getName()).append('\n');
+            for (Item item : section.getItems()) {
+                content.append(item.getKey()).append('=').append(item.getValue()).append('\n');
+            }
+            content.append("КонецДокумента\n");
+        }
+        return content.append("КонецФайла\n").toString();
+    }
+
+    private static List<String> numbers(List<DocumentSection> sections) {
+        return sections.stream().map(section -> section.getItems().get(0).getValue()).sorted().collect(Collectors.toList());
+    }
+
+    /**
+     * Collects everything reported, which is fine for inputs of a test
+     */
+    private static class Collector implements ReconciliationListener {
+        final List<SectionPair> matched = new ArrayList<>();
+        final List<SectionPair> mismatched = new ArrayList<>();
+        final List<DocumentSection> missingInRight = new ArrayList<>();
+        final List<DocumentSection> missingInLeft = new ArrayList<>();
+
+        @Override
+        public void matched(SectionPair pair) {
+            matched.add(pair);
+        }
+
+        @Override
+        public void mismatched(SectionPair pair) {
+            mismatched.add(pair);
+        }
+
+        @Override
+        public void missingInRight(DocumentSection section) {
+            missingInRight.add(section);
+        }
+
+        @Override
+        public void missingInLeft(DocumentSection section) {
+            missingInLeft.add(section);
+        }
+    }
+
+    private static Reconciler reconciler() {
+        return new Reconciler()
+                .withKey("Номер", "ПолучательИНН")
+                .withAmountTolerance("Сумма", new BigDecimal("0.01"))
+                .withDateTolerance("Дата", 1);
+    }
+
+    @Test
+    public void testMatchedMismatchedAndMissing() {
+        List<DocumentSection> bank = List.of(
+                payment("1", "01.02.2024", "100.00", "7702000002"),
+                payment("2", "01.02.2024", "200.00", "7702000002"),
+                payment("3", "01.02.2024", "300.00", "7702000002"),
+                payment("4", "01.02.2024", "400.00", "7702000002"));
+        List<DocumentSection> ledger = List.of(
+                payment("1", "02.02.2024", "100.01", "7702000002"),   // within tolerance
+                payment("2", "05.02.2024", "250.00", "7702000002"),   // date and amount differ
+                payment("4", "01.02.2024", "400.00", "7709999999"),   // other counterparty
+                payment("5", "01.02.2024", "500.00", "7702000002"));
+
+        Collector collector = new Collector();
+        ReconciliationResult result = reconciler().reconcile(bank, ledger, collector);
+
+        assertEquals(1, result.getMatched());
+        assertEquals("1", collector.matched.get(0).getRight().getItems().get(0).getValue());
+        assertEquals(1, result.getMismatched());
+        assertEquals(List.of("Сумма", "Дата"), collector.mismatched.get(0).getDifferences());
+        assertEquals(List.of("3", "4"), numbers(collector.missingInRight));
+        assertEquals(List.of("4", "5"), numbers(collector.missingInLeft));
+        assertEquals(2, result.getMissingInLeft());
+        assertFalse(result.isReconciled());
+    }
+
+    @Test
+    public void testDuplicateKeysPairWithAgreeingPartner() {
+        List<DocumentSection> bank = List.of(
+                payment("7", "01.02.2024", "10.00", "7702000002"),
+                payment("7", "01.02.2024", "20.00", "7702000002"));
+        List<DocumentSection> ledger = List.of(
+                payment("7", "01.02.2024", "20.00", "7702000002"),
+                payment("7", "01.02.2024", "10.00", "7702000002"));
+
+        ReconciliationResult result = reconciler().reconcile(bank, ledger);
+
+        assertEquals(2, result.getMatched());
+        assertTrue(result.isReconciled());
+    }
+
+    @Test
+    public void testFilesSpillToDisk() throws Exception {
+        List<DocumentSection> bank = new ArrayList<>();
+        List<DocumentSection> ledger = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            bank.add(payment(String.valueOf(i), "01.02.2024", i + ".00", "7702000002"));
+            if (i % 100 != 0) {
+                ledger.add(payment(String.valueOf(i), "01.02.2024", (i % 10 == 1 ? i + 1 : i) + ".00", "7702000002"));
+            }
+        }
+        Path bankFile = tempDir.resolve("bank.kl_to_1c");
+        Path ledgerFile = tempDir.resolve("ledger.kl_to_1c");
+        Files.writeString(bankFile, statement(bank));
+        Files.writeString(ledgerFile, statement(ledger));
+        Path spill = Files.createDirectory(tempDir.resolve("spill"));
+
+        Collector fromFiles = new Collector();
+        ReconciliationResult totals = reconciler()
+                .withMemoryBudget(64 * 1024)
+                .withSpillDirectory(spill)
+                .reconcile(bankFile, ledgerFile, fromFiles);
+        Collector inMemory = new Collector();
+        reconciler().reconcile(bank, ledger, inMemory);
+
+        assertEquals(20, totals.getMissingInRight());
+        assertEquals(200, totals.getMismatched());
+        assertEquals(200, fromFiles.mismatched.size());
+        assertEquals(inMemory.matched.size(), fromFiles.matched.size());
+        assertEquals(numbers(inMemory.missingInRight), numbers(fromFiles.missingInRight));
+        try (Stream<Path> files = Files.list(spill)) {
+            assertEquals(0, files.count());
+        }
+    }
+}
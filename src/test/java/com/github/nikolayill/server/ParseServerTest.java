@@ -0,0 +1,163 @@
+package com.github.nikolayill.server;
+
+import com.github.nikolayill.export.JsonExporter;
+import com.github.nikolayill.parser.ParboiledDocumentParserService;
+import com.github.nikolayill.parser.stream.ParseLimits;
+import com.github.nikolayill.parser.stream.ParseOptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParseServerTest {
+
+    private static final String CONTENT = """
+        1CClientBankExchange
+        Кодировка=Windows
+        СекцияРасчСчет
+        РасчСчет=40702810000000000001
+        КонецРасчСчет
+        СекцияДокумент=Платежное поручение
+        Номер=1
+        НазначениеПлатежа=Оплата "аванса"
+        КонецДокумента
+        КонецФайла
+        """;
+
+    private final ParboiledDocumentParserService parserService = new ParboiledDocumentParserService();
+
+    @TempDir
+    Path tempDir;
+
+    private String localJson(Path file, JsonExporter.Mode mode) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        parserService.exportJson(file, out, mode, new ParseOptions());
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testClientUsesServer() throws Exception {
+        Path file = tempDir.resolve("statement.kl_to_1c");
+        Files.writeString(file, CONTENT);
+        Path gzipFile = tempDir.resolve("statement.kl_to_1c.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzipFile))) {
+            out.write(CONTENT.getBytes(StandardCharsets.UTF_8));
+        }
+
+        try (ParseServer server = new ParseServer().withPort(0).withThreads(2).start()) {
+            ParseClient client = new ParseClient(server.getPort());
+            for (JsonExporter.Mode mode : JsonExporter.Mode.values()) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                assertTrue(client.export(file, out, mode));
+                assertEquals(localJson(file, mode), out.toString(StandardCharsets.UTF_8));
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            assertTrue(client.export(gzipFile, out, JsonExporter.Mode.DOCUMENT));
+            assertEquals(localJson(file, JsonExporter.Mode.DOCUMENT), out.toString(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testClientFallsBackWithoutServer() throws Exception {
+        Path file = tempDir.resolve("statement.kl_to_1c");
+        Files.writeString(file, CONTENT);
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertFalse(new ParseClient(port).export(file, out, JsonExporter.Mode.DOCUMENT));
+        assertEquals(localJson(file, JsonExporter.Mode.DOCUMENT), out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testLargeAnswerIsStreamed() throws Exception {
+        StringBuilder content = new StringBuilder(CONTENT.substring(0, CONTENT.indexOf("КонецФайла")));
+        while (content.length() < 2 * ParseServer.RESPONSE_BUFFER_SIZE) {
+            content.append("СекцияДокумент=Платежное поручение\nНомер=2\nНазначениеПлатежа=Оплата по счету\nКонецДокумента\n");
+        }
+        Path file = tempDir.resolve("statement.kl_to_1c");
+        Files.writeString(file, content + "КонецФайла\n");
+        Path broken = tempDir.resolve("broken.kl_to_1c");
+        Files.writeString(broken, content + "Мусор\n");
+
+        try (ParseServer server = new ParseServer().withPort(0).withThreads(2).start()) {
+            ParseClient client = new ParseClient(server.getPort());
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            assertTrue(client.export(file, out, JsonExporter.Mode.NDJSON));
+            assertEquals(localJson(file, JsonExporter.Mode.NDJSON), out.toString(StandardCharsets.UTF_8));
+
+            // the 200 status is already sent when the error is found, the body is cut short
+            assertThrows(IOException.class, () -> client.export(broken, new ByteArrayOutputStream(), JsonExporter.Mode.DOCUMENT));
+        }
+    }
+
+    @Test
+    public void testMaxBodySize() throws Exception {
+        HttpClient http = HttpClient.newHttpClient();
+        try (ParseServer server = new ParseServer().withPort(0).withMaxBodySize(CONTENT.length()).start()) {
+            HttpResponse<String> response = http.send(HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + "/parse"))
+                    .POST(HttpRequest.BodyPublishers.ofString(CONTENT)).build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(413, response.statusCode());
+        }
+    }
+
+    @Test
+    public void testErrorsAndCharset() throws Exception {
+        HttpClient http = HttpClient.newHttpClient();
+        ParseOptions options = new ParseOptions().withLimits(new ParseLimits().withMaxFileSize(1000));
+        try (ParseServer server = new ParseServer().withPort(0).withOptions(options).start()) {
+            String url = "http://127.0.0.1:" + server.getPort() + "/parse";
+
+            HttpResponse<String> response = http.send(HttpRequest.newBuilder(URI.create(url))
+                    .POST(HttpRequest.BodyPublishers.ofString("1CClientBankExchange\nКонецФайла\n")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(422, response.statusCode());
+            assertTrue(response.body().startsWith("{\"error\":\"Failed to parse document: line 2"), response.body());
+
+            response = http.send(HttpRequest.newBuilder(URI.create(url))
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(new byte[1001])).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(413, response.statusCode());
+
+            response = http.send(HttpRequest.newBuilder(URI.create(url + "?charset=windows-1251"))
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(CONTENT.getBytes(Charset.forName("windows-1251")))).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            assertTrue(response.body().contains("\"НазначениеПлатежа\":\"Оплата \\\"аванса\\\"\""), response.body());
+
+            response = http.send(HttpRequest.newBuilder(URI.create(url)).header("Content-Encoding", "gzip")
+                    .POST(HttpRequest.BodyPublishers.ofString(CONTENT)).build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(400, response.statusCode());
+            assertTrue(response.body().startsWith("{\"error\":\"invalid gzip body"), response.body());
+
+            ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+            try (OutputStream out = new GZIPOutputStream(gzip)) {
+                out.write(CONTENT.getBytes(StandardCharsets.UTF_8));
+            }
+            byte[] truncated = Arrays.copyOf(gzip.toByteArray(), gzip.size() / 2);
+            response = http.send(HttpRequest.newBuilder(URI.create(url)).header("Content-Encoding", "gzip")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(truncated)).build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(400, response.statusCode());
+
+            response = http.send(HttpRequest.newBuilder(URI.create(url)).GET().build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(405, response.statusCode());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.github.nikolayill.store;
+
+import com.github.nikolayill.dto.DocumentSection;
+import com.github.nikolayill.dto.Item;
+import com.github.nikolayill.parser.stream.DocumentCollector;
+import com.github.nikolayill.parser.stream.StreamingDocumentParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapSectionStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static String statement(int sections) {
+        StringBuilder content = new StringBuilder("""
+            1CClientBankExchange
+            СекцияРасчСчет
+            РасчСчет=40702810000000000001
+            КонецРасчСчет
+            """);
+        for (int i = 0; i < sections; i++) {
+            content.append(i % 2 == 0 ? "СекцияДокумент=Платежное поручение\n" : "СекцияДокумент=Банковский ордер\n");
+            content.append("Номер=").append(i).append('\n');
+            content.append("Сумма=").append(i).append(".00\n");
+            content.append("НазначениеПлатежа=Оплата по счету № ").append(i).append(" 😀\n");
+            content.append("КонецДокумента\n");
+        }
+        return content.append("КонецФайла\n").toString();
+    }
+
+    private static void assertSameSections(List<DocumentSection> expected, OffHeapSectionStore store) {
+        assertEquals(expected.size(), store.size());
+        int i = 0;
+        for (StoredSection stored : store) {
+            DocumentSection section = expected.get(i++);
+            assertEquals(section.getName(), stored.getName());
+            assertEquals(section.getItems().size(), stored.getItemCount());
+            for (int j = 0; j < section.getItems().size(); j++) {
+                assertEquals(section.getItems().get(j).getKey(), stored.getItems().get(j).getKey());
+                assertEquals(section.getItems().get(j).getValue(), stored.getItems().get(j).getValue());
+            }
+        }
+    }
+
+    @Test
+    public void testAppendFromParser() throws Exception {
+        String content = statement(500);
+        DocumentCollector collector = new DocumentCollector();
+        new StreamingDocumentParser().parse(content, collector);
+
+        try (OffHeapSectionStore store = new OffHeapSectionStore(1024)) {
+            new StreamingDocumentParser().parse(content, store);
+
+            assertSameSections(collector.getDocument().getSections(), store);
+            assertEquals("Оплата по счету № 321 😀", store.get(321).getValue("НазначениеПлатежа"));
+            assertEquals("Банковский ордер", store.get(321).toDocumentSection().getName());
+            assertNull(store.get(321).getValue("ИНН"));
+        }
+    }
+
+    @Test
+    public void testSectionLargerThanChunk() throws Exception {
+        DocumentSection section = new DocumentSection();
+        section.setName("Платежное поручение");
+        section.setItems(new ArrayList<>());
+        Item item = new Item();
+        item.setKey("НазначениеПлатежа");
+        item.setValue("Ж".repeat(10_000));
+        section.getItems().add(item);
+
+        try (OffHeapSectionStore store = new OffHeapSectionStore(256)) {
+            store.append(section);
+            store.append(section);
+
+            assertEquals(2, store.size());
+            assertEquals(item.getValue(), store.get(1).getValue("НазначениеПлатежа"));
+        }
+    }
+
+    @Test
+    public void testMemoryMappedFile() throws Exception {
+        String content = statement(200);
+        DocumentCollector collector = new DocumentCollector();
+        new StreamingDocumentParser().parse(content, collector);
+
+        try (OffHeapSectionStore store = new OffHeapSectionStore(tempDir.resolve("sections.bin"), 4096)) {
+            new StreamingDocumentParser().parse(content, store);
+
+            assertSameSections(collector.getDocument().getSections(), store);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.github.nikolayill.store;
+
+import com.github.nikolayill.dto.DocumentSection;
+import com.github.nikolayill.dto.Item;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatementRepositoryTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static DocumentSection payment(int number, String date, String payerAccount, String payeeInn) {
+        DocumentSection section = new DocumentSection();
+        section.setName("Платежное поручение");
+        section.setItems(new ArrayList<>());
+        add(section, "Номер", String.valueOf(number));
+        add(section, "Дата", date);
+        add(section, "ПлательщикСчет", payerAccount);
+        add(section, "ПлательщикИНН", "7701000001");
+        add(section, "ПолучательИНН", payeeInn);
+        add(section, "НазначениеПлатежа", "Оплата по счету № " + number);
+        return section;
+    }
+
+    private static void add(DocumentSection section, String key, String value) {
+        Item item = new Item();
+        item.setKey(key);
+        item.setValue(value);
+        section.getItems().add(item);
+    }
+
+    private static List<String> numbers(List<DocumentSection> sections) {
+        return sections.stream().map(section -> section.getItems().get(0).getValue()).collect(Collectors.toList());
+    }
+
+    private static List<Path> segments(Path directory) throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith("segment-")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static void copy(Path from, Path to) throws Exception {
+        Files.createDirectories(to);
+        try (Stream<Path> files = Files.list(from)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                Files.copy(file, to.resolve(file.getFileName()));
+            }
+        }
+    }
+
+    @Test
+    public void testPointAndRangeQueries() throws Exception {
+        Path directory = tempDir.resolve("repository");
+        try (StatementRepository repository = new StatementRepository(directory, 1024)) {
+            repository.append(payment(1, "31.01.2024", "40702810000000000001", "7702000002"));
+            repository.append(payment(2, "01.02.2024", "40702810000000000002", "7702000002"));
+            repository.append(payment(3, "15.02.2024", "40702810000000000001", "7703000003"));
+            repository.append(payment(4, "01.03.2024", "40702810000000000001", "7702000002"));
+        }
+        assertTrue(segments(directory).size() > 1);
+
+        try (StatementRepository repository = new StatementRepository(directory, 1024)) {
+            assertEquals(4, repository.size());
+            assertEquals(List.of("1", "3", "4"),
+                    numbers(repository.find(StatementRepository.Index.ACCOUNT, "40702810000000000001")));
+            assertEquals(List.of("1", "2", "4"),
+                    numbers(repository.find(StatementRepository.Index.INN, "7702000002")));
+            assertEquals(List.of("3"), numbers(repository.find(StatementRepository.Index.NUMBER, "3")));
+            assertEquals(List.of("2", "3"),
+                    numbers(repository.findByDate(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 29))));
+            assertEquals(List.of("1", "2", "3"),
+                    numbers(repository.find(StatementRepository.Index.DATE, "01.01.2024", "29.02.2024")));
+            assertTrue(repository.find(StatementRepository.Index.NUMBER, "5").isEmpty());
+            assertTrue(repository.findIds(StatementRepository.Index.DATE, "29.02.2024", "01.01.2024").isEmpty());
+            assertTrue(repository.findByDate(LocalDate.of(2024, 3, 1), LocalDate.of(2024, 2, 1)).isEmpty());
+        }
+    }
+
+    @Test
+    public void testIndexRunsSurviveReopenAndCompaction() throws Exception {
+        Path directory = tempDir.resolve("repository");
+        try (StatementRepository repository = new StatementRepository(directory, 1024, 8)) {
+            for (int i = 1; i <= 60; i++) {
+                String payeeInn = i % 3 == 0 ? "7703000003" : "7702000002";
+                repository.append(payment(i, String.format("%02d.02.2024", i % 28 + 1), "40702810000000000001", payeeInn));
+            }
+            for (long id = 1; id <= 30; id++) {
+                repository.delete(id);
+            }
+            assertEquals(10, repository.find(StatementRepository.Index.INN, "7703000003").size());
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.anyMatch(path -> path.getFileName().toString().endsWith(".run")));
+        }
+
+        try (StatementRepository repository = new StatementRepository(directory, 1024, 8)) {
+            assertEquals(30, repository.size());
+            assertEquals(List.of("33", "36", "39", "42", "45", "48", "51", "54", "57", "60"),
+                    numbers(repository.find(StatementRepository.Index.INN, "7703000003")));
+            repository.compact();
+            assertEquals(List.of("31", "59"), numbers(repository.findByDate(LocalDate.of(2024, 2, 4), LocalDate.of(2024, 2, 4))));
+        }
+
+        try (StatementRepository repository = new StatementRepository(directory, 1024, 8)) {
+            assertEquals(30, repository.find(StatementRepository.Index.ACCOUNT, "40702810000000000001").size());
+        }
+    }
+
+    @Test
+    public void testDeleteAndCompact() throws Exception {
+        Path directory = tempDir.resolve("repository");
+        try (StatementRepository repository = new StatementRepository(directory, 1024)) {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 1; i <= 20; i++) {
+                ids.add(repository.append(payment(i, "01.02.2024", "40702810000000000001", "7702000002")));
+            }
+            for (int i = 0; i < 15; i++) {
+                assertTrue(repository.delete(ids.get(i)));
+            }
+            assertFalse(repository.delete(ids.get(0)));
+            int before = segments(directory).size();
+
+            repository.compact();
+
+            assertTrue(segments(directory).size() < before);
+            assertEquals(List.of("16", "17", "18", "19", "20"),
+                    numbers(repository.find(StatementRepository.Index.ACCOUNT, "40702810000000000001")));
+            assertNull(repository.get(ids.get(0)));
+            repository.append(payment(21, "02.02.2024", "40702810000000000001", "7702000002"));
+        }
+
+        try (StatementRepository repository = new StatementRepository(directory, 1024)) {
+            assertEquals(6, repository.size());
+            assertEquals("21", repository.find(StatementRepository.Index.NUMBER, "21").get(0).getItems().get(0).getValue());
+        }
+    }
+
+    @Test
+    public void testRecoveryAfterCrash() throws Exception {
+        Path directory = tempDir.resolve("repository");
+        Path crashed = tempDir.resolve("crashed");
+        try (StatementRepository repository = new StatementRepository(directory, 1024)) {
+            repository.append(payment(1, "01.02.2024", "40702810000000000001", "7702000002"));
+            repository.flush();
+            repository.append(payment(2, "02.02.2024", "40702810000000000001", "7702000002"));
+            // copy the files without a final checkpoint, as if the process died here
+            copy(directory, crashed);
+        }
+        List<Path> segments = segments(crashed);
+        Files.write(segments.get(segments.size() - 1), new byte[]{0, 0, 0, 42, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (StatementRepository repository = new StatementRepository(crashed, 1024)) {
+            assertEquals(List.of("1", "2"),
+                    numbers(repository.find(StatementRepository.Index.ACCOUNT, "40702810000000000001")));
+            long id = repository.append(payment(3, "03.02.2024", "40702810000000000001", "7702000002"));
+            assertEquals("3", repository.get(id).getItems().get(0).getValue());
+        }
+    }
+
+    @Test
+    public void testRebuildWithoutSnapshot() throws Exception {
+        Path directory = tempDir.resolve("repository");
+        try (StatementRepository repository = new StatementRepository(directory, 1024)) {
+            for (int i = 1; i <= 10; i++) {
+                repository.append(payment(i, "01.02.2024", "40702810000000000001", "7702000002"));
+            }
+        }
+        Files.write(directory.resolve(StatementRepository.SNAPSHOT_FILE), new byte[]{1, 2, 3});
+
+        try (StatementRepository repository = new StatementRepository(directory, 1024)) {
+            assertEquals(10, repository.size());
+            assertEquals(10, repository.find(StatementRepository.Index.INN, "7701000001").size());
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.github.nikolayill.validation;
+
+import com.github.nikolayill.builder.ValidationProfileBuilder;
+import com.github.nikolayill.parser.ParboiledDocumentParserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ValidationProfileTest {
+
+    private static final ValidationProfile PAYMENT_ORDER_PROFILE = new ValidationProfileBuilder()
+            .withSection("Платежное поручение")
+                .withRequired("Номер", "Дата", "Сумма", "ПлательщикСчет", "ПолучательСчет")
+                .withFormat("Сумма", FieldFormat.AMOUNT)
+                .withFormat("Дата", FieldFormat.DATE)
+                .withFormat("ПлательщикСчет", FieldFormat.ACCOUNT)
+            .endSection()
+            .build();
+
+    private ParboiledDocumentParserService parserService;
+
+    @BeforeEach
+    public void setUp() {
+        parserService = new ParboiledDocumentParserService();
+    }
+
+    @Test
+    public void testValidDocument() throws Exception {
+        String content = """
+            1CClientBankExchange
+            СекцияРасчСчет
+            РасчСчет=40702810000000000001
+            КонецРасчСчет
+            СекцияДокумент=Платежное поручение
+            Номер=15
+            Дата=01.02.2024
+            Сумма=1500.25
+            ПлательщикСчет=40702810000000000001
+            ПолучательСчет=40702810000000000002
+            КонецДокумента
+            КонецФайла
+            """;
+
+        ValidationResult result = parserService.parseAndValidate(content, PAYMENT_ORDER_PROFILE);
+
+        assertTrue(result.isValid());
+        assertEquals(1, result.getDocument().getSections().size());
+    }
+
+    @Test
+    public void testViolationsCarryLineNumbers() throws Exception {
+        String content = """
+            1CClientBankExchange
+            СекцияРасчСчет
+            РасчСчет=40702810000000000001
+            КонецРасчСчет
+            СекцияДокумент=Платежное поручение
+            Номер=15
+            Дата=2024-02-01
+            Сумма=1500,255
+            ПлательщикСчет=40702810000000000001
+            КонецДокумента
+            СекцияДокумент=Банковский ордер
+            Номер=16
+            КонецДокумента
+            КонецФайла
+            """;
+
+        ValidationResult result = parserService.parseAndValidate(content, PAYMENT_ORDER_PROFILE);
+        List<Violation> violations = result.getViolations();
+
+        assertEquals(3, violations.size());
+        assertEquals("Дата", violations.get(0).getKey());
+        assertEquals(7, violations.get(0).getLine());
+        assertEquals("Сумма", violations.get(1).getKey());
+        assertEquals(8, violations.get(1).getLine());
+        assertEquals("ПолучательСчет", violations.get(2).getKey());
+        assertEquals(5, violations.get(2).getLine());
+        assertEquals("Платежное поручение", violations.get(2).getSectionName());
+    }
+
+    @Test
+    public void testBlankRequiredValueIsMissing() {
+        ValidationSession session = PAYMENT_ORDER_PROFILE.newSession(index -> index + 1);
+        session.startSection("Платежное поручение", 4);
+        session.item("Номер", "15", 5);
+        session.item("Дата", "01.02.2024", 6);
+        session.item("Сумма", " ", 7);
+        session.item("ПлательщикСчет", "40702810000000000001", 8);
+        session.item("ПолучательСчет", "40702810000000000002", 9);
+        session.endSection();
+
+        List<Violation> violations = session.getViolations();
+        assertEquals(1, violations.size());
+        assertEquals("Сумма", violations.get(0).getKey());
+        assertEquals(5, violations.get(0).getLine());
+        assertTrue(violations.get(0).getMessage().startsWith("Missing"), violations.get(0).getMessage());
+    }
+
+    @Test
+    public void testFieldFormats() {
+        assertTrue(FieldFormat.AMOUNT.matches("100"));
+        assertTrue(FieldFormat.AMOUNT.matches("100.5"));
+        assertFalse(FieldFormat.AMOUNT.matches("100.555"));
+        assertFalse(FieldFormat.AMOUNT.matches(".5"));
+        assertFalse(FieldFormat.AMOUNT.matches("100."));
+        assertTrue(FieldFormat.AMOUNT.matches("1500,25"));
+        assertFalse(FieldFormat.AMOUNT.matches("1,500.25"));
+        assertTrue(FieldFormat.DATE.matches("31.12.2023"));
+        assertFalse(FieldFormat.DATE.matches("32.12.2023"));
+        assertTrue(FieldFormat.INN.matches("7707083893"));
+        assertFalse(FieldFormat.INN.matches("77070838"));
+    }
+}